@@ -0,0 +1,19 @@
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class AllPairsWorkload implements Supplier<Object> {
+
+    private final Map<Long, Router> network;
+
+    private final AllPairsRouting allPairsRouting;
+
+    public AllPairsWorkload(String topology, int size, int workers) {
+        network = Topologies.build(topology, size);
+        allPairsRouting = new AllPairsRouting(workers);
+    }
+
+    @Override
+    public Object get() {
+        return allPairsRouting.compute(TopologySnapshot.capture(network.values()));
+    }
+}
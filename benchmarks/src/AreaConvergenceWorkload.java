@@ -0,0 +1,44 @@
+import java.io.IOException;
+import java.util.function.Supplier;
+
+public class AreaConvergenceWorkload implements Supplier<Object> {
+
+    private static final int STABLE_ROUNDS = 3;
+
+    private static final int MAX_ROUNDS = 100;
+
+    private static final int SPF_DELAY = 10_000;
+
+    private final VirtualNetwork network;
+
+    private final long failedRouter;
+
+    public AreaConvergenceWorkload(String topology, int size, int areas, String origination) throws IOException {
+        String[] args = { "--topology=" + Topologies.write(topology, size, areas),
+                "--lsp-origination=" + origination, "--spf-initial-delay=" + SPF_DELAY, "--spf-hold=" + SPF_DELAY,
+                "--spf-max-wait=" + SPF_DELAY };
+        network = new VirtualNetwork(Configuration.fromArguments(args));
+        failedRouter = size / areas * areas - 1;
+        converge();
+    }
+
+    @Override
+    public Object get() {
+        network.shutdownRouter(failedRouter);
+        converge();
+        network.startRouter(failedRouter);
+        converge();
+
+        return network;
+    }
+
+    private void converge() {
+        long changes = network.getRouteChanges();
+
+        for (int round = 0, quiet = 0; quiet < STABLE_ROUNDS && round < MAX_ROUNDS; round++) {
+            network.sendPacket();
+            quiet = network.getRouteChanges() == changes ? quiet + 1 : 0;
+            changes = network.getRouteChanges();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+import java.io.IOException;
+import java.util.function.Supplier;
+
+public class ConvergenceWorkload implements Supplier<Object> {
+
+    private final VirtualNetwork network;
+
+    public ConvergenceWorkload(String topology, int size, String spf, String flooding, String origination)
+            throws IOException {
+        String[] args = { "--topology=" + Topologies.write(topology, size), "--spf=" + spf, "--flooding=" + flooding,
+                "--lsp-origination=" + origination };
+        network = new VirtualNetwork(Configuration.fromArguments(args));
+    }
+
+    @Override
+    public Object get() {
+        network.sendPacket();
+        return network;
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class FibWorkload implements Supplier<Object> {
+
+    private final ForwardingTable forwardingTable;
+
+    private final int[] addresses;
+
+    public FibWorkload(String topology, int size, int lookups) {
+        Map<Long, Router> network = Topologies.build(topology, size);
+        Router root = network.get(0L);
+        root.setSpfScheduler(new SpfScheduler(Long.MAX_VALUE / 2, 0, 0), () -> 0L);
+
+        for (Router router : network.values()) {
+            if (router != root) {
+                root.acceptPacket(router.getId(), router.originatePacket());
+            }
+        }
+
+        root.flushScheduledSpf();
+        forwardingTable = root.getForwardingTable();
+
+        Random random = new Random(Topologies.SEED);
+        addresses = new int[lookups];
+        for (int lookup = 0; lookup < lookups; lookup++) {
+            addresses[lookup] = lookup % 8 == 7 ? random.nextInt()
+                    : ForwardingTable.parseAddress(network.get((long) random.nextInt(size)).getNetworkName());
+        }
+    }
+
+    @Override
+    public Object get() {
+        long nextHops = 0;
+        for (int address : addresses) {
+            nextHops += forwardingTable.lookup(address);
+        }
+        return nextHops;
+    }
+}
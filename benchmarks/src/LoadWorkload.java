@@ -0,0 +1,16 @@
+import java.io.IOException;
+import java.util.function.Supplier;
+
+public class LoadWorkload implements Supplier<Object> {
+
+    private final String path;
+
+    public LoadWorkload(String topology, int size) throws IOException {
+        path = Topologies.write(topology, size).toString();
+    }
+
+    @Override
+    public Object get() {
+        return ReadWrite.readNetworkInitFile(path);
+    }
+}
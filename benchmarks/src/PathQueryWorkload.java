@@ -0,0 +1,74 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class PathQueryWorkload implements Supplier<Object> {
+
+    private static final int PAIRS = 1024;
+
+    private static final int SOURCES = 8;
+
+    private final Map<Long, Router> network;
+
+    private final PathQuery pathQuery;
+
+    private final long[] sources;
+
+    private final long[] destinations;
+
+    public PathQueryWorkload(String topology, int size, int queries, int cacheSize) {
+        network = Topologies.build(topology, size);
+        pathQuery = new PathQuery(cacheSize);
+
+        Random random = new Random(Topologies.SEED);
+        long[] sourceIds = new long[SOURCES];
+        for (int source = 0; source < SOURCES; source++) {
+            sourceIds[source] = random.nextInt(size);
+        }
+        converge(sourceIds);
+
+        long[] pairSources = new long[PAIRS];
+        long[] pairDestinations = new long[PAIRS];
+        for (int pair = 0; pair < PAIRS; pair++) {
+            pairSources[pair] = sourceIds[random.nextInt(SOURCES)];
+            pairDestinations[pair] = random.nextInt(size);
+        }
+
+        sources = new long[queries];
+        destinations = new long[queries];
+        for (int query = 0; query < queries; query++) {
+            int pair = random.nextInt(PAIRS);
+            sources[query] = pairSources[pair];
+            destinations[query] = pairDestinations[pair];
+        }
+    }
+
+    @Override
+    public Object get() {
+        long cost = 0;
+        for (int query = 0; query < sources.length; query++) {
+            cost += pathQuery.find(network.get(sources[query]), destinations[query]).getCost();
+        }
+        return cost;
+    }
+
+    private void converge(long[] sourceIds) {
+        List<LinkStatePacket> packets = new ArrayList<>();
+        for (Router router : network.values()) {
+            packets.add(router.originatePacket());
+        }
+
+        for (long sourceId : sourceIds) {
+            Router source = network.get(sourceId);
+            source.setSpfScheduler(new SpfScheduler(Long.MAX_VALUE / 2, 0, 0), () -> 0L);
+            for (LinkStatePacket packet : packets) {
+                if (packet.getOriginationRouter() != sourceId) {
+                    source.acceptPacket(packet.getOriginationRouter(), packet);
+                }
+            }
+            source.flushScheduledSpf();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class SpfWorkload implements Supplier<Object> {
+
+    private final ShortestPathTree shortestPathTree;
+
+    public SpfWorkload(String topology, int size) {
+        Map<Long, Router> network = Topologies.build(topology, size);
+        Router root = network.get(0L);
+        root.setSpfScheduler(new SpfScheduler(Long.MAX_VALUE / 2, 0, 0), () -> 0L);
+
+        for (Router router : network.values()) {
+            if (router != root) {
+                root.acceptPacket(router.getId(), router.originatePacket());
+            }
+        }
+
+        root.flushScheduledSpf();
+        shortestPathTree = root.getShortestPathTree();
+    }
+
+    @Override
+    public Object get() {
+        shortestPathTree.compute(SpfMode.FULL, Collections.emptyList());
+        return shortestPathTree;
+    }
+}
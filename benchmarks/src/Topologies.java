@@ -0,0 +1,216 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+public final class Topologies {
+
+    public static final long SEED = 42;
+
+    private static final int MAX_COST = 10;
+
+    private static final int RANDOM_DEGREE = 4;
+
+    private static final int SCALE_FREE_LINKS = 2;
+
+    private static final int INTER_AREA_LINKS = 2;
+
+    private final int size;
+
+    private final Random random;
+
+    private final List<long[]> links;
+
+    private final Set<Long> pairs;
+
+    private Topologies(int routers, long seed) {
+        size = routers;
+        random = new Random(seed);
+        links = new ArrayList<>();
+        pairs = new HashSet<>();
+    }
+
+    public static List<long[]> generate(String topology, int size) {
+        return generate(topology, size, SEED);
+    }
+
+    private static List<long[]> generate(String topology, int size, long seed) {
+        Topologies generator = new Topologies(size, seed);
+
+        switch (topology) {
+            case "ring":
+                generator.ring();
+                break;
+            case "grid":
+                generator.grid();
+                break;
+            case "random":
+                generator.random();
+                break;
+            case "scale-free":
+                generator.scaleFree();
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Invalid topology : %s", topology));
+        }
+
+        return generator.links;
+    }
+
+    public static Map<Long, Router> build(String topology, int size) {
+        Map<Long, Router> network = new HashMap<>();
+
+        for (long id = 0; id < size; id++) {
+            network.put(id, new Router(id, name(id)));
+        }
+
+        for (long[] link : generate(topology, size)) {
+            Router from = network.get(link[0]);
+            Router to = network.get(link[1]);
+            from.addConnection(to, link[2]);
+            to.addConnection(from, link[2]);
+        }
+
+        for (Router router : network.values()) {
+            router.setDirectory(network::get);
+        }
+
+        return network;
+    }
+
+    public static List<long[]> generate(String topology, int size, int areas) {
+        if (areas == 1) {
+            return generate(topology, size);
+        }
+
+        int areaSize = size / areas;
+        List<long[]> links = new ArrayList<>();
+        for (int area = 0; area < areas; area++) {
+            long offset = (long) area * areaSize;
+            for (long[] link : generate(topology, areaSize, SEED + area)) {
+                links.add(new long[] { offset + link[0], offset + link[1], link[2] });
+            }
+        }
+
+        Random random = new Random(SEED);
+        for (int area = 1; area < areas; area++) {
+            for (int link = 0; link < INTER_AREA_LINKS; link++) {
+                links.add(new long[] { random.nextInt(areaSize), (long) area * areaSize + random.nextInt(areaSize),
+                        1 + random.nextInt(MAX_COST) });
+            }
+        }
+
+        return links;
+    }
+
+    public static Path write(String topology, int size) throws IOException {
+        return write(topology, size, generate(topology, size), Topologies::name);
+    }
+
+    public static Path write(String topology, int size, int areas) throws IOException {
+        int areaSize = size / areas;
+
+        return write(topology, areaSize * areas, generate(topology, size, areas),
+                id -> network(id) + " " + id / areaSize);
+    }
+
+    private static Path write(String topology, int size, List<long[]> links, LongFunction<String> header)
+            throws IOException {
+        List<List<long[]>> adjacency = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            adjacency.add(new ArrayList<>());
+        }
+        for (long[] link : links) {
+            adjacency.get((int) link[0]).add(link);
+        }
+
+        Path file = Files.createTempFile(topology + "-" + size + "-", ".dat");
+        file.toFile().deleteOnExit();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int id = 0; id < size; id++) {
+                writer.write(id + " " + header.apply(id));
+                writer.newLine();
+                for (long[] link : adjacency.get(id)) {
+                    writer.write("  " + link[1] + " " + link[2]);
+                    writer.newLine();
+                }
+            }
+        }
+
+        return file;
+    }
+
+    private static String name(long id) {
+        return String.format("10.%d.%d.0", id >>> 8 & 0xFF, id & 0xFF);
+    }
+
+    private static String network(long id) {
+        return String.format("10.%d.%d", id >>> 8 & 0xFF, id & 0xFF);
+    }
+
+    private void ring() {
+        for (int id = 0; id < size; id++) {
+            link(id, (id + 1) % size);
+        }
+    }
+
+    private void grid() {
+        int side = (int) Math.ceil(Math.sqrt(size));
+
+        for (int id = 0; id < size; id++) {
+            if ((id + 1) % side != 0 && id + 1 < size) {
+                link(id, id + 1);
+            }
+            if (id + side < size) {
+                link(id, id + side);
+            }
+        }
+    }
+
+    private void random() {
+        for (int id = 1; id < size; id++) {
+            link(random.nextInt(id), id);
+        }
+
+        long extra = (long) size * RANDOM_DEGREE / 2 - (size - 1);
+        while (extra > 0) {
+            if (link(random.nextInt(size), random.nextInt(size))) {
+                extra--;
+            }
+        }
+    }
+
+    private void scaleFree() {
+        int[] endpoints = new int[size * SCALE_FREE_LINKS * 2];
+        int count = 0;
+
+        for (int id = 1; id < size; id++) {
+            for (int attempt = 0; attempt < Math.min(id, SCALE_FREE_LINKS); attempt++) {
+                int target = count == 0 ? 0 : endpoints[random.nextInt(count)];
+                if (link(target, id)) {
+                    endpoints[count++] = target;
+                    endpoints[count++] = id;
+                }
+            }
+        }
+    }
+
+    private boolean link(int from, int to) {
+        if (from == to || !pairs.add(Math.min(from, to) * (long) size + Math.max(from, to))) {
+            return false;
+        }
+
+        links.add(new long[] { from, to, 1 + random.nextInt(MAX_COST) });
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class TrafficWorkload implements Supplier<Object> {
+
+    private final Map<Long, Router> network;
+
+    private final TrafficEngine trafficEngine;
+
+    private final int flows;
+
+    public TrafficWorkload(String topology, int size, String matrix, int flowCount, int workers) {
+        network = Topologies.build(topology, size);
+        for (Router router : network.values()) {
+            router.setSpfScheduler(new SpfScheduler(Long.MAX_VALUE / 2, 0, 0), () -> 0L);
+        }
+
+        for (Router router : network.values()) {
+            for (Router origin : network.values()) {
+                if (origin != router) {
+                    router.acceptPacket(origin.getId(), origin.originatePacket());
+                }
+            }
+            router.flushScheduledSpf();
+        }
+
+        trafficEngine = new TrafficEngine(workers, TrafficMatrix.fromString(matrix), 10, Topologies.SEED);
+        flows = flowCount;
+    }
+
+    @Override
+    public Object get() {
+        return trafficEngine.run(network.values(), flows);
+    }
+}
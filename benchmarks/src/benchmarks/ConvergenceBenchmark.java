@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ConvergenceBenchmark {
+
+    @Param({ "grid", "scale-free" })
+    private String topology;
+
+    @Param({ "50", "200" })
+    private int size;
+
+    @Param({ "full", "incremental" })
+    private String spf;
+
+    @Param({ "sequential", "concurrent" })
+    private String flooding;
+
+    @Param({ "periodic", "triggered", "delta" })
+    private String origination;
+
+    private Supplier<Object> workload;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        Workloads.silence();
+        workload = Workloads.create("ConvergenceWorkload", topology, size, spf, flooding, origination);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+    @Benchmark
+    public Object sendPacket() {
+        return workload.get();
+    }
+}
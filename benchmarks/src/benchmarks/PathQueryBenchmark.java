@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class PathQueryBenchmark {
+
+    private static final int QUERIES = 4096;
+
+    @Param({ "random", "scale-free" })
+    private String topology;
+
+    @Param({ "1000", "10000", "100000" })
+    private int size;
+
+    @Param({ "0", "65536" })
+    private int cacheSize;
+
+    private Supplier<Object> workload;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        workload = Workloads.create("PathQueryWorkload", topology, size, QUERIES, cacheSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public Object query() {
+        return workload.get();
+    }
+}
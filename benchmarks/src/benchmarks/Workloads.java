@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.Supplier;
+
+/*
+ * JMH refuses benchmarks in the default package, and named packages cannot
+ * import the simulator classes, so the workloads live next to the simulator
+ * and are constructed here once per trial.
+ */
+final class Workloads {
+
+    private static final PrintStream CONSOLE = System.out;
+
+    private Workloads() {
+
+    }
+
+    @SuppressWarnings("unchecked")
+    static Supplier<Object> create(String workload, Object... args) throws ReflectiveOperationException {
+        for (Constructor<?> constructor : Class.forName(workload).getConstructors()) {
+            if (constructor.getParameterCount() == args.length) {
+                try {
+                    return (Supplier<Object>) constructor.newInstance(args);
+                } catch (InvocationTargetException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid workload : %s", workload));
+    }
+
+    static void silence() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static void restore() {
+        System.setOut(CONSOLE);
+    }
+}
@@ -0,0 +1,236 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class AllPairsRouting {
+
+    private static final int TASKS_PER_WORKER = 8;
+
+    private static final int NO_ROUTE = -1;
+
+    private final ForkJoinPool pool;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    public AllPairsRouting(int workers) {
+        pool = new ForkJoinPool(Math.max(1, workers));
+        scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    public RoutingTable[] compute(TopologySnapshot snapshot) {
+        RoutingTable[] tables = new RoutingTable[snapshot.size()];
+        int threshold = Math.max(1, snapshot.size() / (pool.getParallelism() * TASKS_PER_WORKER));
+
+        pool.invoke(new SourceRange(snapshot, tables, 0, snapshot.size(), threshold));
+
+        return tables;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private RoutingTable computeTable(TopologySnapshot snapshot, int source) {
+        Scratch buffers = scratch.get();
+        buffers.ensureCapacity(snapshot.size());
+        long[] distances = buffers.distances;
+        long[] nextHops = buffers.nextHops;
+        IndexedHeap heap = buffers.heap;
+        int nodeCount = snapshot.size();
+
+        Arrays.fill(distances, 0, nodeCount, ShortestPathTree.UNREACHABLE);
+        for (int node = 0; node < nodeCount; node++) {
+            nextHops[node] = node;
+        }
+
+        distances[source] = 0;
+        heap.reset(distances, nextHops, nodeCount);
+        heap.insertOrDecrease(source);
+
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+
+            if (distances[node] >= ShortestPathTree.UNREACHABLE) {
+                continue;
+            }
+
+            for (int edge = snapshot.getEdgeStart(node); edge < snapshot.getEdgeEnd(node); edge++) {
+                int target = snapshot.getTarget(edge);
+                long combinedCost = distances[node] + snapshot.getCost(edge);
+                long routeTo = node == source ? target : nextHops[node];
+
+                if (combinedCost < distances[target] || (combinedCost == distances[target]
+                        && combinedCost < ShortestPathTree.UNREACHABLE && routeTo < nextHops[target])) {
+                    distances[target] = combinedCost;
+                    nextHops[target] = routeTo;
+                    heap.insertOrDecrease(target);
+                }
+            }
+        }
+
+        int maxPaths = snapshot.getRouter(source).getMaxPaths();
+        if (maxPaths == 1) {
+            return new RoutingTable(snapshot, source, distances, nextHops);
+        }
+
+        return computeEqualCostPaths(snapshot, source, buffers, maxPaths);
+    }
+
+    private RoutingTable computeEqualCostPaths(TopologySnapshot snapshot, int source, Scratch buffers, int maxPaths) {
+        int nodeCount = snapshot.size();
+        buffers.ensurePathCapacity(nodeCount, maxPaths);
+        long[] distances = buffers.distances;
+        long[] order = buffers.order;
+        int[] pathHops = buffers.pathHops;
+        int[] pathCounts = buffers.pathCounts;
+
+        int reachable = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            pathCounts[node] = 0;
+            if (distances[node] < ShortestPathTree.UNREACHABLE) {
+                order[reachable++] = distances[node] << Integer.SIZE | node;
+            }
+        }
+        Arrays.sort(order, 0, reachable);
+
+        for (int i = 0; i < reachable; i++) {
+            int node = (int) order[i];
+
+            for (int edge = snapshot.getEdgeStart(node); edge < snapshot.getEdgeEnd(node); edge++) {
+                int target = snapshot.getTarget(edge);
+                if (target == source || distances[node] + snapshot.getCost(edge) != distances[target]) {
+                    continue;
+                }
+
+                if (node == source) {
+                    addPath(pathHops, pathCounts, maxPaths, target, target);
+                } else {
+                    for (int path = 0; path < pathCounts[node]; path++) {
+                        addPath(pathHops, pathCounts, maxPaths, target, pathHops[node * maxPaths + path]);
+                    }
+                }
+            }
+        }
+
+        int extraPaths = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            extraPaths += Math.max(0, pathCounts[node] - 1);
+        }
+
+        int[] costs = new int[nodeCount];
+        int[] firstHops = new int[nodeCount];
+        int[] offsets = extraPaths == 0 ? null : new int[nodeCount + 1];
+        int[] paths = extraPaths == 0 ? null : new int[extraPaths];
+        int path = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            boolean isReachable = distances[node] < ShortestPathTree.UNREACHABLE;
+            costs[node] = (int) (isReachable ? distances[node] : ShortestPathTree.UNREACHABLE);
+            firstHops[node] = !isReachable ? NO_ROUTE
+                    : pathCounts[node] == 0 ? (int) buffers.nextHops[node] : pathHops[node * maxPaths];
+            for (int extra = 1; extra < pathCounts[node]; extra++) {
+                paths[path++] = pathHops[node * maxPaths + extra];
+            }
+            if (offsets != null) {
+                offsets[node + 1] = path;
+            }
+        }
+
+        return new RoutingTable(snapshot.getRouters(), snapshot.getIds(), source, 0, costs, firstHops, offsets, paths);
+    }
+
+    private static void addPath(int[] pathHops, int[] pathCounts, int maxPaths, int node, int hop) {
+        int offset = node * maxPaths;
+        int count = pathCounts[node];
+        int position = count;
+
+        while (position > 0 && pathHops[offset + position - 1] > hop) {
+            position--;
+        }
+
+        if ((position > 0 && pathHops[offset + position - 1] == hop) || position == maxPaths) {
+            return;
+        }
+
+        int last = Math.min(count, maxPaths - 1);
+        System.arraycopy(pathHops, offset + position, pathHops, offset + position + 1, last - position);
+        pathHops[offset + position] = hop;
+        pathCounts[node] = last + 1;
+    }
+
+    private final class SourceRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient TopologySnapshot snapshot;
+
+        private final transient RoutingTable[] tables;
+
+        private final int from;
+
+        private final int to;
+
+        private final int threshold;
+
+        private SourceRange(TopologySnapshot topology, RoutingTable[] results, int start, int end, int limit) {
+            snapshot = topology;
+            tables = results;
+            from = start;
+            to = end;
+            threshold = limit;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int source = from; source < to; source++) {
+                    Router router = snapshot.getRouter(source);
+                    if (router.isActive()) {
+                        tables[source] = computeTable(snapshot, source);
+                        router.installRoutingTable(tables[source]);
+                    }
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new SourceRange(snapshot, tables, from, middle, threshold),
+                    new SourceRange(snapshot, tables, middle, to, threshold));
+        }
+    }
+
+    private static final class Scratch {
+
+        private long[] distances = new long[0];
+
+        private long[] nextHops = new long[0];
+
+        private long[] order = new long[0];
+
+        private int[] pathHops = new int[0];
+
+        private int[] pathCounts = new int[0];
+
+        private final IndexedHeap heap = new IndexedHeap();
+
+        private void ensureCapacity(int capacity) {
+            if (distances.length < capacity) {
+                distances = new long[capacity];
+                nextHops = new long[capacity];
+            }
+        }
+
+        private void ensurePathCapacity(int capacity, int maxPaths) {
+            if (order.length < capacity) {
+                order = new long[capacity];
+                pathCounts = new int[capacity];
+            }
+            if (pathHops.length < capacity * maxPaths) {
+                pathHops = new int[capacity * maxPaths];
+            }
+        }
+    }
+}
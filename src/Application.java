@@ -1,36 +1,125 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 public class Application {
 
+    private static final int BUFFER_SIZE = 1 << 16;
+
     public static void main(String[] args) throws IOException {
-        VirtualNetwork virtualNetwork = new VirtualNetwork();
+        Configuration configuration;
+        try {
+            configuration = Configuration.fromArguments(args);
+        } catch (IllegalArgumentException e) {
+            ReadWrite.printError(String.format("Invalid configuration : %s", e.getMessage()));
+            System.exit(1);
+            return;
+        }
+        ReadWrite.setJsonReport(configuration.isJsonReport());
+
+        if (configuration.isScripted()) {
+            runScript(configuration);
+            return;
+        }
+
+        VirtualNetwork virtualNetwork = new VirtualNetwork(configuration);
         String input;
 
         try (Scanner sc = new Scanner(System.in)) {
             while (!"Q".equalsIgnoreCase(input = ReadWrite.getUserInput(sc))) {
-                String[] commands = input.split("\\s+");
-
-                switch (commands[0].toUpperCase()) {
-                    case "C":
-                        virtualNetwork.sendPacket();
-                        break;
-                    case "S":
-                        virtualNetwork.shutdownRouter(Long.parseLong(commands[1]));
-                        break;
-                    case "T":
-                        virtualNetwork.startRouter(Long.parseLong(commands[1]));
-                        break;
-                    case "P":
-                        virtualNetwork.printRoutingTable(Long.parseLong(commands[1]));
-                        break;
-                    default:
-                        break;
-                }
+                execute(virtualNetwork, input.split("\\s+"));
             }
         }
 
+        virtualNetwork.close();
         ReadWrite.print("Network disconneted.");
 
     }
+
+    private static void runScript(Configuration configuration) throws IOException {
+        PrintStream console = System.out;
+        boolean standardOutput = TopologyLoader.STDIN.equals(configuration.getOutputPath());
+        OutputStream stream = standardOutput ? new FileOutputStream(FileDescriptor.out)
+                : Files.newOutputStream(Paths.get(configuration.getOutputPath()));
+        PrintStream output = new PrintStream(new BufferedOutputStream(stream, BUFFER_SIZE), false,
+                StandardCharsets.UTF_8.name());
+
+        ReadWrite.setOutput(output);
+        try {
+            VirtualNetwork virtualNetwork = new VirtualNetwork(configuration);
+            try (BufferedReader script = openScript(configuration.getScriptPath())) {
+                new ScriptRunner(virtualNetwork).run(script);
+            }
+            virtualNetwork.close();
+            ReadWrite.print("Network disconneted.");
+        } finally {
+            ReadWrite.setOutput(console);
+            if (standardOutput) {
+                output.flush();
+            } else {
+                output.close();
+            }
+        }
+    }
+
+    private static BufferedReader openScript(String path) throws IOException {
+        if (TopologyLoader.STDIN.equals(path)) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+
+        return Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8);
+    }
+
+    public static void execute(VirtualNetwork virtualNetwork, String[] commands) {
+        switch (commands[0].toUpperCase()) {
+            case "C":
+                long rounds = commands.length > 1 ? Long.parseLong(commands[1]) : 1;
+                for (long round = 0; round < rounds; round++) {
+                    virtualNetwork.sendPacket();
+                }
+                break;
+            case "A":
+                virtualNetwork.computeAllRoutingTables();
+                break;
+            case "S":
+                virtualNetwork.shutdownRouter(Long.parseLong(commands[1]));
+                break;
+            case "T":
+                virtualNetwork.startRouter(Long.parseLong(commands[1]));
+                break;
+            case "P":
+                if (commands.length > 1) {
+                    virtualNetwork.printRoutingTable(Long.parseLong(commands[1]));
+                } else {
+                    virtualNetwork.printRoutingTables();
+                }
+                break;
+            case "D":
+                virtualNetwork.sendTraffic(Integer.parseInt(commands[1]));
+                break;
+            case "R":
+                virtualNetwork.printPath(Long.parseLong(commands[1]), Long.parseLong(commands[2]));
+                break;
+            case "M":
+                virtualNetwork.printMetrics();
+                break;
+            case "W":
+                virtualNetwork.writeCheckpoint();
+                break;
+            case "F":
+                virtualNetwork.printForwarding(Long.parseLong(commands[1]), commands[2]);
+                break;
+            default:
+                break;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,505 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.IntToLongFunction;
+import java.util.zip.CRC32;
+
+public class Checkpoint {
+
+    private static final int MAGIC = 0x4C535043;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 40;
+
+    private static final long CHUNK_SIZE = 1L << 28;
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final Path path;
+
+    private ByteBuffer body;
+
+    private long topologyChecksum;
+
+    private long size;
+
+    private int statePosition;
+
+    private int routerCount;
+
+    private final Map<Long, Integer> areas;
+
+    private final Map<Long, Integer> tables;
+
+    private long restoredEntries;
+
+    public Checkpoint(String checkpointPath) {
+        path = Paths.get(checkpointPath);
+        areas = new HashMap<>();
+        tables = new HashMap<>();
+    }
+
+    public static long checksum(String topologyPath) throws IOException {
+        if (TopologyLoader.STDIN.equals(topologyPath)) {
+            return 0;
+        }
+
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(Paths.get(topologyPath), StandardOpenOption.READ)) {
+            for (long position = 0; position < channel.size(); position += CHUNK_SIZE) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(CHUNK_SIZE, channel.size() - position)));
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    public String getPath() {
+        return path.toString();
+    }
+
+    public long getTopologyChecksum() {
+        return topologyChecksum;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getRestoredEntries() {
+        return restoredEntries;
+    }
+
+    public void save(Collection<Router> network, long topology) throws IOException {
+        List<Router> routers = new ArrayList<>(network);
+        routers.sort(Comparator.comparingLong(Router::getId));
+        body = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+        for (Router router : routers) {
+            byte[] name = router.getNetworkName().getBytes(StandardCharsets.UTF_8);
+            ensure(Long.BYTES + Integer.BYTES * 2 + name.length).putLong(router.getId()).putInt(router.getArea())
+                    .putInt(name.length).put(name);
+        }
+
+        for (Router router : routers) {
+            ensure(Long.BYTES + Integer.BYTES).putLong(router.getId())
+                    .putInt(router.getConnectivityGraph().size());
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                ensure(Long.BYTES * 3).putLong(info.getRouter().getId()).putLong(info.getInitialCost())
+                        .putLong(info.getDelay());
+            }
+        }
+
+        Map<Long, Map<Map<Long, Long>, Integer>> linkStates = new HashMap<>();
+        List<Long> origins = new ArrayList<>();
+        List<Map<Long, Long>> links = new ArrayList<>();
+        for (Router router : routers) {
+            LinkStateDatabase linkStateDatabase = router.getLinkStateDatabase();
+            for (Long origin : linkStateDatabase.getOrigins()) {
+                Map<Map<Long, Long>, Integer> versions = linkStates.computeIfAbsent(origin, k -> new HashMap<>());
+                if (versions.putIfAbsent(linkStateDatabase.getLinks(origin), links.size()) == null) {
+                    origins.add(origin);
+                    links.add(linkStateDatabase.getLinks(origin));
+                }
+            }
+        }
+
+        ensure(Integer.BYTES).putInt(links.size());
+        for (int linkState = 0; linkState < links.size(); linkState++) {
+            ensure(Long.BYTES).putLong(origins.get(linkState));
+            writeMap(links.get(linkState));
+        }
+
+        for (Router router : routers) {
+            writeState(router, linkStates);
+        }
+
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        size = HEADER_SIZE + body.limit();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            file.putInt(MAGIC).putInt(VERSION).putLong(crc.getValue()).putLong(body.limit()).putLong(topology)
+                    .putInt(routers.size()).putInt(0).put(body);
+            file.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        body = null;
+    }
+
+    private void writeState(Router router, Map<Long, Map<Map<Long, Long>, Integer>> linkStates) {
+        ensure(Long.BYTES * 2 + 1 + Integer.BYTES).putLong(router.getId()).put((byte) (router.isActive() ? 1 : 0))
+                .putLong(router.getSequence()).putInt(router.getConnectivityGraph().size());
+        for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+            ensure(Long.BYTES + Integer.BYTES + 1).putLong(info.getRouter().getId()).putInt(info.getTick())
+                    .put((byte) (info.isDead() ? 1 : 0));
+        }
+
+        writeMap(router.getSequences());
+        writeMap(router.getAdvertisedLinks());
+        writeMap(router.getAdvertisedPrefixes());
+
+        LinkStateDatabase linkStateDatabase = router.getLinkStateDatabase();
+        Set<Long> origins = linkStateDatabase.getOrigins();
+        ensure(Integer.BYTES).putInt(origins.size());
+        for (Long origin : origins) {
+            ensure(Integer.BYTES).putInt(linkStates.get(origin).get(linkStateDatabase.getLinks(origin)));
+        }
+        Map<Long, Map<Long, Long>> prefixes = linkStateDatabase.getPrefixes();
+        ensure(Integer.BYTES).putInt(prefixes.size());
+        for (Entry<Long, Map<Long, Long>> prefix : prefixes.entrySet()) {
+            ensure(Long.BYTES).putLong(prefix.getKey());
+            writeMap(prefix.getValue());
+        }
+
+        RoutingTable table = router.getRoutingTable();
+        int reachable = 0;
+        for (int node = 0; node < table.size(); node++) {
+            reachable += table.isReachable(node) ? 1 : 0;
+        }
+        ensure(Integer.BYTES).putInt(reachable);
+        for (int node = 0; node < table.size(); node++) {
+            if (table.isReachable(node)) {
+                ensure(Long.BYTES * 2 + Integer.BYTES + Long.BYTES * table.getRouteCount(node))
+                        .putLong(table.getId(node)).putLong(table.getRouteCost(node))
+                        .putInt(table.getRouteCount(node));
+                for (int path = 0; path < table.getRouteCount(node); path++) {
+                    body.putLong(table.getRouteTo(node, path));
+                }
+            }
+        }
+        ensure(Integer.BYTES).putInt(table.getSummaryCount());
+        for (int summary = 0; summary < table.getSummaryCount(); summary++) {
+            ensure(Long.BYTES * 2 + Integer.BYTES + Long.BYTES * table.getSummaryRouteCount(summary))
+                    .putLong(table.getSummaryPrefix(summary)).putLong(table.getSummaryCost(summary))
+                    .putInt(table.getSummaryRouteCount(summary));
+            for (int path = 0; path < table.getSummaryRouteCount(summary); path++) {
+                body.putLong(table.getSummaryRouteTo(summary, path));
+            }
+        }
+    }
+
+    private void writeMap(Map<Long, Long> map) {
+        ensure(Integer.BYTES + Long.BYTES * 2 * map.size()).putInt(map.size());
+        for (Entry<Long, Long> entry : map.entrySet()) {
+            body.putLong(entry.getKey()).putLong(entry.getValue());
+        }
+    }
+
+    private ByteBuffer ensure(int bytes) {
+        if (body.remaining() < bytes) {
+            body.flip();
+            body = ByteBuffer.allocate(Math.max(body.capacity() * 2, body.limit() + bytes)).put(body);
+        }
+        return body;
+    }
+
+    public Map<Long, Router> load() throws IOException {
+        try (FileChannel channel = open(path)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(String.format("Invalid checkpoint : %s is truncated", path));
+            }
+
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (file.getInt() != MAGIC) {
+                throw new IOException(String.format("Invalid checkpoint : %s is not a checkpoint", path));
+            }
+            int version = file.getInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Invalid checkpoint : unsupported version %s", version));
+            }
+            long checksum = file.getLong();
+            long length = file.getLong();
+            if (length != channel.size() - HEADER_SIZE) {
+                throw new IOException(String.format("Invalid checkpoint : %s is truncated", path));
+            }
+            topologyChecksum = file.getLong();
+            routerCount = file.getInt();
+            file.getInt();
+
+            body = file.slice();
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != checksum) {
+                throw new IOException(String.format("Invalid checkpoint : checksum mismatch in %s", path));
+            }
+            size = channel.size();
+
+            return readTopology();
+        } catch (RuntimeException e) {
+            throw new IOException(String.format("Invalid checkpoint : %s is corrupted", path), e);
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new IOException(String.format("File not found : %s", path), e);
+        }
+    }
+
+    private Map<Long, Router> readTopology() throws IOException {
+        Map<Long, Router> network = new HashMap<>();
+
+        for (int i = 0; i < routerCount; i++) {
+            long id = body.getLong();
+            int area = body.getInt();
+            byte[] name = new byte[body.getInt()];
+            body.get(name);
+            network.put(id, new Router(id, new String(name, StandardCharsets.UTF_8), area));
+            areas.put(id, area);
+        }
+
+        for (int i = 0; i < routerCount; i++) {
+            Router router = network.get(body.getLong());
+            int links = body.getInt();
+            for (int link = 0; link < links; link++) {
+                Router neighbor = network.get(body.getLong());
+                if (router == null || neighbor == null) {
+                    throw new IOException(String.format("Invalid checkpoint : undefined router in %s", path));
+                }
+                router.addConnection(neighbor, body.getLong(), body.getLong());
+            }
+        }
+
+        statePosition = body.position();
+        return network;
+    }
+
+    public Set<Long> reconcile(Map<Long, Router> network, Map<Long, Router> topology) {
+        Set<Long> changed = new HashSet<>();
+
+        for (Long id : new ArrayList<>(network.keySet())) {
+            if (!topology.containsKey(id)) {
+                for (ConnectionInformation info : network.remove(id).getConnectivityGraph().values()) {
+                    info.getRouter().removeConnection(id);
+                    changed.add(info.getRouter().getId());
+                }
+            }
+        }
+
+        for (Router router : topology.values()) {
+            Router restored = network.get(router.getId());
+            if (restored == null || restored.getArea() != router.getArea()
+                    || !restored.getNetworkName().equals(router.getNetworkName())) {
+                network.put(router.getId(), new Router(router.getId(), router.getNetworkName(), router.getArea()));
+                changed.add(router.getId());
+            }
+        }
+
+        for (Router router : network.values()) {
+            Map<Long, ConnectionInformation> links = topology.get(router.getId()).getConnectivityGraph();
+
+            for (ConnectionInformation info : new ArrayList<>(router.getConnectivityGraph().values())) {
+                ConnectionInformation link = links.get(info.getRouter().getId());
+                if (link == null || info.getRouter() != network.get(info.getRouter().getId())
+                        || link.getInitialCost() != info.getInitialCost() || link.getDelay() != info.getDelay()) {
+                    router.removeConnection(info.getRouter().getId());
+                    changed.add(router.getId());
+                }
+            }
+
+            for (ConnectionInformation link : links.values()) {
+                if (!router.getConnectivityGraph().containsKey(link.getRouter().getId())) {
+                    router.addConnection(network.get(link.getRouter().getId()), link.getInitialCost(),
+                            link.getDelay());
+                    changed.add(router.getId());
+                }
+            }
+        }
+
+        changed.retainAll(network.keySet());
+        return changed;
+    }
+
+    public void restoreState(Map<Long, Router> network, Set<Long> changed) {
+        body.position(statePosition);
+        restoredEntries = 0;
+
+        LinkState[] linkStates = new LinkState[body.getInt()];
+        for (int linkState = 0; linkState < linkStates.length; linkState++) {
+            linkStates[linkState] = new LinkState(body.getLong(), readMap(network), network);
+        }
+
+        for (int i = 0; i < routerCount; i++) {
+            long id = body.getLong();
+            Router router = network.get(id);
+            boolean active = body.get() == 1;
+            long sequence = body.getLong();
+            boolean restore = router != null && !changed.contains(id);
+
+            int links = body.getInt();
+            for (int link = 0; link < links; link++) {
+                long neighbor = body.getLong();
+                int tick = body.getInt();
+                boolean dead = body.get() == 1;
+                ConnectionInformation info = router != null ? router.getConnectivityGraph().get(neighbor) : null;
+                if (info != null) {
+                    info.restore(tick, dead);
+                }
+            }
+
+            Map<Long, Long> sequences = readMap(network);
+            Map<Long, Long> advertised = readMap(null);
+            Map<Long, Long> prefixes = readMap(null);
+            if (router != null) {
+                router.restore(sequence, restore ? sequences : Collections.emptyMap(),
+                        restore ? advertised : Collections.emptyMap(), restore ? prefixes : Collections.emptyMap());
+                if (!active) {
+                    router.shutdown();
+                }
+            }
+
+            int origins = body.getInt();
+            for (int origin = 0; origin < origins; origin++) {
+                LinkState linkState = linkStates[body.getInt()];
+                if (restore && network.containsKey(linkState.origin)) {
+                    router.restoreLinkState(linkState.origin, linkState.links, linkState.neighbors);
+                    restoredEntries++;
+                }
+            }
+            int prefixOrigins = body.getInt();
+            for (int origin = 0; origin < prefixOrigins; origin++) {
+                long originId = body.getLong();
+                Map<Long, Long> originPrefixes = readMap(null);
+                if (restore && network.containsKey(originId)) {
+                    router.getLinkStateDatabase().setPrefixes(originId, originPrefixes);
+                }
+            }
+
+            if (router != null) {
+                tables.put(id, body.position());
+            }
+            skipRoutes();
+            skipRoutes();
+        }
+    }
+
+    private Map<Long, Long> readMap(Map<Long, Router> network) {
+        int entries = body.getInt();
+        Map<Long, Long> map = new HashMap<>();
+
+        for (int entry = 0; entry < entries; entry++) {
+            long key = body.getLong();
+            long value = body.getLong();
+            if (network == null || network.containsKey(key)) {
+                map.put(key, value);
+            }
+        }
+
+        return map;
+    }
+
+    private void skipRoutes() {
+        int routes = body.getInt();
+
+        for (int route = 0; route < routes; route++) {
+            body.position(body.position() + Long.BYTES * 2);
+            int hops = body.getInt();
+            body.position(body.position() + Long.BYTES * hops);
+        }
+    }
+
+    public boolean verify(Router router) {
+        Integer position = tables.get(router.getId());
+        if (position == null || areas.getOrDefault(router.getId(), -1) != router.getArea()) {
+            return false;
+        }
+
+        ByteBuffer stored = body.duplicate();
+        stored.position(position);
+        RoutingTable table = router.getRoutingTable();
+
+        int reachable = 0;
+        for (int node = 0; node < table.size(); node++) {
+            reachable += table.isReachable(node) ? 1 : 0;
+        }
+        int routes = stored.getInt();
+        if (routes != reachable) {
+            return false;
+        }
+        for (int route = 0; route < routes; route++) {
+            int node = table.indexOf(stored.getLong());
+            if (node < 0 || !table.isReachable(node) || !matches(stored, table.getRouteCost(node),
+                    table.getRouteCount(node), path -> table.getRouteTo(node, path))) {
+                return false;
+            }
+        }
+
+        int summaries = stored.getInt();
+        if (summaries != table.getSummaryCount()) {
+            return false;
+        }
+        for (int route = 0; route < summaries; route++) {
+            int summary = table.indexOfSummary(stored.getLong());
+            if (summary < 0 || !matches(stored, table.getSummaryCost(summary), table.getSummaryRouteCount(summary),
+                    path -> table.getSummaryRouteTo(summary, path))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean matches(ByteBuffer stored, long cost, int count,
+            IntToLongFunction hops) {
+        if (stored.getLong() != cost || stored.getInt() != count) {
+            return false;
+        }
+
+        for (int path = 0; path < count; path++) {
+            if (stored.getLong() != hops.applyAsLong(path)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final class LinkState {
+
+        private final long origin;
+
+        private final Map<Long, Long> links;
+
+        private final List<Router> neighbors;
+
+        private LinkState(long linkStateOrigin, Map<Long, Long> originLinks, Map<Long, Router> network) {
+            origin = linkStateOrigin;
+            links = originLinks;
+            neighbors = new ArrayList<>(originLinks.size());
+            for (Long neighbor : originLinks.keySet()) {
+                neighbors.add(network.get(neighbor));
+            }
+        }
+    }
+}
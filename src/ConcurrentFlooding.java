@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ConcurrentFlooding {
+
+    private static final Logger LOG = Logger.getLogger(ConcurrentFlooding.class.getCanonicalName());
+
+    private static final int BATCH_SIZE = 64;
+
+    private final Map<Long, Router> routers;
+
+    private final List<BlockingQueue<Mailbox>> runQueues;
+
+    private final List<Thread> threads;
+
+    private final AtomicLong networkTime;
+
+    private final AtomicLong inFlight;
+
+    private final AtomicReference<RuntimeException> failure;
+
+    private volatile CountDownLatch quiescence;
+
+    private FloodingTopology floodingTopology;
+
+    private RouterIndex routerIndex;
+
+    public ConcurrentFlooding(Collection<Router> network, int workers, AtomicLong clock) {
+        routers = new HashMap<>();
+        runQueues = new ArrayList<>();
+        threads = new ArrayList<>();
+        networkTime = clock;
+        inFlight = new AtomicLong();
+        failure = new AtomicReference<>();
+
+        int shard = 0;
+        for (Router router : network) {
+            routers.put(router.getId(), router);
+            router.getMailbox().setShard(shard++ % workers);
+        }
+
+        for (int i = 0; i < workers; i++) {
+            BlockingQueue<Mailbox> runQueue = new LinkedBlockingQueue<>();
+            runQueues.add(runQueue);
+
+            Thread worker = new Thread(() -> work(runQueue), "flooding-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            threads.add(worker);
+        }
+    }
+
+    public void shutdown() {
+        for (Thread worker : threads) {
+            worker.interrupt();
+        }
+
+        try {
+            for (Thread worker : threads) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        threads.clear();
+    }
+
+    public void setFloodingTopology(FloodingTopology topology, RouterIndex index) {
+        floodingTopology = topology;
+        routerIndex = index;
+    }
+
+    public void flood(List<LinkStatePacket> lsps) {
+        quiescence = new CountDownLatch(1);
+        inFlight.set(1);
+
+        for (LinkStatePacket lsp : lsps) {
+            Router origin = routers.get(lsp.getOriginationRouter());
+            if (floodingTopology != null) {
+                forward(origin, -1, lsp, LinkStatePacket.TIME_TO_LIVE - 1);
+                continue;
+            }
+            for (ConnectionInformation info : origin.getConnectivityGraph().values()) {
+                if (info.getRouter().getArea() == origin.getArea()) {
+                    send(info.getRouter(), origin.getId(), lsp, LinkStatePacket.TIME_TO_LIVE - 1);
+                }
+            }
+        }
+
+        complete();
+
+        try {
+            quiescence.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for flooding to finish.", e);
+        }
+
+        RuntimeException error = failure.getAndSet(null);
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void forward(Router router, int except, LinkStatePacket lsp, int timeToLive) {
+        if (timeToLive <= 0) {
+            return;
+        }
+
+        int from = routerIndex.indexOf(router.getId());
+        int sent = 0;
+        for (int neighbor : floodingTopology.getLinks(from)) {
+            if (neighbor != except) {
+                send(routerIndex.getRouter(neighbor), router.getId(), lsp, timeToLive);
+                sent++;
+            }
+        }
+        floodingTopology.recordForward(from, except, sent);
+    }
+
+    private void send(Router receiver, long sender, LinkStatePacket lsp, int timeToLive) {
+        if (timeToLive <= 0) {
+            return;
+        }
+
+        Mailbox mailbox = receiver.getMailbox();
+        inFlight.incrementAndGet();
+
+        if (mailbox.offer(new Delivery(sender, lsp, timeToLive))) {
+            runQueues.get(mailbox.getShard()).add(mailbox);
+        }
+    }
+
+    private void work(BlockingQueue<Mailbox> runQueue) {
+        while (true) {
+            Mailbox mailbox;
+            try {
+                mailbox = runQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            Delivery delivery;
+            for (int i = 0; i < BATCH_SIZE && (delivery = mailbox.poll()) != null; i++) {
+                process(mailbox.getOwner(), delivery);
+                complete();
+            }
+
+            if (mailbox.release()) {
+                runQueue.add(mailbox);
+            }
+        }
+    }
+
+    private void process(Router router, Delivery delivery) {
+        try {
+            LinkStatePacket lsp = delivery.getPacket();
+            long now = networkTime.incrementAndGet();
+
+            Mailbox mailbox = router.getMailbox();
+            if (router.acceptPacket(delivery.getSender(), lsp) || mailbox.reachesFurther(delivery)) {
+                mailbox.recordForward(delivery);
+                if (floodingTopology != null) {
+                    forward(router, routerIndex.indexOf(delivery.getSender()), lsp, delivery.getTimeToLive() - 1);
+                } else {
+                    for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                        if (info.getRouter().getId() != delivery.getSender()
+                                && info.getRouter().getArea() == router.getArea()) {
+                            send(info.getRouter(), router.getId(), lsp, delivery.getTimeToLive() - 1);
+                        }
+                    }
+                }
+            }
+
+            router.runScheduledSpf(now);
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Error while processing link state packet.", e);
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void complete() {
+        if (inFlight.decrementAndGet() == 0) {
+            quiescence.countDown();
+        }
+    }
+}
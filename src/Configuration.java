@@ -0,0 +1,691 @@
+import java.util.concurrent.Flow;
+
+public class Configuration {
+
+    private static final String SPF_MODE = "--spf=";
+
+    private static final String SPF_INITIAL_DELAY = "--spf-initial-delay=";
+
+    private static final String SPF_HOLD = "--spf-hold=";
+
+    private static final String SPF_MAX_WAIT = "--spf-max-wait=";
+
+    private static final String FLOODING = "--flooding=";
+
+    private static final String WORKERS = "--workers=";
+
+    private static final String SIMULATION = "--simulation=";
+
+    private static final String HELLO_INTERVAL = "--hello-interval=";
+
+    private static final String DEAD_INTERVAL = "--dead-interval=";
+
+    private static final String LSP_REFRESH = "--lsp-refresh=";
+
+    private static final String LSP_REFRESH_ROUNDS = "--lsp-refresh-rounds=";
+
+    private static final String LSP_ORIGINATION = "--lsp-origination=";
+
+    private static final String LSP_MAX_AGE = "--lsp-max-age=";
+
+    private static final String LINK_DELAY = "--link-delay=";
+
+    private static final String TOPOLOGY = "--topology=";
+
+    private static final String ECMP = "--ecmp=";
+
+    private static final int MAX_PATHS = 64;
+
+    private static final int MAX_PORT = 65535;
+
+    private static final String METRICS = "--metrics=";
+
+    private static final String METRICS_PORT = "--metrics-port=";
+
+    private static final String TRAFFIC = "--traffic=";
+
+    private static final String FLOW_SIZE = "--flow-size=";
+
+    private static final String TRAFFIC_SEED = "--traffic-seed=";
+
+    private static final String CHECKPOINT = "--checkpoint=";
+
+    private static final String SCRIPT = "--script=";
+
+    private static final String OUTPUT = "--output=";
+
+    private static final String REPORT = "--report=";
+
+    private static final String DAMPING = "--damping=";
+
+    private static final String DAMPING_HALF_LIFE = "--damping-half-life=";
+
+    private static final String DAMPING_SUPPRESS = "--damping-suppress=";
+
+    private static final String DAMPING_REUSE = "--damping-reuse=";
+
+    private static final String DAMPING_MAX_SUPPRESS = "--damping-max-suppress=";
+
+    private static final String PATH_CACHE = "--path-cache=";
+
+    private static final String FAST_REROUTE = "--fast-reroute=";
+
+    private static final String ROUTE_EVENTS = "--route-events=";
+
+    private static final String ROUTE_EVENT_BUFFER = "--route-event-buffer=";
+
+    private static final String FLOODING_REDUCTION = "--flooding-reduction=";
+
+    private SpfMode spfMode;
+
+    private long spfInitialDelay;
+
+    private long spfHold;
+
+    private long spfMaxWait;
+
+    private boolean concurrentFlooding;
+
+    private int workers;
+
+    private boolean eventSimulation;
+
+    private long helloInterval;
+
+    private long deadInterval;
+
+    private long lspRefreshInterval;
+
+    private long lspMaxAge;
+
+    private OriginationMode originationMode;
+
+    private int lspRefreshRounds;
+
+    private long linkDelay;
+
+    private String topologyPath;
+
+    private int maxPaths;
+
+    private boolean metricsEnabled;
+
+    private int metricsPort;
+
+    private TrafficMatrix trafficMatrix;
+
+    private long flowSize;
+
+    private long trafficSeed;
+
+    private String checkpointPath;
+
+    private String scriptPath;
+
+    private String outputPath;
+
+    private boolean jsonReport;
+
+    private boolean flapDamping;
+
+    private long dampingHalfLife;
+
+    private long dampingSuppress;
+
+    private long dampingReuse;
+
+    private long dampingMaxSuppress;
+
+    private int pathCacheSize;
+
+    private boolean fastReroute;
+
+    private String routeEventsPath;
+
+    private int routeEventBuffer;
+
+    private boolean floodingReduction;
+
+    public Configuration() {
+        spfMode = SpfMode.FULL;
+        spfInitialDelay = 0;
+        spfHold = 0;
+        spfMaxWait = 0;
+        concurrentFlooding = false;
+        workers = Runtime.getRuntime().availableProcessors();
+        eventSimulation = false;
+        helloInterval = 10_000;
+        deadInterval = 40_000;
+        lspRefreshInterval = 30_000;
+        lspMaxAge = 60_000;
+        originationMode = OriginationMode.TRIGGERED;
+        lspRefreshRounds = 32;
+        linkDelay = 1;
+        topologyPath = "infile.dat";
+        maxPaths = 4;
+        metricsEnabled = false;
+        metricsPort = 0;
+        trafficMatrix = TrafficMatrix.UNIFORM;
+        flowSize = 10;
+        trafficSeed = 1;
+        checkpointPath = null;
+        scriptPath = null;
+        outputPath = TopologyLoader.STDIN;
+        jsonReport = false;
+        flapDamping = false;
+        dampingHalfLife = 8;
+        dampingSuppress = 2000;
+        dampingReuse = 750;
+        dampingMaxSuppress = 32;
+        pathCacheSize = 1 << 16;
+        fastReroute = false;
+        routeEventsPath = null;
+        routeEventBuffer = Flow.defaultBufferSize();
+        floodingReduction = false;
+    }
+
+    public static Configuration fromArguments(String[] args) {
+        Configuration configuration = new Configuration();
+
+        for (String arg : args) {
+            if (arg.startsWith(SPF_MODE)) {
+                configuration.setSpfMode(SpfMode.fromString(arg.substring(SPF_MODE.length())));
+            } else if (arg.startsWith(SPF_INITIAL_DELAY)) {
+                configuration.setSpfInitialDelay(parseNumber(arg, SPF_INITIAL_DELAY));
+            } else if (arg.startsWith(SPF_HOLD)) {
+                configuration.setSpfHold(parseNumber(arg, SPF_HOLD));
+            } else if (arg.startsWith(SPF_MAX_WAIT)) {
+                configuration.setSpfMaxWait(parseNumber(arg, SPF_MAX_WAIT));
+            } else if (arg.startsWith(FLOODING)) {
+                configuration.setConcurrentFlooding(parseFlooding(arg));
+            } else if (arg.startsWith(WORKERS)) {
+                configuration.setWorkers((int) parseNumber(arg, WORKERS));
+            } else if (arg.startsWith(SIMULATION)) {
+                configuration.setEventSimulation(parseSimulation(arg));
+            } else if (arg.startsWith(HELLO_INTERVAL)) {
+                configuration.setHelloInterval(parseNumber(arg, HELLO_INTERVAL));
+            } else if (arg.startsWith(DEAD_INTERVAL)) {
+                configuration.setDeadInterval(parseNumber(arg, DEAD_INTERVAL));
+            } else if (arg.startsWith(LSP_REFRESH)) {
+                configuration.setLspRefreshInterval(parseNumber(arg, LSP_REFRESH));
+            } else if (arg.startsWith(LSP_REFRESH_ROUNDS)) {
+                configuration.setLspRefreshRounds((int) parseNumber(arg, LSP_REFRESH_ROUNDS));
+            } else if (arg.startsWith(LSP_ORIGINATION)) {
+                configuration.setOriginationMode(
+                        OriginationMode.fromString(arg.substring(LSP_ORIGINATION.length())));
+            } else if (arg.startsWith(LSP_MAX_AGE)) {
+                configuration.setLspMaxAge(parseNumber(arg, LSP_MAX_AGE));
+            } else if (arg.startsWith(LINK_DELAY)) {
+                configuration.setLinkDelay(parseNumber(arg, LINK_DELAY));
+            } else if (arg.startsWith(TOPOLOGY) && arg.length() > TOPOLOGY.length()) {
+                configuration.setTopologyPath(arg.substring(TOPOLOGY.length()));
+            } else if (arg.startsWith(ECMP)) {
+                configuration.setMaxPaths(parsePaths(arg));
+            } else if (arg.startsWith(METRICS)) {
+                configuration.setMetricsEnabled(parseMetrics(arg));
+            } else if (arg.startsWith(METRICS_PORT)) {
+                configuration.setMetricsPort(parsePort(arg));
+            } else if (arg.startsWith(TRAFFIC)) {
+                configuration.setTrafficMatrix(TrafficMatrix.fromString(arg.substring(TRAFFIC.length())));
+            } else if (arg.startsWith(FLOW_SIZE)) {
+                configuration.setFlowSize(parseNumber(arg, FLOW_SIZE));
+            } else if (arg.startsWith(TRAFFIC_SEED)) {
+                configuration.setTrafficSeed(parseNumber(arg, TRAFFIC_SEED));
+            } else if (arg.startsWith(CHECKPOINT) && arg.length() > CHECKPOINT.length()) {
+                configuration.setCheckpointPath(arg.substring(CHECKPOINT.length()));
+            } else if (arg.startsWith(SCRIPT) && arg.length() > SCRIPT.length()) {
+                configuration.setScriptPath(arg.substring(SCRIPT.length()));
+            } else if (arg.startsWith(OUTPUT) && arg.length() > OUTPUT.length()) {
+                configuration.setOutputPath(arg.substring(OUTPUT.length()));
+            } else if (arg.startsWith(REPORT)) {
+                configuration.setJsonReport(parseReport(arg));
+            } else if (arg.startsWith(DAMPING)) {
+                configuration.setFlapDamping(parseDamping(arg));
+            } else if (arg.startsWith(DAMPING_HALF_LIFE)) {
+                configuration.setDampingHalfLife(Math.max(1, parseNumber(arg, DAMPING_HALF_LIFE)));
+            } else if (arg.startsWith(DAMPING_SUPPRESS)) {
+                configuration.setDampingSuppress(parseNumber(arg, DAMPING_SUPPRESS));
+            } else if (arg.startsWith(DAMPING_REUSE)) {
+                configuration.setDampingReuse(parseNumber(arg, DAMPING_REUSE));
+            } else if (arg.startsWith(DAMPING_MAX_SUPPRESS)) {
+                configuration.setDampingMaxSuppress(parseNumber(arg, DAMPING_MAX_SUPPRESS));
+            } else if (arg.startsWith(PATH_CACHE)) {
+                configuration.setPathCacheSize((int) Math.min(parseNumber(arg, PATH_CACHE), Integer.MAX_VALUE));
+            } else if (arg.startsWith(FAST_REROUTE)) {
+                configuration.setFastReroute(parseFastReroute(arg));
+            } else if (arg.startsWith(ROUTE_EVENTS) && arg.length() > ROUTE_EVENTS.length()) {
+                configuration.setRouteEventsPath(arg.substring(ROUTE_EVENTS.length()));
+            } else if (arg.startsWith(ROUTE_EVENT_BUFFER)) {
+                configuration.setRouteEventBuffer(
+                        (int) Math.min(parseNumber(arg, ROUTE_EVENT_BUFFER), Integer.MAX_VALUE));
+            } else if (arg.startsWith(FLOODING_REDUCTION)) {
+                configuration.setFloodingReduction(parseFloodingReduction(arg));
+            } else {
+                throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+            }
+        }
+
+        if (configuration.isEventSimulation() && configuration.isFlapDamping()) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid argument : %son is not supported with %sevent", DAMPING, SIMULATION));
+        }
+
+        return configuration;
+    }
+
+    private static boolean parseFlooding(String arg) {
+        String flooding = arg.substring(FLOODING.length());
+
+        if ("concurrent".equalsIgnoreCase(flooding)) {
+            return true;
+        } else if ("sequential".equalsIgnoreCase(flooding)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+    }
+
+    private static boolean parseSimulation(String arg) {
+        String simulation = arg.substring(SIMULATION.length());
+
+        if ("event".equalsIgnoreCase(simulation)) {
+            return true;
+        } else if ("tick".equalsIgnoreCase(simulation)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+    }
+
+    private static boolean parseMetrics(String arg) {
+        String metrics = arg.substring(METRICS.length());
+
+        if ("on".equalsIgnoreCase(metrics)) {
+            return true;
+        } else if ("off".equalsIgnoreCase(metrics)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+    }
+
+    private static boolean parseDamping(String arg) {
+        String damping = arg.substring(DAMPING.length());
+
+        if ("on".equalsIgnoreCase(damping)) {
+            return true;
+        } else if ("off".equalsIgnoreCase(damping)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+    }
+
+    private static boolean parseFastReroute(String arg) {
+        String fastReroute = arg.substring(FAST_REROUTE.length());
+
+        if ("on".equalsIgnoreCase(fastReroute)) {
+            return true;
+        } else if ("off".equalsIgnoreCase(fastReroute)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+    }
+
+    private static boolean parseFloodingReduction(String arg) {
+        String floodingReduction = arg.substring(FLOODING_REDUCTION.length());
+
+        if ("on".equalsIgnoreCase(floodingReduction)) {
+            return true;
+        } else if ("off".equalsIgnoreCase(floodingReduction)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+    }
+
+    private static boolean parseReport(String arg) {
+        String report = arg.substring(REPORT.length());
+
+        if ("json".equalsIgnoreCase(report)) {
+            return true;
+        } else if ("text".equalsIgnoreCase(report)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+    }
+
+    private static int parsePort(String arg) {
+        long port = parseNumber(arg, METRICS_PORT);
+
+        if (port > MAX_PORT) {
+            throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+        }
+
+        return (int) port;
+    }
+
+    private static int parsePaths(String arg) {
+        long paths = parseNumber(arg, ECMP);
+
+        if (paths < 1 || paths > MAX_PATHS) {
+            throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+        }
+
+        return (int) paths;
+    }
+
+    private static long parseNumber(String arg, String option) {
+        long duration;
+        try {
+            duration = Long.parseLong(arg.substring(option.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid argument : %s", arg), e);
+        }
+
+        if (duration < 0) {
+            throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+        }
+
+        return duration;
+    }
+
+    public SpfMode getSpfMode() {
+        return spfMode;
+    }
+
+    public void setSpfMode(SpfMode mode) {
+        spfMode = mode;
+    }
+
+    public long getSpfInitialDelay() {
+        return spfInitialDelay;
+    }
+
+    public void setSpfInitialDelay(long delay) {
+        spfInitialDelay = delay;
+    }
+
+    public long getSpfHold() {
+        return spfHold;
+    }
+
+    public void setSpfHold(long hold) {
+        spfHold = hold;
+    }
+
+    public long getSpfMaxWait() {
+        return spfMaxWait;
+    }
+
+    public void setSpfMaxWait(long maxWait) {
+        spfMaxWait = maxWait;
+    }
+
+    public boolean isConcurrentFlooding() {
+        return concurrentFlooding;
+    }
+
+    public void setConcurrentFlooding(boolean concurrent) {
+        concurrentFlooding = concurrent;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workerCount) {
+        workers = Math.max(1, workerCount);
+    }
+
+    public boolean isEventSimulation() {
+        return eventSimulation;
+    }
+
+    public void setEventSimulation(boolean simulation) {
+        eventSimulation = simulation;
+    }
+
+    public long getHelloInterval() {
+        return helloInterval;
+    }
+
+    public void setHelloInterval(long interval) {
+        helloInterval = Math.max(1, interval);
+    }
+
+    public long getDeadInterval() {
+        return deadInterval;
+    }
+
+    public void setDeadInterval(long interval) {
+        deadInterval = Math.max(1, interval);
+    }
+
+    public long getLspRefreshInterval() {
+        return lspRefreshInterval;
+    }
+
+    public void setLspRefreshInterval(long interval) {
+        lspRefreshInterval = Math.max(1, interval);
+    }
+
+    public long getLspMaxAge() {
+        return lspMaxAge;
+    }
+
+    public void setLspMaxAge(long maxAge) {
+        lspMaxAge = Math.max(1, maxAge);
+    }
+
+    public OriginationMode getOriginationMode() {
+        return originationMode;
+    }
+
+    public void setOriginationMode(OriginationMode mode) {
+        originationMode = mode;
+    }
+
+    public int getLspRefreshRounds() {
+        return lspRefreshRounds;
+    }
+
+    public void setLspRefreshRounds(int rounds) {
+        lspRefreshRounds = Math.max(1, rounds);
+    }
+
+    public long getLinkDelay() {
+        return linkDelay;
+    }
+
+    public void setLinkDelay(long delay) {
+        linkDelay = delay;
+    }
+
+    public String getTopologyPath() {
+        return topologyPath;
+    }
+
+    public void setTopologyPath(String path) {
+        topologyPath = path;
+    }
+
+    public int getMaxPaths() {
+        return maxPaths;
+    }
+
+    public void setMaxPaths(int paths) {
+        maxPaths = paths;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled || metricsPort > 0;
+    }
+
+    public void setMetricsEnabled(boolean enabled) {
+        metricsEnabled = enabled;
+    }
+
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public void setMetricsPort(int port) {
+        metricsPort = port;
+    }
+
+    public TrafficMatrix getTrafficMatrix() {
+        return trafficMatrix;
+    }
+
+    public void setTrafficMatrix(TrafficMatrix matrix) {
+        trafficMatrix = matrix;
+    }
+
+    public long getFlowSize() {
+        return flowSize;
+    }
+
+    public void setFlowSize(long size) {
+        flowSize = size;
+    }
+
+    public long getTrafficSeed() {
+        return trafficSeed;
+    }
+
+    public void setTrafficSeed(long seed) {
+        trafficSeed = seed;
+    }
+
+    public String getCheckpointPath() {
+        return checkpointPath;
+    }
+
+    public void setCheckpointPath(String path) {
+        checkpointPath = path;
+    }
+
+    public String getScriptPath() {
+        return scriptPath;
+    }
+
+    public void setScriptPath(String path) {
+        scriptPath = path;
+    }
+
+    public boolean isScripted() {
+        return scriptPath != null;
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    public void setOutputPath(String path) {
+        outputPath = path;
+    }
+
+    public boolean isJsonReport() {
+        return jsonReport;
+    }
+
+    public void setJsonReport(boolean json) {
+        jsonReport = json;
+    }
+
+    public boolean isFlapDamping() {
+        return flapDamping;
+    }
+
+    public void setFlapDamping(boolean damping) {
+        flapDamping = damping;
+    }
+
+    public long getDampingHalfLife() {
+        return dampingHalfLife;
+    }
+
+    public void setDampingHalfLife(long halfLife) {
+        dampingHalfLife = halfLife;
+    }
+
+    public long getDampingSuppress() {
+        return dampingSuppress;
+    }
+
+    public void setDampingSuppress(long suppress) {
+        dampingSuppress = suppress;
+    }
+
+    public long getDampingReuse() {
+        return dampingReuse;
+    }
+
+    public void setDampingReuse(long reuse) {
+        dampingReuse = reuse;
+    }
+
+    public long getDampingMaxSuppress() {
+        return dampingMaxSuppress;
+    }
+
+    public void setDampingMaxSuppress(long maxSuppress) {
+        dampingMaxSuppress = maxSuppress;
+    }
+
+    public int getPathCacheSize() {
+        return pathCacheSize;
+    }
+
+    public void setPathCacheSize(int size) {
+        pathCacheSize = Math.max(0, size);
+    }
+
+    public boolean isFastReroute() {
+        return fastReroute;
+    }
+
+    public void setFastReroute(boolean enable) {
+        fastReroute = enable;
+    }
+
+    public String getRouteEventsPath() {
+        return routeEventsPath;
+    }
+
+    public void setRouteEventsPath(String path) {
+        routeEventsPath = path;
+    }
+
+    public int getRouteEventBuffer() {
+        return routeEventBuffer;
+    }
+
+    public void setRouteEventBuffer(int bufferSize) {
+        routeEventBuffer = Math.max(1, bufferSize);
+    }
+
+    public boolean isFloodingReduction() {
+        return floodingReduction;
+    }
+
+    public void setFloodingReduction(boolean enable) {
+        floodingReduction = enable;
+    }
+
+    public boolean isSpfThrottling() {
+        return spfInitialDelay > 0 || spfHold > 0;
+    }
+
+    public SpfScheduler createSpfScheduler() {
+        return new SpfScheduler(spfInitialDelay, spfHold, spfMaxWait);
+    }
+
+    public FlapDamping createFlapDamping() {
+        return flapDamping ? new FlapDamping(dampingHalfLife, dampingSuppress, dampingReuse, dampingMaxSuppress)
+                : FlapDamping.DISABLED;
+    }
+}
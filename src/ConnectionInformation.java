@@ -1,41 +1,123 @@
 public class ConnectionInformation {
 
+    public static final long DEFAULT_DELAY = -1;
+
     private final Router router;
 
     private final long initCost;
 
+    private final long delay;
+
     private long cost;
 
     private int tick;
 
+    private long lastHeard;
+
+    private FlapDamping damping;
+
+    private boolean suppressed;
+
+    private long absorbedFlaps;
+
     public ConnectionInformation(Router connection, long linkCost) {
+        this(connection, linkCost, DEFAULT_DELAY);
+    }
+
+    public ConnectionInformation(Router connection, long linkCost, long linkDelay) {
         router = connection;
         initCost = linkCost;
         cost = linkCost;
+        delay = linkDelay;
         tick = 0;
+        damping = FlapDamping.DISABLED;
     }
 
     public Router getRouter() {
         return router;
     }
 
+    public long getInitialCost() {
+        return initCost;
+    }
+
     public int getTick() {
         return tick;
     }
 
+    public void restore(int linkTick, boolean dead) {
+        tick = linkTick;
+        cost = dead ? Integer.MAX_VALUE : initCost;
+    }
+
     public void resetTick() {
+        if (suppressed && isDead()) {
+            absorbedFlaps++;
+        }
         tick = 0;
         cost = initCost;
     }
 
-    public void incrementTick(boolean incrementTick) {
+    public boolean incrementTick(boolean incrementTick) {
         if (incrementTick && ++tick == 2) {
+            if (suppressed) {
+                absorbedFlaps++;
+            }
             setCost(Integer.MAX_VALUE);
+            suppressed = damping.flap();
+            return true;
+        }
+
+        return false;
+    }
+
+    public void setDamping(FlapDamping linkDamping) {
+        damping = linkDamping;
+    }
+
+    public boolean dampen(long round) {
+        suppressed = damping.advance(round);
+        return suppressed;
+    }
+
+    public boolean isSuppressed() {
+        return suppressed;
+    }
+
+    public long getAbsorbedFlaps() {
+        return absorbedFlaps;
+    }
+
+    public boolean heard(long now) {
+        boolean dead = isDead();
+        lastHeard = now;
+        resetTick();
+        return dead;
+    }
+
+    public boolean expire(long now, long deadInterval) {
+        if (isDead() || now - lastHeard < deadInterval) {
+            return false;
         }
+
+        setCost(Integer.MAX_VALUE);
+        return true;
+    }
+
+    public boolean isDead() {
+        return cost >= Integer.MAX_VALUE;
+    }
+
+    public long getLastHeard() {
+        return lastHeard;
+    }
+
+    public long getDelay() {
+        return delay;
     }
 
     public long getCost() {
-        return cost;
+        return suppressed ? Integer.MAX_VALUE : cost;
     }
 
     public void setCost(long linkCost) {
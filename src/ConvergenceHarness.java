@@ -0,0 +1,296 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ConvergenceHarness {
+
+    private static final Logger LOG = Logger.getLogger(ConvergenceHarness.class.getCanonicalName());
+
+    private static final String FAILURES = "--failures=";
+
+    private static final String STABLE_ROUNDS = "--stable-rounds=";
+
+    private static final String MAX_ROUNDS = "--max-rounds=";
+
+    private static final String SEED = "--seed=";
+
+    private static final String REPORT = "--report=";
+
+    private static final String OUTPUT = "--output=";
+
+    private static final String CSV_HEADER = "event,router,rounds,convergence_ms,lsps_delivered,spf_runs,route_changes,"
+            + "converged";
+
+    private final List<String> networkArguments;
+
+    private int failures;
+
+    private int stableRounds;
+
+    private int maxRounds;
+
+    private long seed;
+
+    private boolean json;
+
+    private String output;
+
+    private VirtualNetwork network;
+
+    private final List<Measurement> measurements;
+
+    public ConvergenceHarness() {
+        networkArguments = new ArrayList<>();
+        failures = 5;
+        stableRounds = 3;
+        maxRounds = 100;
+        seed = 1;
+        json = false;
+        output = TopologyLoader.STDIN;
+        measurements = new ArrayList<>();
+    }
+
+    public static void main(String[] args) {
+        ConvergenceHarness harness = fromArguments(args);
+        PrintStream console = System.out;
+
+        ReadWrite.setOutput(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        harness.run();
+        ReadWrite.setOutput(console);
+
+        try {
+            harness.writeReport();
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Error while writing report.", e);
+            ReadWrite.printError(String.format("Error while writing report : %s", e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    public static ConvergenceHarness fromArguments(String[] args) {
+        ConvergenceHarness harness = new ConvergenceHarness();
+
+        for (String arg : args) {
+            if (arg.startsWith(FAILURES)) {
+                harness.failures = (int) parseNumber(arg, FAILURES);
+            } else if (arg.startsWith(STABLE_ROUNDS)) {
+                harness.stableRounds = (int) Math.max(1, parseNumber(arg, STABLE_ROUNDS));
+            } else if (arg.startsWith(MAX_ROUNDS)) {
+                harness.maxRounds = (int) parseNumber(arg, MAX_ROUNDS);
+            } else if (arg.startsWith(SEED)) {
+                harness.seed = parseNumber(arg, SEED);
+            } else if (arg.startsWith(REPORT)) {
+                harness.json = parseReport(arg);
+            } else if (arg.startsWith(OUTPUT) && arg.length() > OUTPUT.length()) {
+                harness.output = arg.substring(OUTPUT.length());
+            } else {
+                harness.networkArguments.add(arg);
+            }
+        }
+
+        Configuration.fromArguments(harness.networkArguments.toArray(new String[0]));
+
+        return harness;
+    }
+
+    private static boolean parseReport(String arg) {
+        String report = arg.substring(REPORT.length());
+
+        if ("json".equalsIgnoreCase(report)) {
+            return true;
+        } else if ("csv".equalsIgnoreCase(report)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+    }
+
+    private static long parseNumber(String arg, String option) {
+        long number = Long.parseLong(arg.substring(option.length()));
+
+        if (number < 0) {
+            throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+        }
+
+        return number;
+    }
+
+    public List<Measurement> run() {
+        long start = System.nanoTime();
+        network = new VirtualNetwork(Configuration.fromArguments(networkArguments.toArray(new String[0])));
+        measurements.add(converge("initial", -1, start, 0, 0, 0, 1));
+
+        List<Long> routers = network.getRouterIds();
+        Collections.shuffle(routers, new Random(seed));
+
+        for (long router : routers.subList(0, Math.min(failures, routers.size()))) {
+            measure("shutdown", router, () -> network.shutdownRouter(router));
+            measure("startup", router, () -> network.startRouter(router));
+        }
+
+        return measurements;
+    }
+
+    private void measure(String event, long router, Runnable action) {
+        long delivered = network.getDeliveredPackets();
+        long spfRuns = network.getSpfRuns();
+        long routeChanges = network.getRouteChanges();
+        long start = System.nanoTime();
+
+        action.run();
+        measurements.add(converge(event, router, start, delivered, spfRuns, routeChanges, 0));
+    }
+
+    private Measurement converge(String event, long router, long start, long delivered, long spfRuns,
+            long routeChanges, int completedRounds) {
+        Measurement measurement = new Measurement(event, router);
+        long changes = network.getRouteChanges();
+        int round = completedRounds;
+        int lastChange = 0;
+
+        if (changes != routeChanges) {
+            lastChange = round;
+            measurement.record(this, round, start, delivered, spfRuns, routeChanges);
+        }
+
+        while (round - lastChange < stableRounds && round < maxRounds) {
+            network.sendPacket();
+            round++;
+
+            if (network.getRouteChanges() != changes) {
+                changes = network.getRouteChanges();
+                lastChange = round;
+                measurement.record(this, round, start, delivered, spfRuns, routeChanges);
+            }
+        }
+
+        measurement.converged = round - lastChange >= stableRounds;
+        return measurement;
+    }
+
+    public void writeReport() throws IOException {
+        StringBuilder report = new StringBuilder();
+
+        if (json) {
+            report.append("{\"arguments\":[");
+            for (int i = 0; i < networkArguments.size(); i++) {
+                report.append(i > 0 ? "," : "").append('"').append(escape(networkArguments.get(i))).append('"');
+            }
+            report.append("],\"events\":[");
+            for (int i = 0; i < measurements.size(); i++) {
+                report.append(i > 0 ? "," : "").append(System.lineSeparator()).append(measurements.get(i).toJson());
+            }
+            report.append(System.lineSeparator()).append("]}").append(System.lineSeparator());
+        } else {
+            report.append(CSV_HEADER).append(System.lineSeparator());
+            for (Measurement measurement : measurements) {
+                report.append(measurement.toCsv()).append(System.lineSeparator());
+            }
+        }
+
+        if (TopologyLoader.STDIN.equals(output)) {
+            System.out.print(report);
+            System.out.flush();
+        } else {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+                writer.write(report.toString());
+            }
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    public static final class Measurement {
+
+        private final String event;
+
+        private final long router;
+
+        private int rounds;
+
+        private long convergenceTime;
+
+        private long deliveredPackets;
+
+        private long spfRuns;
+
+        private long routeChanges;
+
+        private boolean converged;
+
+        private Measurement(String eventName, long routerId) {
+            event = eventName;
+            router = routerId;
+        }
+
+        private void record(ConvergenceHarness harness, int round, long start, long delivered, long runs,
+                long changes) {
+            rounds = round;
+            convergenceTime = System.nanoTime() - start;
+            deliveredPackets = harness.network.getDeliveredPackets() - delivered;
+            spfRuns = harness.network.getSpfRuns() - runs;
+            routeChanges = harness.network.getRouteChanges() - changes;
+        }
+
+        public String getEvent() {
+            return event;
+        }
+
+        public long getRouter() {
+            return router;
+        }
+
+        public int getRounds() {
+            return rounds;
+        }
+
+        public long getConvergenceTime() {
+            return convergenceTime;
+        }
+
+        public long getDeliveredPackets() {
+            return deliveredPackets;
+        }
+
+        public long getSpfRuns() {
+            return spfRuns;
+        }
+
+        public long getRouteChanges() {
+            return routeChanges;
+        }
+
+        public boolean isConverged() {
+            return converged;
+        }
+
+        private String toCsv() {
+            return String.format(Locale.ROOT, "%s,%s,%s,%.3f,%s,%s,%s,%s", event, router, rounds,
+                    convergenceTime / 1e6, deliveredPackets, spfRuns, routeChanges, converged);
+        }
+
+        private String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"event\":\"%s\",\"router\":%s,\"rounds\":%s,\"convergence_ms\":%.3f,\"lsps_delivered\":%s,"
+                            + "\"spf_runs\":%s,\"route_changes\":%s,\"converged\":%s}",
+                    event, router, rounds, convergenceTime / 1e6, deliveredPackets, spfRuns, routeChanges, converged);
+        }
+    }
+}
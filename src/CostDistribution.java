@@ -0,0 +1,39 @@
+import java.util.Random;
+
+public enum CostDistribution {
+
+    CONSTANT {
+        @Override
+        public long sample(Random random, long minCost, long maxCost) {
+            return minCost;
+        }
+    },
+
+    UNIFORM {
+        @Override
+        public long sample(Random random, long minCost, long maxCost) {
+            return minCost + (long) (random.nextDouble() * (maxCost - minCost + 1));
+        }
+    },
+
+    EXPONENTIAL {
+        @Override
+        public long sample(Random random, long minCost, long maxCost) {
+            double mean = Math.max(1, (maxCost - minCost) / 4.0);
+            long cost = minCost + (long) (-mean * Math.log(1 - random.nextDouble()));
+            return Math.min(cost, maxCost);
+        }
+    };
+
+    public abstract long sample(Random random, long minCost, long maxCost);
+
+    public static CostDistribution fromString(String distribution) {
+        for (CostDistribution value : values()) {
+            if (value.name().equalsIgnoreCase(distribution)) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid cost distribution : %s", distribution));
+    }
+}
@@ -0,0 +1,26 @@
+public class Delivery {
+
+    private final long sender;
+
+    private final LinkStatePacket packet;
+
+    private final int timeToLive;
+
+    public Delivery(long senderId, LinkStatePacket lsp, int aliveTime) {
+        sender = senderId;
+        packet = lsp;
+        timeToLive = aliveTime;
+    }
+
+    public long getSender() {
+        return sender;
+    }
+
+    public LinkStatePacket getPacket() {
+        return packet;
+    }
+
+    public int getTimeToLive() {
+        return timeToLive;
+    }
+}
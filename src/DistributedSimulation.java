@@ -0,0 +1,468 @@
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class DistributedSimulation {
+
+    private static final Logger LOG = Logger.getLogger(DistributedSimulation.class.getCanonicalName());
+
+    private static final String SHARDS = "--shards=";
+
+    private static final long STARTUP_TIMEOUT = 30_000;
+
+    private static final long SHUTDOWN_TIMEOUT = 5_000;
+
+    private static final String SWITCH = "Router %s switched %s.";
+
+    private static final String INVALID_SWITCH = "Router %s already %s.";
+
+    private static final String INVALID_ID = "Invalid Router ID : %s.";
+
+    private final List<String> networkArguments;
+
+    private int shardCount;
+
+    private Configuration configuration;
+
+    private Map<Long, Router> networkMap;
+
+    private List<Long> routerIds;
+
+    private final Map<Long, Integer> owners;
+
+    private final Set<Long> inactive;
+
+    private Process[] processes;
+
+    private SocketChannel[] shards;
+
+    public DistributedSimulation() {
+        networkArguments = new ArrayList<>();
+        shardCount = 2;
+        owners = new HashMap<>();
+        inactive = new HashSet<>();
+    }
+
+    public static void main(String[] args) {
+        DistributedSimulation simulation;
+        try {
+            simulation = fromArguments(args);
+        } catch (IllegalArgumentException e) {
+            ReadWrite.printError(String.format("Invalid configuration : %s", e.getMessage()));
+            System.exit(1);
+            return;
+        }
+        ReadWrite.setJsonReport(simulation.configuration.isJsonReport());
+
+        try {
+            simulation.start();
+            simulation.sendPacket();
+
+            String input;
+            try (Scanner sc = new Scanner(System.in)) {
+                while (!"Q".equalsIgnoreCase(input = ReadWrite.getUserInput(sc))) {
+                    simulation.execute(input.split("\\s+"));
+                }
+            }
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Error in distributed simulation.", e);
+            ReadWrite.printError(String.format("Distributed simulation failed : %s", e.getMessage()));
+            simulation.stop();
+            System.exit(1);
+        }
+
+        simulation.stop();
+        ReadWrite.print("Network disconneted.");
+    }
+
+    public static DistributedSimulation fromArguments(String[] args) {
+        DistributedSimulation simulation = new DistributedSimulation();
+
+        for (String arg : args) {
+            if (arg.startsWith(SHARDS)) {
+                long shards;
+                try {
+                    shards = Long.parseLong(arg.substring(SHARDS.length()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format("Invalid argument : %s", arg), e);
+                }
+                if (shards < 1 || shards > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+                }
+                simulation.shardCount = (int) shards;
+            } else {
+                simulation.networkArguments.add(arg);
+            }
+        }
+
+        simulation.configuration = Configuration.fromArguments(simulation.networkArguments.toArray(new String[0]));
+        if (simulation.configuration.isEventSimulation() || simulation.configuration.getCheckpointPath() != null
+                || simulation.configuration.isScripted() || simulation.configuration.getMetricsPort() > 0) {
+            throw new IllegalArgumentException(
+                    "Distributed runs support tick simulation only, without checkpoints, scripts or metrics endpoint.");
+        }
+
+        return simulation;
+    }
+
+    public void start() throws IOException {
+        networkMap = ReadWrite.readNetworkInitFile(configuration.getTopologyPath());
+        routerIds = new ArrayList<>(new TreeSet<>(networkMap.keySet()));
+        int[] sizes = partition();
+
+        long start = System.nanoTime();
+        int[] ports = launchShards();
+        for (int shard = 0; shard < shardCount; shard++) {
+            ShardProtocol.write(shards[shard], encodeTopology(shard, ports));
+        }
+        for (SocketChannel shard : shards) {
+            ShardProtocol.expect(shard, ShardProtocol.READY);
+        }
+
+        long areas = networkMap.values().stream().mapToInt(Router::getArea).distinct().count();
+        ReadWrite.print(areas > 1
+                ? String.format("Network created with %s routers in %s areas.", networkMap.size(), areas)
+                : String.format("Network created with %s routers.", networkMap.size()));
+        ReadWrite.print(String.format("Shards started : %s processes with %s to %s routers each in %s ms.",
+                shardCount, sizes[0], sizes[1], (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private int[] partition() {
+        Map<Long, Integer> positions = new HashMap<>();
+        int[] parent = new int[routerIds.size()];
+        for (int position = 0; position < parent.length; position++) {
+            positions.put(routerIds.get(position), position);
+            parent[position] = position;
+        }
+
+        for (Router router : networkMap.values()) {
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                if (info.getRouter().getArea() != router.getArea()) {
+                    int first = find(parent, positions.get(router.getId()));
+                    int second = find(parent, positions.get(info.getRouter().getId()));
+                    parent[Math.max(first, second)] = Math.min(first, second);
+                }
+            }
+        }
+
+        int[] counts = new int[shardCount];
+        for (int position = 0; position < parent.length; position++) {
+            int shard = (int) ((long) find(parent, position) * shardCount / parent.length);
+            owners.put(routerIds.get(position), shard);
+            counts[shard]++;
+        }
+
+        int smallest = Integer.MAX_VALUE;
+        int largest = 0;
+        for (int count : counts) {
+            smallest = Math.min(smallest, count);
+            largest = Math.max(largest, count);
+        }
+
+        return new int[] { smallest, largest };
+    }
+
+    private static int find(int[] parent, int position) {
+        int root = position;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+
+        for (int node = position; parent[node] != root;) {
+            int next = parent[node];
+            parent[node] = root;
+            node = next;
+        }
+
+        return root;
+    }
+
+    private int[] launchShards() throws IOException {
+        processes = new Process[shardCount];
+        shards = new SocketChannel[shardCount];
+        int[] ports = new int[shardCount];
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(); Selector selector = Selector.open()) {
+            server.bind(ShardProtocol.loopback(0));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+
+            int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+            for (int shard = 0; shard < shardCount; shard++) {
+                processes[shard] = new ProcessBuilder(shardCommand(port, shard)).redirectOutput(Redirect.DISCARD)
+                        .redirectError(Redirect.INHERIT).start();
+            }
+
+            long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+            int registered = 0;
+            while (registered < shardCount) {
+                for (int shard = 0; shard < shardCount; shard++) {
+                    if (!processes[shard].isAlive()) {
+                        throw new IOException(String.format("Shard %s exited with status %s", shard,
+                                processes[shard].exitValue()));
+                    }
+                }
+
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IOException(String.format("Only %s of %s shards registered within %s ms", registered,
+                            shardCount, STARTUP_TIMEOUT));
+                }
+
+                selector.select(Math.min(remaining, 100));
+                selector.selectedKeys().clear();
+
+                SocketChannel channel;
+                while ((channel = server.accept()) != null) {
+                    channel.configureBlocking(true);
+                    ByteBuffer frame = ShardProtocol.expect(channel, ShardProtocol.REGISTER);
+                    int shard = frame.getInt();
+                    ports[shard] = frame.getInt();
+                    shards[shard] = channel;
+                    registered++;
+                }
+            }
+        }
+
+        return ports;
+    }
+
+    private List<String> shardCommand(int port, int shard) {
+        List<String> command = new ArrayList<>();
+
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SimulationShard.class.getName());
+        command.add(String.valueOf(port));
+        command.add(String.valueOf(shard));
+        command.addAll(networkArguments);
+
+        return command;
+    }
+
+    private ByteBuffer encodeTopology(int shard, int[] ports) {
+        List<byte[]> names = new ArrayList<>();
+        int length = (2 + ports.length) * Integer.BYTES + Integer.BYTES;
+        int links = 0;
+
+        for (Long id : routerIds) {
+            Router router = networkMap.get(id);
+            byte[] name = router.getNetworkName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            length += Long.BYTES + 3 * Integer.BYTES + name.length;
+            if (owners.get(id) == shard) {
+                links += router.getConnectivityGraph().size();
+            }
+        }
+        length += links * 4 * Long.BYTES;
+
+        ByteBuffer frame = ShardProtocol.message(ShardProtocol.TOPOLOGY, length).putInt(ports.length);
+        for (int port : ports) {
+            frame.putInt(port);
+        }
+
+        frame.putInt(routerIds.size());
+        for (int position = 0; position < routerIds.size(); position++) {
+            Router router = networkMap.get(routerIds.get(position));
+            frame.putLong(router.getId()).putInt(router.getArea()).putInt(owners.get(router.getId()))
+                    .putInt(names.get(position).length).put(names.get(position));
+        }
+
+        frame.putInt(links);
+        for (Long id : routerIds) {
+            if (owners.get(id) != shard) {
+                continue;
+            }
+            for (ConnectionInformation info : networkMap.get(id).getConnectivityGraph().values()) {
+                frame.putLong(id).putLong(info.getRouter().getId()).putLong(info.getInitialCost())
+                        .putLong(info.getDelay());
+            }
+        }
+
+        return frame;
+    }
+
+    public void execute(String[] commands) throws IOException {
+        switch (commands[0].toUpperCase()) {
+            case "C":
+                long rounds = commands.length > 1 ? Long.parseLong(commands[1]) : 1;
+                for (long round = 0; round < rounds; round++) {
+                    sendPacket();
+                }
+                break;
+            case "S":
+                switchRouter(Long.parseLong(commands[1]), false);
+                break;
+            case "T":
+                switchRouter(Long.parseLong(commands[1]), true);
+                break;
+            case "P":
+                if (commands.length == 1) {
+                    printRoutingTables(routerIds);
+                } else if (networkMap.containsKey(Long.parseLong(commands[1]))) {
+                    printRoutingTables(List.of(Long.parseLong(commands[1])));
+                } else {
+                    ReadWrite.printError(String.format(INVALID_ID, commands[1]));
+                }
+                break;
+            default:
+                ReadWrite.printError(String.format("Command %s is not available in distributed runs.", commands[0]));
+                break;
+        }
+    }
+
+    public void sendPacket() throws IOException {
+        long start = System.nanoTime();
+        long[] totals = new long[4];
+
+        broadcast(ShardProtocol.ROUND);
+        converge(totals);
+        broadcast(ShardProtocol.HELLO);
+        converge(totals);
+        broadcast(ShardProtocol.END_ROUND);
+
+        long[] round = new long[5];
+        for (SocketChannel shard : shards) {
+            ByteBuffer frame = ShardProtocol.expect(shard, ShardProtocol.ROUND_DONE);
+            for (int value = 0; value < round.length; value++) {
+                round[value] += frame.getLong();
+            }
+        }
+
+        if (configuration.getOriginationMode() != OriginationMode.PERIODIC) {
+            ReadWrite.print(String.format("LSPs originated : %s full, %s delta, sequence gaps detected : %s.",
+                    round[0], round[1], round[2]));
+        }
+        ReadWrite.print("Link State Packets sent over the network.");
+        if (configuration.isSpfThrottling()) {
+            ReadWrite.print(String.format("SPF runs : %s, runs saved by scheduling : %s.", round[3], round[4]));
+        }
+        ReadWrite.print(String.format("Shard exchange : %s steps, %s messages in %s bytes across %s shards in %s ms.",
+                totals[0], totals[2], totals[3], shardCount, (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private void converge(long[] totals) throws IOException {
+        long received = collect(totals);
+
+        while (received > 0) {
+            broadcast(ShardProtocol.STEP);
+            received = collect(totals);
+        }
+    }
+
+    private long collect(long[] totals) throws IOException {
+        long received = 0;
+
+        for (SocketChannel shard : shards) {
+            ByteBuffer frame = ShardProtocol.expect(shard, ShardProtocol.STEP_DONE);
+            received += frame.getLong();
+            totals[2] += frame.getLong();
+            totals[3] += frame.getLong();
+        }
+        totals[0]++;
+
+        return received;
+    }
+
+    private void broadcast(byte type) throws IOException {
+        for (SocketChannel shard : shards) {
+            ShardProtocol.write(shard, ShardProtocol.message(type, 0));
+        }
+    }
+
+    private void switchRouter(long routerId, boolean on) throws IOException {
+        String state = on ? "on" : "off";
+
+        if (!networkMap.containsKey(routerId)) {
+            ReadWrite.printError(String.format(INVALID_ID, routerId));
+            return;
+        }
+        if (inactive.contains(routerId) != on) {
+            ReadWrite.print(String.format(INVALID_SWITCH, routerId, state));
+            return;
+        }
+
+        if (on) {
+            inactive.remove(routerId);
+        } else {
+            inactive.add(routerId);
+        }
+        for (SocketChannel shard : shards) {
+            ShardProtocol.write(shard, ShardProtocol.message(ShardProtocol.SWITCH, Long.BYTES + 1).putLong(routerId)
+                    .put((byte) (on ? 1 : 0)));
+        }
+        ReadWrite.print(String.format(SWITCH, routerId, state));
+    }
+
+    private void printRoutingTables(List<Long> ids) throws IOException {
+        int first = 0;
+
+        while (first < ids.size()) {
+            int shard = owners.get(ids.get(first));
+            int last = first;
+            while (last < ids.size() && owners.get(ids.get(last)) == shard) {
+                last++;
+            }
+
+            ByteBuffer request = ShardProtocol.message(ShardProtocol.PRINT, Integer.BYTES + (last - first) * Long.BYTES)
+                    .putInt(last - first);
+            for (Long id : ids.subList(first, last)) {
+                request.putLong(id);
+            }
+            ShardProtocol.write(shards[shard], request);
+
+            ByteBuffer output = ShardProtocol.expect(shards[shard], ShardProtocol.OUTPUT);
+            ReadWrite.printRaw(StandardCharsets.UTF_8.decode(output).toString());
+            first = last;
+        }
+    }
+
+    public void stop() {
+        if (shards != null) {
+            for (SocketChannel shard : shards) {
+                try {
+                    if (shard != null) {
+                        ShardProtocol.write(shard, ShardProtocol.message(ShardProtocol.SHUTDOWN, 0));
+                        shard.close();
+                    }
+                } catch (IOException e) {
+                    LOG.log(Level.FINE, "Shard already disconnected.", e);
+                }
+            }
+        }
+
+        if (processes != null) {
+            for (Process process : processes) {
+                try {
+                    if (process != null && !process.waitFor(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
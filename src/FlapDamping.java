@@ -0,0 +1,75 @@
+public class FlapDamping {
+
+    public static final long FLAP_PENALTY = 1000;
+
+    public static final FlapDamping DISABLED = new FlapDamping(0, Long.MAX_VALUE, 0, 0);
+
+    private final long halfLife;
+
+    private final long suppressThreshold;
+
+    private final long reuseThreshold;
+
+    private final double maxPenalty;
+
+    private double penalty;
+
+    private long updatedAt;
+
+    private boolean suppressed;
+
+    private long flaps;
+
+    public FlapDamping(long halfLifeRounds, long suppress, long reuse, long maxSuppressRounds) {
+        halfLife = Math.max(halfLifeRounds, 1);
+        suppressThreshold = suppress;
+        reuseThreshold = Math.min(reuse, suppress);
+        maxPenalty = Math.max(reuseThreshold * Math.pow(2, (double) maxSuppressRounds / halfLife), suppress);
+    }
+
+    public boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    public synchronized boolean advance(long now) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        if (now > updatedAt) {
+            penalty *= Math.pow(0.5, (double) (now - updatedAt) / halfLife);
+            updatedAt = now;
+        }
+        if (suppressed && penalty < reuseThreshold) {
+            suppressed = false;
+        }
+
+        return suppressed;
+    }
+
+    public synchronized boolean flap() {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        flaps++;
+        penalty = Math.min(penalty + FLAP_PENALTY, maxPenalty);
+        if (penalty >= suppressThreshold) {
+            suppressed = true;
+        }
+
+        return suppressed;
+    }
+
+    public synchronized boolean isSuppressed() {
+        return suppressed;
+    }
+
+    public synchronized long getPenalty() {
+        return Math.round(penalty);
+    }
+
+    public synchronized long getFlaps() {
+        return flaps;
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+public class FloodQueue {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] packets;
+
+    private int[] senders;
+
+    private int[] receivers;
+
+    private int[] timeToLives;
+
+    private int head;
+
+    private int size;
+
+    private int packet;
+
+    private int sender;
+
+    private int receiver;
+
+    private int timeToLive;
+
+    public FloodQueue() {
+        packets = new int[INITIAL_CAPACITY];
+        senders = new int[INITIAL_CAPACITY];
+        receivers = new int[INITIAL_CAPACITY];
+        timeToLives = new int[INITIAL_CAPACITY];
+    }
+
+    public void add(int packetIndex, int from, int to, int aliveTime) {
+        if (size == packets.length) {
+            grow();
+        }
+
+        int tail = (head + size++) & (packets.length - 1);
+        packets[tail] = packetIndex;
+        senders[tail] = from;
+        receivers[tail] = to;
+        timeToLives[tail] = aliveTime;
+    }
+
+    public void poll() {
+        packet = packets[head];
+        sender = senders[head];
+        receiver = receivers[head];
+        timeToLive = timeToLives[head];
+        head = (head + 1) & (packets.length - 1);
+        size--;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPacket() {
+        return packet;
+    }
+
+    public int getSender() {
+        return sender;
+    }
+
+    public int getReceiver() {
+        return receiver;
+    }
+
+    public int getTimeToLive() {
+        return timeToLive;
+    }
+
+    private void grow() {
+        packets = unwrap(packets);
+        senders = unwrap(senders);
+        receivers = unwrap(receivers);
+        timeToLives = unwrap(timeToLives);
+        head = 0;
+    }
+
+    private int[] unwrap(int[] ring) {
+        int[] grown = Arrays.copyOf(ring, ring.length * 2);
+        System.arraycopy(ring, 0, grown, ring.length - head, head);
+        System.arraycopy(ring, head, grown, 0, ring.length - head);
+        return grown;
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+public class FloodingTopology {
+
+    private static final int UNVISITED = -2;
+
+    private static final int ROOT = -1;
+
+    private final RouterIndex index;
+
+    private final int[][] adjacency;
+
+    private final int[] order;
+
+    private final int[][] links;
+
+    private final int[] parents;
+
+    private final int[] members;
+
+    private final int[] distances;
+
+    private final int[] frontier;
+
+    private final LongAdder copies;
+
+    private final LongAdder fullCopies;
+
+    private long version;
+
+    private int treeLinks;
+
+    private int totalLinks;
+
+    private int fullComponents;
+
+    private long rebuilds;
+
+    public FloodingTopology(RouterIndex routerIndex, int[][] networkAdjacency) {
+        index = routerIndex;
+        adjacency = networkAdjacency;
+        int size = adjacency.length;
+        order = IntStream.range(0, size).boxed().sorted((a, b) -> adjacency[b].length - adjacency[a].length)
+                .mapToInt(Integer::intValue).toArray();
+        links = new int[size][];
+        parents = new int[size];
+        members = new int[size];
+        distances = new int[size];
+        frontier = new int[size];
+        copies = new LongAdder();
+        fullCopies = new LongAdder();
+        version = -1;
+    }
+
+    public boolean isCurrent(long topologyVersion) {
+        return version == topologyVersion;
+    }
+
+    public void rebuild(long topologyVersion) {
+        Arrays.fill(parents, UNVISITED);
+        treeLinks = 0;
+        totalLinks = 0;
+        fullComponents = 0;
+
+        for (int root : order) {
+            if (parents[root] == UNVISITED && index.getRouter(root).isActive()) {
+                span(root);
+            }
+        }
+
+        for (int node = 0; node < links.length; node++) {
+            if (parents[node] == UNVISITED) {
+                links[node] = adjacency[node];
+            }
+        }
+
+        version = topologyVersion;
+        rebuilds++;
+    }
+
+    public int[] getLinks(int node) {
+        return links[node];
+    }
+
+    public void recordForward(int from, int except, int sent) {
+        copies.add(sent);
+        fullCopies.add(adjacency[from].length - (except >= 0 ? 1 : 0));
+    }
+
+    public long drainCopies() {
+        return copies.sumThenReset();
+    }
+
+    public long drainFullCopies() {
+        return fullCopies.sumThenReset();
+    }
+
+    public int getTreeLinks() {
+        return treeLinks;
+    }
+
+    public int getTotalLinks() {
+        return totalLinks;
+    }
+
+    public int getFullComponents() {
+        return fullComponents;
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    private void span(int root) {
+        int size = 0;
+        int componentLinks = 0;
+        parents[root] = ROOT;
+        members[size++] = root;
+
+        for (int head = 0; head < size; head++) {
+            int node = members[head];
+            for (int neighbor : adjacency[node]) {
+                if (!index.getRouter(neighbor).isActive()) {
+                    continue;
+                }
+                componentLinks++;
+                if (parents[neighbor] == UNVISITED) {
+                    parents[neighbor] = node;
+                    members[size++] = neighbor;
+                }
+            }
+        }
+
+        for (int member = 0; member < size; member++) {
+            distances[members[member]] = parents[members[member]] == ROOT ? 0 : 1;
+        }
+        for (int member = 1; member < size; member++) {
+            distances[parents[members[member]]]++;
+        }
+        for (int member = 0; member < size; member++) {
+            int node = members[member];
+            links[node] = new int[distances[node]];
+            distances[node] = 0;
+        }
+        for (int member = 1; member < size; member++) {
+            int node = members[member];
+            int parent = parents[node];
+            links[node][distances[node]++] = parent;
+            links[parent][distances[parent]++] = node;
+        }
+
+        totalLinks += componentLinks / 2;
+        if (diameter(members[size - 1], size) < LinkStatePacket.TIME_TO_LIVE) {
+            treeLinks += size - 1;
+            return;
+        }
+
+        treeLinks += componentLinks / 2;
+        fullComponents++;
+        for (int member = 0; member < size; member++) {
+            links[members[member]] = adjacency[members[member]];
+        }
+    }
+
+    private int diameter(int start, int size) {
+        for (int member = 0; member < size; member++) {
+            distances[members[member]] = -1;
+        }
+
+        int count = 0;
+        int farthest = 0;
+        distances[start] = 0;
+        frontier[count++] = start;
+        for (int head = 0; head < count; head++) {
+            int node = frontier[head];
+            farthest = distances[node];
+            for (int neighbor : links[node]) {
+                if (distances[neighbor] < 0) {
+                    distances[neighbor] = farthest + 1;
+                    frontier[count++] = neighbor;
+                }
+            }
+        }
+
+        return farthest;
+    }
+}
@@ -0,0 +1,430 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ForwardingTable {
+
+    public static final long NO_ROUTE = -1;
+
+    public static final int NO_SLOT = 0;
+
+    public static final long INVALID_PREFIX = -1;
+
+    private static final int STRIDE = 8;
+
+    private static final int FANOUT = 1 << STRIDE;
+
+    private static final int LEVELS = Integer.SIZE / STRIDE;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final VarHandle CHILDREN = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    private static final VarHandle NEXT_HOPS = MethodHandles.arrayElementVarHandle(long[][].class);
+
+    private static final VarHandle BACKUPS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private volatile Node root;
+
+    private volatile long[][] nextHops;
+
+    private volatile long[] backups;
+
+    private final int hashSeed;
+
+    private int[] prefixes;
+
+    private byte[] lengths;
+
+    private boolean[] installed;
+
+    private boolean[] failedOver;
+
+    private int[] shadowed;
+
+    private int slotCount;
+
+    private final Map<Long, Integer> routes;
+
+    public ForwardingTable(int seed) {
+        hashSeed = mix(seed);
+        nextHops = new long[1][];
+        backups = new long[] { NO_ROUTE };
+        prefixes = new int[1];
+        lengths = new byte[1];
+        installed = new boolean[1];
+        failedOver = new boolean[1];
+        shadowed = new int[1];
+        slotCount = 1;
+        routes = new HashMap<>();
+    }
+
+    public long lookup(String address) {
+        return lookup(parseAddress(address));
+    }
+
+    public long lookup(int address) {
+        long[] hops = route(address);
+
+        return hops == null ? NO_ROUTE : hops[0];
+    }
+
+    public long lookup(int address, int flowHash) {
+        long[] hops = route(address);
+
+        if (hops == null) {
+            return NO_ROUTE;
+        }
+
+        if (hops.length == 1) {
+            return hops[0];
+        }
+
+        return hops[(int) ((mix(flowHash ^ hashSeed) & 0xFFFFFFFFL) * hops.length >>> Integer.SIZE)];
+    }
+
+    public long[] lookupAll(int address) {
+        long[] hops = route(address);
+
+        return hops == null ? new long[0] : hops.clone();
+    }
+
+    public long lookupBackup(int address) {
+        int slot = slotOf(address);
+
+        return slot == NO_SLOT ? NO_ROUTE : (long) BACKUPS.getAcquire(backups, slot);
+    }
+
+    private long[] route(int address) {
+        int slot = slotOf(address);
+
+        return slot == NO_SLOT ? null : (long[]) NEXT_HOPS.getAcquire(nextHops, slot);
+    }
+
+    private int slotOf(int address) {
+        Node node = root;
+
+        if (node == null) {
+            return NO_SLOT;
+        }
+
+        int slot;
+        int shift = Integer.SIZE - STRIDE;
+        while (true) {
+            int index = address >>> shift & FANOUT - 1;
+            Node child = node.children == null ? null : (Node) CHILDREN.getAcquire(node.children, index);
+            if (child == null) {
+                slot = (int) SLOTS.getAcquire(node.slots, index);
+                break;
+            }
+            node = child;
+            shift -= STRIDE;
+        }
+
+        return slot;
+    }
+
+    public synchronized int register(String networkName) {
+        long prefix = parsePrefix(networkName);
+
+        return prefix == INVALID_PREFIX ? NO_SLOT : register(prefix);
+    }
+
+    public synchronized int register(long prefix) {
+        if (slotCount == prefixes.length) {
+            int capacity = slotCount * 2;
+            prefixes = Arrays.copyOf(prefixes, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            installed = Arrays.copyOf(installed, capacity);
+            failedOver = Arrays.copyOf(failedOver, capacity);
+            shadowed = Arrays.copyOf(shadowed, capacity);
+            nextHops = Arrays.copyOf(nextHops, capacity);
+            long[] grown = Arrays.copyOf(backups, capacity);
+            Arrays.fill(grown, slotCount, capacity, NO_ROUTE);
+            backups = grown;
+        }
+
+        int slot = slotCount++;
+        prefixes[slot] = (int) (prefix >>> Byte.SIZE);
+        lengths[slot] = (byte) prefix;
+
+        return slot;
+    }
+
+    public void update(int slot, long nextHop) {
+        update(slot, new long[] { nextHop }, 0, nextHop == NO_ROUTE ? 0 : 1);
+    }
+
+    public synchronized void update(int slot, long[] hops, int offset, int count) {
+        if (slot == NO_SLOT) {
+            return;
+        }
+
+        NEXT_HOPS.setRelease(nextHops, slot, count == 0 ? null : Arrays.copyOfRange(hops, offset, offset + count));
+        failedOver[slot] = false;
+
+        if (count == 0 && installed[slot]) {
+            withdraw(slot);
+        } else if (count > 0 && !installed[slot]) {
+            install(slot);
+        }
+    }
+
+    public synchronized void setBackup(int slot, long backup) {
+        if (slot != NO_SLOT) {
+            BACKUPS.setRelease(backups, slot, backup);
+        }
+    }
+
+    public synchronized int failover(long neighbor) {
+        int switched = 0;
+
+        for (int slot = 1; slot < slotCount; slot++) {
+            long[] hops = nextHops[slot];
+            if (hops == null || !contains(hops, neighbor)) {
+                continue;
+            }
+
+            long[] remaining = Arrays.stream(hops).filter(hop -> hop != neighbor).toArray();
+            if (remaining.length == 0) {
+                if (backups[slot] == NO_ROUTE || backups[slot] == neighbor) {
+                    continue;
+                }
+                remaining = new long[] { backups[slot] };
+            }
+
+            NEXT_HOPS.setRelease(nextHops, slot, remaining);
+            failedOver[slot] = true;
+            switched++;
+        }
+
+        return switched;
+    }
+
+    public synchronized boolean isFailedOver(int slot) {
+        return failedOver[slot];
+    }
+
+    private static boolean contains(long[] hops, long hop) {
+        for (long nextHop : hops) {
+            if (nextHop == hop) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public static int flowHash(int source, int destination, int flow) {
+        return mix(mix(source * GOLDEN_RATIO + destination) * GOLDEN_RATIO + flow);
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    private void install(int slot) {
+        installed[slot] = true;
+        Integer previous = routes.put(key(prefixes[slot], lengths[slot]), slot);
+        shadowed[slot] = previous == null ? NO_SLOT : previous;
+
+        if (root == null) {
+            root = new Node(false);
+        }
+
+        assign(root, 0, prefixes[slot], lengths[slot], slot, lengths[slot], false);
+    }
+
+    private void withdraw(int slot) {
+        installed[slot] = false;
+        int prefix = prefixes[slot];
+        int length = lengths[slot];
+
+        Long key = key(prefix, length);
+        int head = routes.get(key);
+
+        if (head != slot) {
+            while (shadowed[head] != slot) {
+                head = shadowed[head];
+            }
+            shadowed[head] = shadowed[slot];
+            return;
+        }
+
+        if (shadowed[slot] != NO_SLOT) {
+            routes.put(key, shadowed[slot]);
+            assign(root, 0, prefix, length, shadowed[slot], length, true);
+            return;
+        }
+
+        routes.remove(key);
+        int replacement = NO_SLOT;
+        int replacementLength = 0;
+        for (int shorter = length - 1; shorter >= 0 && replacement == NO_SLOT; shorter--) {
+            Integer covering = routes.get(key(mask(prefix, shorter), shorter));
+            if (covering != null) {
+                replacement = covering;
+                replacementLength = shorter;
+            }
+        }
+
+        assign(root, 0, prefix, length, replacement, replacementLength, true);
+    }
+
+    private void assign(Node node, int level, int prefix, int length, int slot, int depth, boolean withdraw) {
+        int levelEnd = (level + 1) * STRIDE;
+        int index = prefix >>> Integer.SIZE - levelEnd & FANOUT - 1;
+
+        if (length > levelEnd) {
+            Node child = node.children[index];
+            if (child == null) {
+                if (withdraw) {
+                    return;
+                }
+                child = new Node(level + 2 == LEVELS);
+                Arrays.fill(child.slots, node.slots[index]);
+                Arrays.fill(child.depths, node.depths[index]);
+                CHILDREN.setRelease(node.children, index, child);
+            }
+            assign(child, level + 1, prefix, length, slot, depth, withdraw);
+            return;
+        }
+
+        int span = 1 << levelEnd - length;
+        for (int position = index & -span; position < (index & -span) + span; position++) {
+            expand(node, position, slot, depth, length, withdraw);
+        }
+    }
+
+    private static void expand(Node node, int position, int slot, int depth, int length, boolean withdraw) {
+        if (withdraw ? node.depths[position] != length : node.depths[position] > length) {
+            return;
+        }
+
+        node.depths[position] = (byte) depth;
+        SLOTS.setRelease(node.slots, position, slot);
+
+        Node child = node.children == null ? null : node.children[position];
+        if (child != null) {
+            for (int index = 0; index < FANOUT; index++) {
+                expand(child, index, slot, depth, length, withdraw);
+            }
+        }
+    }
+
+    public static int parseAddress(String address) {
+        long prefix = parsePrefix(address);
+
+        if (prefix == INVALID_PREFIX || (byte) prefix != Integer.SIZE) {
+            throw new IllegalArgumentException(String.format("Invalid address : %s", address));
+        }
+
+        return (int) (prefix >>> Byte.SIZE);
+    }
+
+    public static int addressOf(String networkName) {
+        long prefix = parsePrefix(networkName);
+
+        if (prefix == INVALID_PREFIX) {
+            throw new IllegalArgumentException(String.format("Invalid network name : %s", networkName));
+        }
+
+        return (int) (prefix >>> Byte.SIZE);
+    }
+
+    public static String formatPrefix(long prefix) {
+        int address = (int) (prefix >>> Byte.SIZE);
+
+        return String.format("%d.%d.%d.%d/%d", address >>> 24, address >>> 16 & 0xFF, address >>> 8 & 0xFF,
+                address & 0xFF, prefix & 0xFF);
+    }
+
+    public static boolean covers(long prefix, int address) {
+        return mask(address, (int) (prefix & 0xFF)) == (int) (prefix >>> Byte.SIZE);
+    }
+
+    public static Map<Long, Long> summarize(Map<Long, Long> routes) {
+        Map<Long, Long> summary = new HashMap<>(routes);
+
+        for (int length = Integer.SIZE; length > 0; length--) {
+            for (Long prefix : summary.keySet().toArray(new Long[0])) {
+                if ((prefix & 0xFF) != length || !summary.containsKey(prefix)) {
+                    continue;
+                }
+
+                int address = (int) (prefix >>> Byte.SIZE);
+                long sibling = key(address ^ 1 << Integer.SIZE - length, length);
+                if (summary.containsKey(sibling)) {
+                    long cost = Math.max(summary.remove(prefix), summary.remove(sibling));
+                    summary.merge(key(mask(address, length - 1), length - 1), cost, Math::max);
+                }
+            }
+        }
+
+        return summary;
+    }
+
+    public static long parsePrefix(String name) {
+        int slash = name.indexOf('/');
+        String[] octets = (slash < 0 ? name : name.substring(0, slash)).split("\\.", -1);
+
+        if (octets.length > LEVELS) {
+            return INVALID_PREFIX;
+        }
+
+        try {
+            int address = 0;
+            for (int octet = 0; octet < LEVELS; octet++) {
+                int value = octet < octets.length ? Integer.parseInt(octets[octet]) : 0;
+                if (value < 0 || value >= FANOUT) {
+                    return INVALID_PREFIX;
+                }
+                address = address << STRIDE | value;
+            }
+
+            int length = slash < 0 ? octets.length * STRIDE : Integer.parseInt(name.substring(slash + 1));
+            if (length < 0 || length > Integer.SIZE) {
+                return INVALID_PREFIX;
+            }
+
+            return (mask(address, length) & 0xFFFFFFFFL) << Byte.SIZE | length;
+        } catch (NumberFormatException e) {
+            return INVALID_PREFIX;
+        }
+    }
+
+    private static int mix(int value) {
+        int hash = value ^ value >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ hash >>> 16;
+    }
+
+    private static int mask(int prefix, int length) {
+        return length == 0 ? 0 : prefix & -1 << Integer.SIZE - length;
+    }
+
+    private static long key(int prefix, int length) {
+        return (prefix & 0xFFFFFFFFL) << Byte.SIZE | length;
+    }
+
+    private static final class Node {
+
+        private final int[] slots;
+
+        private final byte[] depths;
+
+        private final Node[] children;
+
+        private Node(boolean last) {
+            slots = new int[FANOUT];
+            depths = new byte[FANOUT];
+            children = last ? null : new Node[FANOUT];
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+public class IndexedHeap {
+
+    private static final int ARITY = 4;
+
+    private static final int ABSENT = -1;
+
+    private int[] heap;
+
+    private int[] positions;
+
+    private int size;
+
+    private long[] primaryKeys;
+
+    private long[] secondaryKeys;
+
+    public IndexedHeap() {
+        heap = new int[0];
+        positions = new int[0];
+    }
+
+    public void reset(long[] primary, long[] secondary, int capacity) {
+        primaryKeys = primary;
+        secondaryKeys = secondary;
+
+        if (positions.length < capacity) {
+            heap = new int[capacity];
+            positions = new int[capacity];
+            Arrays.fill(positions, ABSENT);
+        } else {
+            clear();
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int node) {
+        return positions[node] != ABSENT;
+    }
+
+    public void insertOrDecrease(int node) {
+        int position = positions[node];
+
+        if (position == ABSENT) {
+            position = size++;
+            heap[position] = node;
+            positions[node] = position;
+        }
+
+        siftUp(position);
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public int poll() {
+        int top = heap[0];
+        positions[top] = ABSENT;
+
+        if (--size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+
+        return top;
+    }
+
+    private void siftUp(int position) {
+        int node = heap[position];
+
+        while (position > 0) {
+            int parent = (position - 1) / ARITY;
+            if (!less(node, heap[parent])) {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+
+        heap[position] = node;
+        positions[node] = position;
+    }
+
+    private void siftDown(int position) {
+        int node = heap[position];
+
+        while (true) {
+            int firstChild = position * ARITY + 1;
+            if (firstChild >= size) {
+                break;
+            }
+
+            int smallest = firstChild;
+            int lastChild = Math.min(firstChild + ARITY, size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (less(heap[child], heap[smallest])) {
+                    smallest = child;
+                }
+            }
+
+            if (!less(heap[smallest], node)) {
+                break;
+            }
+            heap[position] = heap[smallest];
+            positions[heap[position]] = position;
+            position = smallest;
+        }
+
+        heap[position] = node;
+        positions[node] = position;
+    }
+
+    private boolean less(int a, int b) {
+        if (primaryKeys[a] != primaryKeys[b]) {
+            return primaryKeys[a] < primaryKeys[b];
+        }
+        if (secondaryKeys[a] != secondaryKeys[b]) {
+            return secondaryKeys[a] < secondaryKeys[b];
+        }
+        return a < b;
+    }
+}
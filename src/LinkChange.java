@@ -0,0 +1,51 @@
+public class LinkChange {
+
+    public static final long NO_LINK = Long.MAX_VALUE;
+
+    private final long origin;
+
+    private final long neighbor;
+
+    private final long oldCost;
+
+    private final long newCost;
+
+    public LinkChange(long originRouter, long neighborRouter, long previousCost, long currentCost) {
+        origin = originRouter;
+        neighbor = neighborRouter;
+        oldCost = previousCost;
+        newCost = currentCost;
+    }
+
+    public long getOrigin() {
+        return origin;
+    }
+
+    public long getNeighbor() {
+        return neighbor;
+    }
+
+    public long getOldCost() {
+        return oldCost;
+    }
+
+    public long getNewCost() {
+        return newCost;
+    }
+
+    public boolean isIncrease() {
+        return newCost > oldCost;
+    }
+
+    public boolean isDecrease() {
+        return newCost < oldCost;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        return builder.append("LinkChange [origin=").append(origin).append(", neighbor=").append(neighbor)
+                .append(", oldCost=").append(oldCost).append(", newCost=").append(newCost).append("]")
+                .append(System.lineSeparator()).toString();
+    }
+}
@@ -0,0 +1,234 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+public class LinkStateDatabase {
+
+    private final ConcurrentMap<Long, Map<Long, Long>> adjacencies;
+
+    private final RouterIndex index;
+
+    private final AtomicLong structureVersion;
+
+    private final AtomicLong linkVersion;
+
+    private final ConcurrentMap<Long, Long> installTimes;
+
+    private final ConcurrentMap<Long, Map<Long, Long>> prefixes;
+
+    public LinkStateDatabase(Router owner) {
+        adjacencies = new ConcurrentHashMap<>();
+        index = new RouterIndex();
+        index.intern(owner);
+        structureVersion = new AtomicLong(0);
+        linkVersion = new AtomicLong(0);
+        installTimes = new ConcurrentHashMap<>();
+        prefixes = new ConcurrentHashMap<>();
+    }
+
+    public List<LinkChange> update(long origin, Collection<ConnectionInformation> connectivity, long now) {
+        installTimes.put(origin, now);
+
+        if (isUnchanged(adjacencies.get(origin), connectivity)) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Long> links = new HashMap<>();
+
+        for (ConnectionInformation info : connectivity) {
+            Router neighbor = info.getRouter();
+            index.intern(neighbor);
+            links.put(neighbor.getId(), info.getCost());
+        }
+
+        return update(origin, links);
+    }
+
+    private boolean isUnchanged(Map<Long, Long> links, LinkStatePacket lsp) {
+        if (links == null || links.size() != lsp.getLinkCount()) {
+            return false;
+        }
+
+        for (int link = 0; link < lsp.getLinkCount(); link++) {
+            Long cost = links.get(lsp.getNeighbor(link));
+            if (cost == null || cost != lsp.getCost(link)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isUnchanged(Map<Long, Long> links, Collection<ConnectionInformation> connectivity) {
+        if (links == null || links.size() != connectivity.size()) {
+            return false;
+        }
+
+        for (ConnectionInformation info : connectivity) {
+            Long cost = links.get(info.getRouter().getId());
+            if (cost == null || cost != info.getCost()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public List<LinkChange> update(LinkStatePacket lsp, LongFunction<Router> directory, long now) {
+        long origin = lsp.getOriginationRouter();
+        installTimes.put(origin, now - lsp.getAge());
+
+        if (!lsp.isDelta()) {
+            Map<Long, Long> advertised = new HashMap<>();
+            for (int prefix = 0; prefix < lsp.getPrefixCount(); prefix++) {
+                advertised.merge(lsp.getPrefix(prefix), lsp.getPrefixCost(prefix), Math::min);
+            }
+            setPrefixes(origin, advertised);
+        }
+
+        if (!lsp.isDelta() && isUnchanged(adjacencies.get(origin), lsp)) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Long> links = lsp.isDelta() ? new HashMap<>(getLinks(origin)) : new HashMap<>();
+
+        for (int link = 0; link < lsp.getLinkCount(); link++) {
+            if (lsp.getCost(link) == LinkChange.NO_LINK) {
+                links.remove(lsp.getNeighbor(link));
+                continue;
+            }
+
+            Router neighbor = directory.apply(lsp.getNeighbor(link));
+            if (neighbor != null) {
+                index.intern(neighbor);
+                links.put(neighbor.getId(), lsp.getCost(link));
+            }
+        }
+
+        return update(origin, links);
+    }
+
+    public void restore(long origin, Map<Long, Long> links, List<Router> neighbors, long now) {
+        for (Router neighbor : neighbors) {
+            index.intern(neighbor);
+        }
+
+        installTimes.put(origin, now);
+        adjacencies.put(origin, links);
+        structureVersion.incrementAndGet();
+        linkVersion.incrementAndGet();
+    }
+
+    public List<LinkChange> expire(long owner, long installedBefore) {
+        List<LinkChange> changes = new ArrayList<>();
+
+        for (Entry<Long, Long> install : installTimes.entrySet()) {
+            if (install.getKey() != owner && install.getValue() <= installedBefore) {
+                installTimes.remove(install.getKey());
+                prefixes.remove(install.getKey());
+                changes.addAll(update(install.getKey(), Collections.emptyMap()));
+                adjacencies.remove(install.getKey());
+            }
+        }
+
+        return changes;
+    }
+
+    public int getAge(long origin, long now) {
+        Long installed = installTimes.get(origin);
+
+        return installed == null ? 0 : (int) Math.min(Integer.MAX_VALUE, now - installed);
+    }
+
+    public long getOldestInstall(long owner) {
+        long oldest = Long.MAX_VALUE;
+
+        for (Entry<Long, Long> install : installTimes.entrySet()) {
+            if (install.getKey() != owner) {
+                oldest = Math.min(oldest, install.getValue());
+            }
+        }
+
+        return oldest;
+    }
+
+    private List<LinkChange> update(long origin, Map<Long, Long> links) {
+        Map<Long, Long> previous = adjacencies.put(origin, links);
+        List<LinkChange> changes = new ArrayList<>();
+
+        if (previous == null) {
+            previous = Collections.emptyMap();
+        }
+
+        for (Entry<Long, Long> link : links.entrySet()) {
+            Long oldCost = previous.get(link.getKey());
+            if (oldCost == null) {
+                changes.add(new LinkChange(origin, link.getKey(), LinkChange.NO_LINK, link.getValue()));
+            } else if (oldCost.longValue() != link.getValue().longValue()) {
+                changes.add(new LinkChange(origin, link.getKey(), oldCost, link.getValue()));
+            }
+        }
+
+        for (Entry<Long, Long> link : previous.entrySet()) {
+            if (!links.containsKey(link.getKey())) {
+                changes.add(new LinkChange(origin, link.getKey(), link.getValue(), LinkChange.NO_LINK));
+            }
+        }
+
+        if (links.size() != previous.size() || !links.keySet().equals(previous.keySet())) {
+            structureVersion.incrementAndGet();
+        }
+        if (!changes.isEmpty()) {
+            linkVersion.incrementAndGet();
+        }
+
+        return changes;
+    }
+
+    public boolean setPrefixes(long origin, Map<Long, Long> advertised) {
+        Map<Long, Long> previous = advertised.isEmpty() ? prefixes.remove(origin) : prefixes.put(origin, advertised);
+
+        return !advertised.equals(previous == null ? Collections.emptyMap() : previous);
+    }
+
+    public Map<Long, Long> getPrefixes(long origin) {
+        return prefixes.getOrDefault(origin, Collections.emptyMap());
+    }
+
+    public Map<Long, Map<Long, Long>> getPrefixes() {
+        return prefixes;
+    }
+
+    public Set<Long> getOrigins() {
+        return adjacencies.keySet();
+    }
+
+    public Map<Long, Long> getLinks(long origin) {
+        return adjacencies.getOrDefault(origin, Collections.emptyMap());
+    }
+
+    public RouterIndex getIndex() {
+        return index;
+    }
+
+    public long getStructureVersion() {
+        return structureVersion.get();
+    }
+
+    public long getLinkVersion() {
+        return linkVersion.get();
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
@@ -1,76 +1,184 @@
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
 
-public class LinkStatePacket {
+public final class LinkStatePacket {
 
-    private final long originationRouter;
+    public static final int TIME_TO_LIVE = 10;
 
-    private final long sequence;
+    private static final int ORIGIN = 0;
 
-    private final Set<ConnectionInformation> originConnectivity;
+    private static final int SEQUENCE = 8;
 
-    private final Deque<Router> receivers;
+    private static final int AGE = 16;
 
-    private final Deque<Long> senders;
+    private static final int CHECKSUM = 20;
 
-    private int timeToLive;
+    private static final int FLAGS = 24;
 
-    public LinkStatePacket(Router originRouter, int aliveTime) {
-        originationRouter = originRouter.getId();
-        sequence = originRouter.getNextSequence();
-        timeToLive = aliveTime;
-        originConnectivity = new HashSet<>(originRouter.getConnectivityGraph().values());
-        receivers = new LinkedList<>();
-        senders = new LinkedList<>();
-        initSenderAndReceiver();
+    private static final int AREA = 28;
+
+    private static final int LINK_COUNT = 32;
+
+    private static final int PREFIX_COUNT = 36;
+
+    private static final int HEADER_SIZE = 40;
+
+    private static final int DELTA = 1;
+
+    private static final int LINK_SIZE = 16;
+
+    private final ByteBuffer buffer;
+
+    public LinkStatePacket(Router originRouter) {
+        Collection<ConnectionInformation> connectivity = originRouter.getConnectivityGraph().values();
+        Map<Long, Long> prefixes = originRouter.getAdvertisedPrefixes();
+        ByteBuffer encoded = allocate(originRouter.getId(), originRouter.getArea(), originRouter.getNextSequence(), 0,
+                0, connectivity.size(), prefixes.size());
+
+        int offset = HEADER_SIZE;
+        for (ConnectionInformation info : connectivity) {
+            encoded.putLong(offset, info.getRouter().getId());
+            encoded.putLong(offset + 8, info.getCost());
+            offset += LINK_SIZE;
+        }
+
+        encode(encoded, offset, prefixes);
+        buffer = seal(encoded);
+    }
+
+    public LinkStatePacket(long origin, int area, long sequence, Map<Long, Long> links, Map<Long, Long> prefixes,
+            boolean delta) {
+        this(origin, area, sequence, 0, links, prefixes, delta);
+    }
+
+    public LinkStatePacket(long origin, int area, long sequence, int age, Map<Long, Long> links,
+            Map<Long, Long> prefixes, boolean delta) {
+        ByteBuffer encoded = allocate(origin, area, sequence, age, delta ? DELTA : 0, links.size(), prefixes.size());
+
+        encode(encoded, encode(encoded, HEADER_SIZE, links), prefixes);
+        buffer = seal(encoded);
+    }
+
+    public LinkStatePacket(ByteBuffer encoded) {
+        ByteBuffer copy = ByteBuffer.allocate(encoded.remaining());
+        copy.put(encoded.duplicate());
+        buffer = copy.asReadOnlyBuffer();
+    }
+
+    private static ByteBuffer allocate(long origin, int area, long sequence, int age, int flags, int linkCount,
+            int prefixCount) {
+        ByteBuffer encoded = ByteBuffer.allocate(HEADER_SIZE + (linkCount + prefixCount) * LINK_SIZE);
+
+        encoded.putLong(ORIGIN, origin);
+        encoded.putLong(SEQUENCE, sequence);
+        encoded.putInt(AGE, age);
+        encoded.putInt(FLAGS, flags);
+        encoded.putInt(AREA, area);
+        encoded.putInt(LINK_COUNT, linkCount);
+        encoded.putInt(PREFIX_COUNT, prefixCount);
+
+        return encoded;
     }
 
-    private void initSenderAndReceiver() {
-        for (ConnectionInformation connection : originConnectivity) {
-            receivers.add(connection.getRouter());
-            senders.add(getOriginationRouter());
+    private static int encode(ByteBuffer encoded, int offset, Map<Long, Long> entries) {
+        int position = offset;
+        for (Entry<Long, Long> entry : entries.entrySet()) {
+            encoded.putLong(position, entry.getKey());
+            encoded.putLong(position + 8, entry.getValue());
+            position += LINK_SIZE;
         }
+
+        return position;
     }
 
-    public Long getOriginationRouter() {
-        return originationRouter;
+    private static ByteBuffer seal(ByteBuffer encoded) {
+        encoded.putInt(CHECKSUM, computeChecksum(encoded));
+        return encoded.asReadOnlyBuffer();
+    }
+
+    public long getOriginationRouter() {
+        return buffer.getLong(ORIGIN);
     }
 
     public long getSequence() {
-        return sequence;
+        return buffer.getLong(SEQUENCE);
+    }
+
+    public int getAge() {
+        return buffer.getInt(AGE);
+    }
+
+    public int getChecksum() {
+        return buffer.getInt(CHECKSUM);
+    }
+
+    public boolean isDelta() {
+        return (buffer.getInt(FLAGS) & DELTA) != 0;
     }
 
-    public int getTimeToLive() {
-        return timeToLive;
+    public int getArea() {
+        return buffer.getInt(AREA);
     }
 
-    public void decreaseTimeToLive() {
-        timeToLive--;
+    public int getLinkCount() {
+        return buffer.getInt(LINK_COUNT);
     }
 
-    public void addReceiver(Router router) {
-        receivers.add(router);
+    public int getPrefixCount() {
+        return buffer.getInt(PREFIX_COUNT);
     }
 
-    public void addSender(Long sender) {
-        senders.add(sender);
+    public long getPrefix(int prefix) {
+        return buffer.getLong(HEADER_SIZE + (getLinkCount() + prefix) * LINK_SIZE);
     }
 
-    public Router getNextReceiver() {
-        return receivers.remove();
+    public long getPrefixCost(int prefix) {
+        return buffer.getLong(HEADER_SIZE + (getLinkCount() + prefix) * LINK_SIZE + 8);
     }
 
-    public Long getSender() {
-        return senders.remove();
+    public long getNeighbor(int link) {
+        return buffer.getLong(HEADER_SIZE + link * LINK_SIZE);
     }
 
-    public Set<ConnectionInformation> getOriginConnectivity() {
-        return originConnectivity;
+    public long getCost(int link) {
+        return buffer.getLong(HEADER_SIZE + link * LINK_SIZE + 8);
+    }
+
+    public int size() {
+        return buffer.capacity();
+    }
+
+    public ByteBuffer toByteBuffer() {
+        return buffer.duplicate().clear();
+    }
+
+    public boolean isValid() {
+        return buffer.capacity() >= HEADER_SIZE && getLinkCount() >= 0 && getPrefixCount() >= 0
+                && buffer.capacity() == HEADER_SIZE + ((long) getLinkCount() + getPrefixCount()) * LINK_SIZE
+                && getChecksum() == computeChecksum(buffer);
+    }
+
+    private static int computeChecksum(ByteBuffer encoded) {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = encoded.duplicate();
+
+        view.clear().limit(AGE);
+        crc.update(view);
+        view.clear().position(FLAGS);
+        crc.update(view);
+
+        return (int) crc.getValue();
     }
 
-    public boolean isAlive() {
-        return timeToLive > 0 && !receivers.isEmpty() && !senders.isEmpty() && senders.size() == receivers.size();
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        return builder.append("LinkStatePacket [origin=").append(getOriginationRouter()).append(", area=")
+                .append(getArea()).append(", sequence=").append(getSequence()).append(", delta=").append(isDelta())
+                .append(", links=").append(getLinkCount()).append(", prefixes=").append(getPrefixCount()).append("]")
+                .append(System.lineSeparator()).toString();
     }
 }
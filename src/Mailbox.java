@@ -0,0 +1,69 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class Mailbox {
+
+    private final Router owner;
+
+    private final Queue<Delivery> messages;
+
+    private final AtomicBoolean scheduled;
+
+    private final Map<Long, Delivery> forwarded;
+
+    private int shard;
+
+    public Mailbox(Router router) {
+        owner = router;
+        messages = new ConcurrentLinkedQueue<>();
+        scheduled = new AtomicBoolean(false);
+        forwarded = new HashMap<>();
+    }
+
+    public Router getOwner() {
+        return owner;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shardIndex) {
+        shard = shardIndex;
+    }
+
+    public boolean offer(Delivery delivery) {
+        messages.add(delivery);
+        owner.getMetrics().recordMailboxOffer();
+        return scheduled.compareAndSet(false, true);
+    }
+
+    public Delivery poll() {
+        Delivery delivery = messages.poll();
+
+        if (delivery != null) {
+            owner.getMetrics().recordMailboxPoll();
+        }
+
+        return delivery;
+    }
+
+    public boolean release() {
+        scheduled.set(false);
+        return !messages.isEmpty() && scheduled.compareAndSet(false, true);
+    }
+
+    public void recordForward(Delivery delivery) {
+        forwarded.put(delivery.getPacket().getOriginationRouter(), delivery);
+    }
+
+    public boolean reachesFurther(Delivery delivery) {
+        Delivery previous = forwarded.get(delivery.getPacket().getOriginationRouter());
+
+        return previous != null && previous.getPacket() == delivery.getPacket()
+                && delivery.getTimeToLive() > previous.getTimeToLive();
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+public class MetricsRegistry {
+
+    private static final String PREFIX = "linkstate_";
+
+    private static final String[] QUANTILES = { "0.5", "0.9", "0.99", "0.999" };
+
+    private static final String[] PERCENTILES = { "p50", "p90", "p99", "p999" };
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private static final List<Family> FAMILIES = Arrays.asList(
+            new Family("lsp_received_total", "counter", "LSP copies received by an active router.",
+                    router -> router.getMetrics().getLspReceived()),
+            new Family("lsp_accepted_total", "counter", "LSP copies installed in the link state database.",
+                    router -> router.getMetrics().getLspAccepted()),
+            new Family("lsp_stale_total", "counter", "LSP copies rejected for a stale sequence number.",
+                    router -> router.getMetrics().getLspStale()),
+            new Family("lsp_invalid_total", "counter", "LSP copies rejected as corrupt or expired.",
+                    router -> router.getMetrics().getLspInvalid()),
+            new Family("lsp_sequence_gaps_total", "counter", "Delta LSPs that skipped a sequence number.",
+                    Router::getSequenceGaps),
+            new Family("lsp_originated_full_total", "counter", "Full LSPs originated.",
+                    Router::getFullPackets),
+            new Family("lsp_originated_delta_total", "counter", "Delta LSPs originated.",
+                    Router::getDeltaPackets),
+            new Family("damping_flaps_absorbed_total", "counter", "Link flaps hidden by a suppressed link.",
+                    Router::getAbsorbedFlaps),
+            new Family("damping_lsps_withheld_total", "counter",
+                    "LSP updates withheld while the origin was suppressed.",
+                    Router::getWithheldPackets),
+            new Family("spf_full_runs_total", "counter", "Full SPF runs.",
+                    router -> router.getShortestPathTree().getFullRuns()),
+            new Family("spf_incremental_runs_total", "counter", "Incremental SPF runs.",
+                    router -> router.getShortestPathTree().getIncrementalRuns()),
+            new Family("route_changes_total", "counter", "Routes changed by SPF.",
+                    router -> router.getShortestPathTree().getRouteChanges()),
+            new Family("route_events_total", "counter", "Route add, withdraw and change events published.",
+                    Router::getRouteEventCount),
+            new Family("frr_protected_routes", "gauge", "Routes with a loop-free alternate next hop.",
+                    router -> router.getShortestPathTree().getProtectedRoutes()),
+            new Family("frr_node_protected_routes", "gauge", "Routes whose alternate avoids the primary next hop.",
+                    router -> router.getShortestPathTree().getNodeProtectedRoutes()),
+            new Family("frr_failovers_total", "counter", "Forwarding entries switched to their alternate.",
+                    Router::getFailovers),
+            new Family("packets_forwarded_total", "counter", "Data packets forwarded to a next hop.",
+                    router -> router.getMetrics().getPacketsForwarded()),
+            new Family("packets_dropped_total", "counter", "Data packets dropped.",
+                    router -> router.getMetrics().getPacketsDropped()),
+            new Family("mailbox_depth", "gauge", "LSP deliveries waiting in the router mailbox.",
+                    router -> router.getMetrics().getMailboxDepth()),
+            new Family("mailbox_peak_depth", "gauge", "Deepest the router mailbox has been.",
+                    router -> router.getMetrics().getMailboxPeak()));
+
+    private final Collection<Router> routers;
+
+    private final boolean enabled;
+
+    private final LongAdder rounds;
+
+    private final LatencyHistogram roundLatency;
+
+    private final AtomicLong floodQueuePeak;
+
+    public MetricsRegistry(Collection<Router> network, boolean enable) {
+        routers = network;
+        enabled = enable;
+        rounds = new LongAdder();
+        roundLatency = new LatencyHistogram();
+        floodQueuePeak = new AtomicLong();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordRound(long nanos) {
+        if (enabled) {
+            rounds.increment();
+            roundLatency.record(nanos);
+        }
+    }
+
+    public void recordFloodQueueDepth(int depth) {
+        if (enabled && depth > floodQueuePeak.get()) {
+            floodQueuePeak.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    public String toPrometheus() {
+        Router[] sorted = sortedRouters();
+        StringBuilder text = new StringBuilder();
+
+        for (Family family : FAMILIES) {
+            header(text, family.name, family.type, family.help);
+            for (Router router : sorted) {
+                sample(text, family.name, label(router), family.value.applyAsLong(router));
+            }
+        }
+        header(text, "spf_duration_seconds", "summary", "SPF run time.");
+        for (Router router : sorted) {
+            summary(text, "spf_duration_seconds", label(router), router.getMetrics().getSpfLatency());
+        }
+
+        for (Family family : FAMILIES) {
+            String name = "network_" + family.name;
+            header(text, name, family.type, family.help + " Summed over all routers.");
+            sample(text, name, "", total(sorted, family));
+        }
+        header(text, "network_spf_duration_seconds", "summary", "SPF run time over all routers.");
+        summary(text, "network_spf_duration_seconds", "", mergedSpfLatency(sorted));
+        header(text, "network_frr_failover_duration_seconds", "summary",
+                "Time to switch forwarding entries to their alternates after a local link failure.");
+        summary(text, "network_frr_failover_duration_seconds", "",
+                merged(sorted, router -> router.getMetrics().getFailoverLatency()));
+        header(text, "network_spf_repair_delay_seconds", "summary",
+                "Time from a local link failure to the SPF run that repairs the routes.");
+        summary(text, "network_spf_repair_delay_seconds", "",
+                merged(sorted, router -> router.getMetrics().getSpfRepairLatency()));
+        header(text, "network_rounds_total", "counter", "Flooding rounds started with sendPacket.");
+        sample(text, "network_rounds_total", "", rounds.sum());
+        header(text, "network_round_duration_seconds", "summary", "Time to flood one round and run SPF.");
+        summary(text, "network_round_duration_seconds", "", roundLatency);
+        header(text, "network_flood_queue_peak_depth", "gauge", "Deepest the sequential flood queue has been.");
+        sample(text, "network_flood_queue_peak_depth", "", floodQueuePeak.get());
+
+        return text.toString();
+    }
+
+    public String toJson() {
+        Router[] sorted = sortedRouters();
+        StringBuilder json = new StringBuilder("{\"network\":{");
+
+        for (Family family : FAMILIES) {
+            json.append('"').append(family.name).append("\":").append(total(sorted, family)).append(',');
+        }
+        json.append("\"spf_duration_seconds\":");
+        histogram(json, mergedSpfLatency(sorted));
+        json.append(",\"frr_failover_duration_seconds\":");
+        histogram(json, merged(sorted, router -> router.getMetrics().getFailoverLatency()));
+        json.append(",\"spf_repair_delay_seconds\":");
+        histogram(json, merged(sorted, router -> router.getMetrics().getSpfRepairLatency()));
+        json.append(",\"rounds_total\":").append(rounds.sum()).append(",\"round_duration_seconds\":");
+        histogram(json, roundLatency);
+        json.append(",\"flood_queue_peak_depth\":").append(floodQueuePeak.get()).append("},\"routers\":[");
+
+        for (int i = 0; i < sorted.length; i++) {
+            json.append(i > 0 ? "," : "").append(System.lineSeparator()).append("{\"id\":")
+                    .append(sorted[i].getId());
+            for (Family family : FAMILIES) {
+                json.append(",\"").append(family.name).append("\":").append(family.value.applyAsLong(sorted[i]));
+            }
+            json.append(",\"spf_duration_seconds\":");
+            histogram(json, sorted[i].getMetrics().getSpfLatency());
+            json.append('}');
+        }
+
+        return json.append(System.lineSeparator()).append("]}").append(System.lineSeparator()).toString();
+    }
+
+    private Router[] sortedRouters() {
+        Router[] sorted = routers.toArray(new Router[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(Router::getId));
+        return sorted;
+    }
+
+    private static long total(Router[] sorted, Family family) {
+        long total = 0;
+        for (Router router : sorted) {
+            total += family.value.applyAsLong(router);
+        }
+        return total;
+    }
+
+    private static LatencyHistogram mergedSpfLatency(Router[] sorted) {
+        return merged(sorted, router -> router.getMetrics().getSpfLatency());
+    }
+
+    private static LatencyHistogram merged(Router[] sorted, Function<Router, LatencyHistogram> latency) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Router router : sorted) {
+            latency.apply(router).addTo(merged);
+        }
+        return merged;
+    }
+
+    private static String label(Router router) {
+        return "router=\"" + router.getId() + "\"";
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, Object value) {
+        text.append(PREFIX).append(name);
+        if (!labels.isEmpty()) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ').append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder text, String name, String labels, LatencyHistogram histogram) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (String quantile : QUANTILES) {
+            sample(text, name, labels + separator + "quantile=\"" + quantile + "\"",
+                    histogram.getValueAtPercentile(Double.parseDouble(quantile) * 100) / NANOS_PER_SECOND);
+        }
+        sample(text, name + "_sum", labels, histogram.getSum() / NANOS_PER_SECOND);
+        sample(text, name + "_count", labels, histogram.getCount());
+    }
+
+    private static void histogram(StringBuilder json, LatencyHistogram histogram) {
+        json.append("{\"count\":").append(histogram.getCount()).append(",\"sum\":")
+                .append(histogram.getSum() / NANOS_PER_SECOND).append(",\"max\":")
+                .append(histogram.getMax() / NANOS_PER_SECOND);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            long value = histogram.getValueAtPercentile(Double.parseDouble(QUANTILES[i]) * 100);
+            json.append(",\"").append(PERCENTILES[i]).append("\":").append(value / NANOS_PER_SECOND);
+        }
+        json.append('}');
+    }
+
+    private static final class Family {
+
+        private final String name;
+
+        private final String type;
+
+        private final String help;
+
+        private final ToLongFunction<Router> value;
+
+        private Family(String familyName, String familyType, String description, ToLongFunction<Router> extractor) {
+            name = familyName;
+            type = familyType;
+            help = description;
+            value = extractor;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+public enum OriginationMode {
+
+    PERIODIC,
+
+    TRIGGERED,
+
+    DELTA;
+
+    public static OriginationMode fromString(String mode) {
+        for (OriginationMode value : values()) {
+            if (value.name().equalsIgnoreCase(mode)) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid LSP origination mode : %s", mode));
+    }
+}
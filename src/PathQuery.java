@@ -0,0 +1,206 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PathQuery {
+
+    private static final int NONE = -1;
+
+    private static final int FORWARD = 0;
+
+    private static final int BACKWARD = 1;
+
+    private final Map<Long, RoutePath> cache;
+
+    private final IndexedHeap[] heaps;
+
+    private final long[][] distances;
+
+    private final int[][] parents;
+
+    private final int[][] stamps;
+
+    private TopologyGraph graph;
+
+    private RouterIndex index;
+
+    private long version;
+
+    private int stamp;
+
+    private long hits;
+
+    private long misses;
+
+    private long settled;
+
+    public PathQuery(int cacheSize) {
+        cache = new LinkedHashMap<Long, RoutePath>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RoutePath> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        heaps = new IndexedHeap[] { new IndexedHeap(), new IndexedHeap() };
+        distances = new long[2][0];
+        parents = new int[2][0];
+        stamps = new int[2][0];
+    }
+
+    public synchronized RoutePath find(Router source, long destinationId) {
+        long sourceId = source.getId();
+        LinkStateDatabase database = source.getLinkStateDatabase();
+        if (!source.isActive()) {
+            return RoutePath.unreachable(sourceId, destinationId, database.getLinkVersion());
+        }
+
+        graph = source.getLinkStateGraph();
+        index = database.getIndex();
+        version = database.getLinkVersion();
+
+        int destination = index.indexOf(destinationId);
+        if (destination < 0 || destination >= graph.getNodeCount()) {
+            return RoutePath.unreachable(sourceId, destinationId, version);
+        }
+
+        Long key = (long) Long.hashCode(sourceId) << Integer.SIZE | destination;
+        RoutePath path = cache.get(key);
+        if (path != null && path.getSource() == sourceId && path.getDestination() == destinationId
+                && path.getVersion() == version) {
+            hits++;
+            return path;
+        }
+
+        misses++;
+        path = search(index.indexOf(sourceId), destination);
+        cache.put(key, path);
+        return path;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getSettledNodes() {
+        return settled;
+    }
+
+    public synchronized int getCachedPaths() {
+        return cache.size();
+    }
+
+    private RoutePath search(int source, int destination) {
+        long sourceId = index.getId(source);
+        long destinationId = index.getId(destination);
+
+        if (source == destination) {
+            return new RoutePath(sourceId, destinationId, new long[] { sourceId }, 0, version);
+        }
+
+        int nodeCount = graph.getNodeCount();
+        if (distances[FORWARD].length < nodeCount) {
+            for (int direction = FORWARD; direction <= BACKWARD; direction++) {
+                distances[direction] = new long[nodeCount];
+                parents[direction] = new int[nodeCount];
+                stamps[direction] = new int[nodeCount];
+            }
+            stamp = 0;
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps[FORWARD], 0);
+            Arrays.fill(stamps[BACKWARD], 0);
+            stamp = 1;
+        }
+        for (int direction = FORWARD; direction <= BACKWARD; direction++) {
+            heaps[direction].reset(distances[direction], distances[direction], nodeCount);
+        }
+        label(FORWARD, source, 0, NONE);
+        label(BACKWARD, destination, 0, NONE);
+
+        long best = ShortestPathTree.UNREACHABLE;
+        int meeting = NONE;
+        while (!heaps[FORWARD].isEmpty() && !heaps[BACKWARD].isEmpty()) {
+            long forwardTop = distances[FORWARD][heaps[FORWARD].peek()];
+            long backwardTop = distances[BACKWARD][heaps[BACKWARD].peek()];
+            if (forwardTop + backwardTop >= best) {
+                break;
+            }
+
+            int direction = forwardTop <= backwardTop ? FORWARD : BACKWARD;
+            int node = heaps[direction].poll();
+            settled++;
+
+            int start = direction == FORWARD ? graph.getEdgeStart(node) : graph.getReverseStart(node);
+            int end = direction == FORWARD ? graph.getEdgeEnd(node) : graph.getReverseEnd(node);
+            for (int edge = start; edge < end; edge++) {
+                int next = direction == FORWARD ? graph.getTarget(edge) : graph.getReverseSource(edge);
+                long linkCost = graph.getCost(direction == FORWARD ? edge : graph.getReverseEdge(edge));
+                if (linkCost >= ShortestPathTree.UNREACHABLE) {
+                    continue;
+                }
+
+                long cost = distances[direction][node] + linkCost;
+                if (cost >= distanceTo(direction, next)) {
+                    continue;
+                }
+
+                label(direction, next, cost, node);
+                long through = cost + distanceTo(1 - direction, next);
+                if (through < best) {
+                    best = through;
+                    meeting = next;
+                }
+            }
+        }
+
+        if (meeting == NONE) {
+            return RoutePath.unreachable(sourceId, destinationId, version);
+        }
+
+        return new RoutePath(sourceId, destinationId, trace(meeting), best, version);
+    }
+
+    private void label(int direction, int node, long cost, int parent) {
+        stamps[direction][node] = stamp;
+        distances[direction][node] = cost;
+        parents[direction][node] = parent;
+        heaps[direction].insertOrDecrease(node);
+    }
+
+    private long distanceTo(int direction, int node) {
+        return stamps[direction][node] == stamp ? distances[direction][node] : ShortestPathTree.UNREACHABLE;
+    }
+
+    private long[] trace(int meeting) {
+        int length = 0;
+        for (int node = meeting; node != NONE; node = parents[FORWARD][node]) {
+            length++;
+        }
+        for (int node = parents[BACKWARD][meeting]; node != NONE; node = parents[BACKWARD][node]) {
+            length++;
+        }
+
+        long[] hops = new long[length];
+        int hop = 0;
+        for (int node = meeting; node != NONE; node = parents[FORWARD][node]) {
+            hops[hop++] = index.getId(node);
+        }
+        for (int left = 0, right = hop - 1; left < right; left++, right--) {
+            long swap = hops[left];
+            hops[left] = hops[right];
+            hops[right] = swap;
+        }
+        for (int node = parents[BACKWARD][meeting]; node != NONE; node = parents[BACKWARD][node]) {
+            hops[hop++] = index.getId(node);
+        }
+
+        return hops;
+    }
+}
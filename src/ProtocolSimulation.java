@@ -0,0 +1,224 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProtocolSimulation {
+
+    private final SimulationClock clock;
+
+    private final Map<Long, Router> networkMap;
+
+    private final long helloInterval;
+
+    private final long deadInterval;
+
+    private final long refreshInterval;
+
+    private final long maxAge;
+
+    private final long defaultDelay;
+
+    private final Map<Long, Long> failureTimes;
+
+    private final Set<Long> armedSpfTimers;
+
+    private final Set<Long> armedAgingTimers;
+
+    private long lspCopies;
+
+    private long hellos;
+
+    private long detections;
+
+    private long detectionLatencyTotal;
+
+    private long detectionLatencyMax;
+
+    public ProtocolSimulation(Map<Long, Router> network, Configuration configuration) {
+        clock = new SimulationClock();
+        networkMap = network;
+        helloInterval = configuration.getHelloInterval();
+        deadInterval = configuration.getDeadInterval();
+        refreshInterval = configuration.getLspRefreshInterval();
+        maxAge = configuration.getLspMaxAge();
+        defaultDelay = configuration.getLinkDelay();
+        failureTimes = new HashMap<>();
+        armedSpfTimers = new HashSet<>();
+        armedAgingTimers = new HashSet<>();
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    public void start() {
+        List<Router> routers = new ArrayList<>(networkMap.values());
+
+        for (int i = 0; i < routers.size(); i++) {
+            Router router = routers.get(i);
+            router.setTickAging(false);
+
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                info.heard(clock.now());
+                scheduleDeadCheck(router, info);
+            }
+
+            clock.schedule(i % helloInterval, () -> sendHellos(router));
+            clock.schedule((long) i * refreshInterval / routers.size(), () -> refresh(router));
+        }
+    }
+
+    public void runFor(long duration) {
+        clock.runFor(duration);
+    }
+
+    public void routerShutdown(Router router) {
+        failureTimes.put(router.getId(), clock.now());
+    }
+
+    public void routerStarted(Router router) {
+        failureTimes.remove(router.getId());
+    }
+
+    private void sendHellos(Router router) {
+        if (router.isActive()) {
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                Router neighbor = info.getRouter();
+                clock.schedule(getDelay(info), () -> receiveHello(neighbor, router.getId()));
+            }
+        }
+
+        clock.schedule(helloInterval, () -> sendHellos(router));
+    }
+
+    private void receiveHello(Router router, long senderId) {
+        ConnectionInformation info = router.getConnectivityGraph().get(senderId);
+        hellos++;
+
+        if (!router.isActive() || info == null) {
+            return;
+        }
+
+        if (info.heard(clock.now())) {
+            router.refreshLocalLinks();
+            scheduleSpf(router);
+            scheduleDeadCheck(router, info);
+        }
+    }
+
+    private void scheduleDeadCheck(Router router, ConnectionInformation info) {
+        clock.scheduleAt(info.getLastHeard() + deadInterval, () -> checkDead(router, info));
+    }
+
+    private void checkDead(Router router, ConnectionInformation info) {
+        if (info.isDead()) {
+            return;
+        }
+
+        if (!info.expire(clock.now(), deadInterval)) {
+            scheduleDeadCheck(router, info);
+            return;
+        }
+
+        Long failedAt = failureTimes.get(info.getRouter().getId());
+        if (failedAt != null && router.isActive()) {
+            long latency = clock.now() - failedAt;
+            detections++;
+            detectionLatencyTotal += latency;
+            detectionLatencyMax = Math.max(detectionLatencyMax, latency);
+        }
+
+        router.linkFailed(info.getRouter().getId());
+        router.refreshLocalLinks();
+        scheduleSpf(router);
+    }
+
+    private void refresh(Router router) {
+        if (router.isActive()) {
+            LinkStatePacket lsp = router.originatePacket();
+
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                if (info.getRouter().getArea() == router.getArea()) {
+                    send(router, info.getRouter(), lsp, LinkStatePacket.TIME_TO_LIVE - 1);
+                }
+            }
+            scheduleSpf(router);
+        }
+
+        clock.schedule(refreshInterval, () -> refresh(router));
+    }
+
+    private void send(Router sender, Router receiver, LinkStatePacket lsp, int timeToLive) {
+        ConnectionInformation info = sender.getConnectivityGraph().get(receiver.getId());
+
+        if (timeToLive > 0 && info != null) {
+            clock.schedule(getDelay(info), () -> deliver(sender.getId(), receiver, lsp, timeToLive));
+        }
+    }
+
+    private void deliver(long senderId, Router receiver, LinkStatePacket lsp, int timeToLive) {
+        lspCopies++;
+
+        if (!receiver.acceptPacket(senderId, lsp)) {
+            return;
+        }
+
+        for (ConnectionInformation info : receiver.getConnectivityGraph().values()) {
+            if (info.getRouter().getId() != senderId && info.getRouter().getArea() == receiver.getArea()) {
+                send(receiver, info.getRouter(), lsp, timeToLive - 1);
+            }
+        }
+
+        scheduleSpf(receiver);
+        scheduleAging(receiver, clock.now());
+    }
+
+    private void scheduleSpf(Router router) {
+        SpfScheduler scheduler = router.getSpfScheduler();
+
+        if (scheduler.hasPending() && armedSpfTimers.add(router.getId())) {
+            clock.scheduleAt(scheduler.getScheduledAt(), () -> {
+                armedSpfTimers.remove(router.getId());
+                router.runScheduledSpf(clock.now());
+                scheduleSpf(router);
+            });
+        }
+    }
+
+    private void scheduleAging(Router router, long oldestInstall) {
+        if (oldestInstall != Long.MAX_VALUE && armedAgingTimers.add(router.getId())) {
+            clock.scheduleAt(oldestInstall + maxAge, () -> {
+                armedAgingTimers.remove(router.getId());
+                scheduleAging(router, router.expireLinkState(maxAge));
+                scheduleSpf(router);
+            });
+        }
+    }
+
+    private long getDelay(ConnectionInformation info) {
+        return info.getDelay() == ConnectionInformation.DEFAULT_DELAY ? defaultDelay : info.getDelay();
+    }
+
+    public long getLspCopies() {
+        return lspCopies;
+    }
+
+    public long getHellos() {
+        return hellos;
+    }
+
+    public long getDetections() {
+        return detections;
+    }
+
+    public long getMeanDetectionLatency() {
+        return detections == 0 ? 0 : detectionLatencyTotal / detections;
+    }
+
+    public long getMaxDetectionLatency() {
+        return detectionLatencyMax;
+    }
+}
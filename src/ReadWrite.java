@@ -1,26 +1,32 @@
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.io.PrintStream;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Scanner;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 public class ReadWrite {
 
     private static final Logger LOG = Logger.getLogger(ReadWrite.class.getCanonicalName());
 
-    private static final String MESSAGE = String.format("C = Continue%1$sQ = Quit%1$sS ID = Shut Down Router ID"
-            + "%1$sT ID = Start Up Router ID%1$sP ID = Print Routing Table of Router ID%1$s%1$sEnter your choice : ",
-            System.lineSeparator());
+    private static final String MESSAGE = String.format("C [N] = Continue N Rounds%1$sA = Compute All Routing Tables"
+            + "%1$sQ = Quit%1$sS ID = Shut Down Router ID%1$sT ID = Start Up Router ID"
+            + "%1$sP [ID] = Print Routing Table of Router ID or All Routers%1$sD N = Send N Data Flows"
+            + "%1$sF ID ADDRESS = Forward ADDRESS at Router ID%1$sR SRC DST = Find Path from Router SRC to DST"
+            + "%1$sM = Print Metrics%1$sW = Write Checkpoint%1$s%1$sEnter your choice : ", System.lineSeparator());
+
+    private static final Pattern COMMAND = Pattern.compile(
+            "(?i)c( \\d{1,9})?|a|s \\d+|t \\d+|p( \\d+)?|d \\d{1,9}|f \\d+ \\d+(\\.\\d+){3}|r \\d+ \\d+|m|w|q");
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
 
     public static final String SEPARATOR = ", ";
 
+    private static PrintStream output = System.out;
+
+    private static boolean jsonReport = false;
+
     private ReadWrite() {
 
     }
@@ -30,8 +36,11 @@ public class ReadWrite {
 
         while (choice == null) {
             println(MESSAGE);
+            if (!sc.hasNextLine()) {
+                return "Q";
+            }
             choice = sc.nextLine();
-            if (choice == null || !choice.matches("(?i)c|s \\d+|t \\d+|p \\d+|q")) {
+            if (!isCommand(choice)) {
                 printError("Invalid input.");
                 choice = null;
             }
@@ -40,86 +49,93 @@ public class ReadWrite {
         return choice;
     }
 
-    public static Map<Long, Router> readNetworkInitFile() {
-        Map<Long, Router> network = new HashMap<>();
+    public static boolean isCommand(String line) {
+        return line != null && COMMAND.matcher(line).matches();
+    }
 
-        try (FileReader fileReader = new FileReader(new File("infile.dat"));
-                BufferedReader bufferedReader = new BufferedReader(fileReader)) {
-            Map<Long, List<String>> nodeConnections = new HashMap<>();
-            String line;
-            Long currentRouterId = -1L;
+    public static Map<Long, Router> readNetworkInitFile(String path) {
+        TopologyLoader loader = new TopologyLoader(path);
+        Map<Long, Router> network = null;
 
-            while ((line = bufferedReader.readLine()) != null) {
-                currentRouterId = createRouters(line, nodeConnections, currentRouterId, network);
-            }
-
-            processConnections(nodeConnections, network);
+        try {
+            network = loader.load();
         } catch (IOException e) {
             LOG.log(Level.SEVERE, "Error while reading input file.", e);
             printError(String.format("Error while reading input file : %s", e.getMessage()));
             System.exit(1);
         }
 
+        print(String.format("Topology loaded from %s : %s routers, %s connections in %s ms (peak heap %s MB).",
+                TopologyLoader.STDIN.equals(path) ? "standard input" : path, loader.getRouterCount(),
+                loader.getLinkCount(), loader.getLoadTime(), loader.getPeakHeap() / (1024 * 1024)));
+
         return network;
     }
 
-    private static Long createRouters(String line, Map<Long, List<String>> nodeConnections, Long currentRouterId,
-            Map<Long, Router> network) throws IOException {
-        line = line.trim();
+    public static void setOutput(PrintStream stream) {
+        output = stream;
+    }
 
-        if (line.indexOf('.') == -1) {
-            List<String> connections = nodeConnections.getOrDefault(currentRouterId, new ArrayList<String>());
-            connections.add(line);
-            nodeConnections.put(currentRouterId, connections);
-            return currentRouterId;
-        }
+    public static void setJsonReport(boolean json) {
+        jsonReport = json;
+    }
 
-        String[] routerInfo = line.split("\\s+");
+    public static boolean isJsonReport() {
+        return jsonReport;
+    }
 
-        if (routerInfo.length != 2) {
-            throw new IOException(String.format("Invalid router information : %s", line));
+    public static void print(String message) {
+        if (jsonReport) {
+            printMessage(message);
+        } else {
+            output.print(LINE_SEPARATOR + message + LINE_SEPARATOR);
         }
+    }
 
-        Long routerId = Long.parseLong(routerInfo[0].trim());
-        network.put(routerId, new Router(routerId, routerInfo[1].trim()));
-
-        return routerId;
+    public static void println(String message) {
+        if (jsonReport) {
+            printMessage(message);
+        } else {
+            output.print(LINE_SEPARATOR + message);
+        }
     }
 
-    private static void processConnections(Map<Long, List<String>> connections, Map<Long, Router> network)
-            throws IOException {
-        for (Entry<Long, List<String>> entry : connections.entrySet()) {
-            Router node = network.get(entry.getKey());
+    public static void printRaw(String text) {
+        output.print(text);
+    }
 
-            for (String connection : entry.getValue()) {
-                connection = connection.trim();
-                String[] connectionInfo = connection.split("\\s+");
-                if (connectionInfo.length == 0 || connectionInfo.length > 2) {
-                    throw new IOException(String.format("Invalid connection information : %s", connection));
-                }
+    public static void printRecord(String json) {
+        output.print(json + LINE_SEPARATOR);
+    }
 
-                Long connectedNodeId = Long.parseLong(connectionInfo[0]);
-                Router connectedNode = network.get(connectedNodeId);
-                long cost = connectionInfo.length == 2 ? Long.parseLong(connectionInfo[1]) : 1;
+    private static void printMessage(String message) {
+        StringBuilder json = new StringBuilder(message.length() + 16).append("{\"message\":");
+        printRecord(appendJsonString(json, message.trim()).append('}').toString());
+    }
 
-                connectedNode.addConnection(node, cost);
-                node.addConnection(connectedNode, cost);
+    public static StringBuilder appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
             }
         }
+        return json.append('"');
     }
 
-    public static void print(String message) {
-        System.out.println();
-        System.out.println(message);
-    }
-
-    public static void println(String message) {
-        System.out.println();
-        System.out.print(message);
+    public static void flush() {
+        output.flush();
     }
 
     public static void printError(String message) {
-        System.out.println();
+        if (!jsonReport) {
+            output.print(LINE_SEPARATOR);
+        }
         System.err.println(message);
     }
 
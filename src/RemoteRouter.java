@@ -0,0 +1,41 @@
+public class RemoteRouter extends Router {
+
+    private final int shard;
+
+    private final SimulationShard local;
+
+    public RemoteRouter(long routerId, String routerName, int routerArea, int routerShard, SimulationShard localShard) {
+        super(routerId, routerName, routerArea);
+        shard = routerShard;
+        local = localShard;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void deliver(long senderId, LinkStatePacket lsp, int timeToLive) {
+        if (isActive()) {
+            local.send(this, senderId, lsp, timeToLive);
+        }
+    }
+
+    @Override
+    public boolean acceptPacket(long senderId, LinkStatePacket lsp) {
+        deliver(senderId, lsp, 1);
+        return isActive();
+    }
+
+    @Override
+    public boolean receiveHello(long senderId) {
+        if (isActive()) {
+            local.sendHello(this, senderId);
+        }
+        return false;
+    }
+
+    @Override
+    public void requestFullPacket() {
+        local.requestFullPacket(this);
+    }
+}
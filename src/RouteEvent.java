@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+public final class RouteEvent {
+
+    public enum Type {
+        ADD, WITHDRAW, CHANGE
+    }
+
+    private static final long[] NO_HOPS = new long[0];
+
+    private final Type type;
+
+    private final long destination;
+
+    private final long[] oldNextHops;
+
+    private final long[] newNextHops;
+
+    private final long oldCost;
+
+    private final long newCost;
+
+    private RouteEvent(Type eventType, long destinationId, long[] previousHops, long[] currentHops,
+            long previousCost, long currentCost) {
+        type = eventType;
+        destination = destinationId;
+        oldNextHops = previousHops;
+        newNextHops = currentHops;
+        oldCost = previousCost;
+        newCost = currentCost;
+    }
+
+    public static RouteEvent between(RoutingTable previous, int previousNode, RoutingTable current, int node) {
+        boolean existed = previousNode >= 0 && previous.isReachable(previousNode);
+        boolean exists = current.isReachable(node);
+
+        return new RouteEvent(!existed ? Type.ADD : !exists ? Type.WITHDRAW : Type.CHANGE, current.getId(node),
+                existed ? nextHops(previous, previousNode) : NO_HOPS, exists ? nextHops(current, node) : NO_HOPS,
+                existed ? previous.getRouteCost(previousNode) : ShortestPathTree.UNREACHABLE,
+                exists ? current.getRouteCost(node) : ShortestPathTree.UNREACHABLE);
+    }
+
+    private static long[] nextHops(RoutingTable table, int node) {
+        long[] hops = new long[table.getRouteCount(node)];
+        for (int path = 0; path < hops.length; path++) {
+            hops[path] = table.getRouteTo(node, path);
+        }
+        return hops;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getDestination() {
+        return destination;
+    }
+
+    public long getOldNextHop() {
+        return oldNextHops.length == 0 ? ForwardingTable.NO_ROUTE : oldNextHops[0];
+    }
+
+    public long getNewNextHop() {
+        return newNextHops.length == 0 ? ForwardingTable.NO_ROUTE : newNextHops[0];
+    }
+
+    public long[] getOldNextHops() {
+        return oldNextHops.clone();
+    }
+
+    public long[] getNewNextHops() {
+        return newNextHops.clone();
+    }
+
+    public long getOldCost() {
+        return oldCost;
+    }
+
+    public long getNewCost() {
+        return newCost;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s : next hops %s -> %s, cost %s -> %s", type, destination,
+                Arrays.toString(oldNextHops), Arrays.toString(newNextHops), oldCost, newCost);
+    }
+}
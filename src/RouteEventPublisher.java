@@ -0,0 +1,53 @@
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RouteEventPublisher implements Flow.Publisher<RouteUpdate>, AutoCloseable {
+
+    private final SubmissionPublisher<RouteUpdate> publisher;
+
+    private final LongAdder published;
+
+    private final LongAdder dropped;
+
+    public RouteEventPublisher(int bufferSize) {
+        publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), Math.max(1, bufferSize));
+        published = new LongAdder();
+        dropped = new LongAdder();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super RouteUpdate> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public boolean hasSubscribers() {
+        return publisher.hasSubscribers();
+    }
+
+    public void publish(RouteUpdate update) {
+        if (!publisher.hasSubscribers()) {
+            return;
+        }
+
+        published.increment();
+        publisher.offer(update, (subscriber, batch) -> {
+            dropped.increment();
+            return false;
+        });
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
@@ -0,0 +1,96 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+public class RouteEventWriter implements Flow.Subscriber<RouteUpdate> {
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final BufferedWriter writer;
+
+    private final int batchSize;
+
+    private final CountDownLatch completed;
+
+    private Flow.Subscription subscription;
+
+    private int outstanding;
+
+    public RouteEventWriter(String path, int batches) throws IOException {
+        writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8);
+        batchSize = Math.max(1, batches);
+        completed = new CountDownLatch(1);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription routeSubscription) {
+        subscription = routeSubscription;
+        outstanding = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(RouteUpdate update) {
+        StringBuilder json = new StringBuilder(64 + update.size() * 96).append("{\"router\":")
+                .append(update.getRouter()).append(",\"version\":").append(update.getVersion())
+                .append(",\"sequence\":").append(update.getSequence()).append(",\"events\":[");
+
+        for (int event = 0; event < update.size(); event++) {
+            RouteEvent route = update.getEvents().get(event);
+            json.append(event == 0 ? "" : ",").append("{\"type\":\"").append(route.getType().name().toLowerCase())
+                    .append("\",\"destination\":").append(route.getDestination()).append(",\"old_next_hop\":")
+                    .append(route.getOldNextHop()).append(",\"new_next_hop\":").append(route.getNewNextHop())
+                    .append(",\"old_cost\":").append(route.getOldCost()).append(",\"new_cost\":")
+                    .append(route.getNewCost()).append('}');
+        }
+
+        try {
+            writer.write(json.append("]}").toString());
+            writer.newLine();
+        } catch (IOException e) {
+            subscription.cancel();
+            onError(new UncheckedIOException(e));
+            return;
+        }
+
+        if (--outstanding <= batchSize / 2) {
+            subscription.request(batchSize - outstanding);
+            outstanding = batchSize;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        ReadWrite.printError(String.format("Route events not written : %s", throwable.getMessage()));
+        close();
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+    }
+
+    public void awaitCompletion() {
+        try {
+            completed.await(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            ReadWrite.printError(String.format("Route events not written : %s", e.getMessage()));
+        } finally {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.Arrays;
+
+public final class RoutePath {
+
+    private static final long[] NO_HOPS = new long[0];
+
+    private final long source;
+
+    private final long destination;
+
+    private final long[] hops;
+
+    private final long cost;
+
+    private final long version;
+
+    public RoutePath(long sourceId, long destinationId, long[] pathHops, long pathCost, long topologyVersion) {
+        source = sourceId;
+        destination = destinationId;
+        hops = pathHops;
+        cost = pathCost;
+        version = topologyVersion;
+    }
+
+    public static RoutePath unreachable(long sourceId, long destinationId, long topologyVersion) {
+        return new RoutePath(sourceId, destinationId, NO_HOPS, ShortestPathTree.UNREACHABLE, topologyVersion);
+    }
+
+    public long getSource() {
+        return source;
+    }
+
+    public long getDestination() {
+        return destination;
+    }
+
+    public boolean isReachable() {
+        return hops.length > 0;
+    }
+
+    public int getHopCount() {
+        return Math.max(0, hops.length - 1);
+    }
+
+    public long getHop(int hop) {
+        return hops[hop];
+    }
+
+    public long[] getHops() {
+        return Arrays.copyOf(hops, hops.length);
+    }
+
+    public long getCost() {
+        return cost;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
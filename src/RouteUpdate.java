@@ -0,0 +1,40 @@
+import java.util.Collections;
+import java.util.List;
+
+public final class RouteUpdate {
+
+    private final long router;
+
+    private final long version;
+
+    private final long sequence;
+
+    private final List<RouteEvent> events;
+
+    public RouteUpdate(long routerId, long tableVersion, long batchSequence, List<RouteEvent> routeEvents) {
+        router = routerId;
+        version = tableVersion;
+        sequence = batchSequence;
+        events = Collections.unmodifiableList(routeEvents);
+    }
+
+    public long getRouter() {
+        return router;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public List<RouteEvent> getEvents() {
+        return events;
+    }
+
+    public int size() {
+        return events.size();
+    }
+}
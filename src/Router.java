@@ -1,37 +1,145 @@
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 public class Router {
 
+    public static final int BACKBONE = 0;
+
+    private static final long NO_COMPONENT = -1;
+
     private final long id;
 
     private final String networkName;
 
+    private final int area;
+
     private final AtomicLong sequence;
 
     private AtomicBoolean active;
 
     private final ConcurrentMap<Long, ConnectionInformation> connectivityGraph;
 
-    private ConcurrentMap<Long, RoutingInformation> routingTable;
-
     private final ConcurrentMap<Long, Long> sequences;
 
+    private final LinkStateDatabase linkStateDatabase;
+
+    private final ShortestPathTree shortestPathTree;
+
+    private SpfMode spfMode;
+
+    private SpfScheduler spfScheduler;
+
+    private LongSupplier clock;
+
+    private final Mailbox mailbox;
+
+    private boolean tickAging;
+
+    private LongFunction<Router> directory;
+
+    private long deliveredPackets;
+
+    private volatile RoutingTable installedRoutes;
+
+    private RouterMetrics metrics;
+
+    private OriginationMode originationMode;
+
+    private int lspRefreshRounds;
+
+    private int quietRounds;
+
+    private final Map<Long, Long> advertised;
+
+    private final AtomicBoolean fullRequested;
+
+    private final Set<Long> unsynchronized;
+
+    private long fullPackets;
+
+    private long deltaPackets;
+
+    private long sequenceGaps;
+
+    private volatile Map<Long, Long> advertisedPrefixes;
+
+    private RoutingTable exportedTable;
+
+    private Map<Long, Long> exportedSummaries;
+
+    private long[] areaAddresses;
+
+    private int areaAddressesTableSize;
+
+    private FlapDamping originDamping;
+
+    private long round;
+
+    private long withheldPackets;
+
+    private Map<Long, Long> heldChanges;
+
+    private long failovers;
+
+    private long failureDetected;
+
+    private final List<RouteEventPublisher> routePublishers;
+
+    private RouteEventPublisher routeEvents;
+
+    private long routeBatches;
+
+    private long routeEventCount;
+
     public Router(long routerId, String routerName) {
+        this(routerId, routerName, BACKBONE);
+    }
+
+    public Router(long routerId, String routerName, int routerArea) {
         id = routerId;
         networkName = routerName;
+        area = routerArea;
         sequence = new AtomicLong(0);
         active = new AtomicBoolean(true);
         connectivityGraph = new ConcurrentHashMap<>();
         sequences = new ConcurrentHashMap<>();
+        linkStateDatabase = new LinkStateDatabase(this);
+        shortestPathTree = new ShortestPathTree(linkStateDatabase);
+        spfMode = SpfMode.FULL;
+        spfScheduler = new SpfScheduler(0, 0, 0);
+        clock = () -> 0L;
+        mailbox = new Mailbox(this);
+        tickAging = true;
+        directory = this::findNeighbor;
+        metrics = RouterMetrics.DISABLED;
+        originationMode = OriginationMode.PERIODIC;
+        lspRefreshRounds = 1;
+        advertised = new HashMap<>();
+        fullRequested = new AtomicBoolean();
+        unsynchronized = ConcurrentHashMap.newKeySet();
+        advertisedPrefixes = Collections.emptyMap();
+        areaAddresses = new long[0];
+        areaAddressesTableSize = -1;
+        originDamping = FlapDamping.DISABLED;
+        heldChanges = Collections.emptyMap();
+        failureDetected = -1;
+        routePublishers = new CopyOnWriteArrayList<>();
     }
 
     public long getId() {
@@ -42,6 +150,14 @@ public class Router {
         return networkName;
     }
 
+    public int getArea() {
+        return area;
+    }
+
+    public Map<Long, Long> getAdvertisedPrefixes() {
+        return advertisedPrefixes;
+    }
+
     public boolean isActive() {
         return active.get();
     }
@@ -55,13 +171,224 @@ public class Router {
     }
 
     public void addConnection(Router connection, long cost) {
-        connectivityGraph.computeIfAbsent(connection.getId(), k -> new ConnectionInformation(connection, cost));
+        addConnection(connection, cost, ConnectionInformation.DEFAULT_DELAY);
+    }
+
+    public void addConnection(Router connection, long cost, long delay) {
+        connectivityGraph.computeIfAbsent(connection.getId(), k -> new ConnectionInformation(connection, cost, delay));
+    }
+
+    public void removeConnection(long routerId) {
+        connectivityGraph.remove(routerId);
     }
 
     public ConcurrentMap<Long, ConnectionInformation> getConnectivityGraph() {
         return connectivityGraph;
     }
 
+    public SpfMode getSpfMode() {
+        return spfMode;
+    }
+
+    public void setSpfMode(SpfMode mode) {
+        spfMode = mode;
+    }
+
+    public SpfScheduler getSpfScheduler() {
+        return spfScheduler;
+    }
+
+    public void setSpfScheduler(SpfScheduler scheduler, LongSupplier networkClock) {
+        spfScheduler = scheduler;
+        clock = networkClock;
+    }
+
+    public void setDirectory(LongFunction<Router> routerDirectory) {
+        directory = routerDirectory;
+    }
+
+    private Router findNeighbor(long routerId) {
+        ConnectionInformation info = connectivityGraph.get(routerId);
+        return routerId == id ? this : info == null ? null : info.getRouter();
+    }
+
+    public void setTickAging(boolean aging) {
+        tickAging = aging;
+    }
+
+    public long getDeliveredPackets() {
+        return deliveredPackets;
+    }
+
+    public RouterMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(RouterMetrics routerMetrics) {
+        metrics = routerMetrics;
+    }
+
+    public OriginationMode getOriginationMode() {
+        return originationMode;
+    }
+
+    public void setOriginationMode(OriginationMode mode, int refreshRounds) {
+        originationMode = mode;
+        lspRefreshRounds = refreshRounds;
+        quietRounds = (int) Math.floorMod(id, (long) refreshRounds);
+    }
+
+    public long getFullPackets() {
+        return fullPackets;
+    }
+
+    public long getDeltaPackets() {
+        return deltaPackets;
+    }
+
+    public long getSequenceGaps() {
+        return sequenceGaps;
+    }
+
+    public void setFlapDamping(Supplier<FlapDamping> damping) {
+        originDamping = damping.get();
+        for (ConnectionInformation info : connectivityGraph.values()) {
+            info.setDamping(damping.get());
+        }
+    }
+
+    public boolean isOriginSuppressed() {
+        return originDamping.isSuppressed();
+    }
+
+    public long getWithheldPackets() {
+        return withheldPackets;
+    }
+
+    public long getAbsorbedFlaps() {
+        long absorbed = 0;
+
+        for (ConnectionInformation info : connectivityGraph.values()) {
+            absorbed += info.getAbsorbedFlaps();
+        }
+
+        return absorbed;
+    }
+
+    public int getSuppressedLinks() {
+        int suppressed = 0;
+
+        for (ConnectionInformation info : connectivityGraph.values()) {
+            suppressed += info.isSuppressed() ? 1 : 0;
+        }
+
+        return suppressed;
+    }
+
+    public boolean isFastReroute() {
+        return shortestPathTree.hasAlternates();
+    }
+
+    public void setFastReroute(boolean enable) {
+        shortestPathTree.setAlternates(enable);
+    }
+
+    public long getFailovers() {
+        return failovers;
+    }
+
+    public void linkFailed(long neighborId) {
+        long start = System.nanoTime();
+        if (failureDetected < 0) {
+            failureDetected = start;
+        }
+
+        if (shortestPathTree.hasAlternates()) {
+            failovers += getForwardingTable().failover(neighborId);
+            metrics.recordFailover(System.nanoTime() - start);
+        }
+    }
+
+    public synchronized void subscribe(Flow.Subscriber<? super RouteUpdate> subscriber, int bufferSize) {
+        if (routeEvents == null) {
+            routeEvents = new RouteEventPublisher(bufferSize);
+            addRoutePublisher(routeEvents);
+        }
+
+        routeEvents.subscribe(subscriber);
+    }
+
+    public void subscribe(Flow.Subscriber<? super RouteUpdate> subscriber) {
+        subscribe(subscriber, Flow.defaultBufferSize());
+    }
+
+    public void addRoutePublisher(RouteEventPublisher publisher) {
+        routePublishers.add(publisher);
+        shortestPathTree.setRouteEvents(true);
+    }
+
+    public synchronized void closeRouteEvents() {
+        if (routeEvents != null) {
+            routeEvents.close();
+        }
+    }
+
+    public long getRouteEventCount() {
+        return routeEventCount;
+    }
+
+    public long getKnownSequence(long origin) {
+        return sequences.getOrDefault(origin, -1L);
+    }
+
+    public Map<Long, Long> getSequences() {
+        return Collections.unmodifiableMap(sequences);
+    }
+
+    public Map<Long, Long> getAdvertisedLinks() {
+        return Collections.unmodifiableMap(advertised);
+    }
+
+    public LinkStateDatabase getLinkStateDatabase() {
+        return linkStateDatabase;
+    }
+
+    public void restore(long ownSequence, Map<Long, Long> knownSequences, Map<Long, Long> advertisedLinks,
+            Map<Long, Long> prefixes) {
+        sequence.set(ownSequence);
+        sequences.putAll(knownSequences);
+        advertised.putAll(advertisedLinks);
+        advertisedPrefixes = prefixes;
+    }
+
+    public void restoreLinkState(long origin, Map<Long, Long> links, List<Router> neighbors) {
+        linkStateDatabase.restore(origin, links, neighbors, clock.getAsLong());
+    }
+
+    public void rebuildRoutingTable() {
+        computeRoutingTable(null);
+    }
+
+    public Mailbox getMailbox() {
+        return mailbox;
+    }
+
+    public ShortestPathTree getShortestPathTree() {
+        return shortestPathTree;
+    }
+
+    public int getMaxPaths() {
+        return shortestPathTree.getMaxPaths();
+    }
+
+    public void setMaxPaths(int paths) {
+        shortestPathTree.setMaxPaths(paths);
+    }
+
+    public ForwardingTable getForwardingTable() {
+        return shortestPathTree.getForwardingTable();
+    }
+
     public long getSequence() {
         return sequence.get();
     }
@@ -70,131 +397,473 @@ public class Router {
         return sequence.incrementAndGet();
     }
 
+    public void installRoutingTable(RoutingTable table) {
+        installedRoutes = table;
+    }
+
+    public RoutingTable getRoutingTable() {
+        return shortestPathTree.getRoutingTable();
+    }
+
+    public RoutingTable getInstalledRoutingTable() {
+        return installedRoutes;
+    }
+
+    public TopologyGraph getLinkStateGraph() {
+        refreshRoutingTable();
+        return shortestPathTree.getTopologyGraph();
+    }
+
     public void displayRoutingTable() {
-        if (routingTable.isEmpty()) {
-            computeRoutingTable(null);
+        refreshRoutingTable();
+        RoutingTable table = shortestPathTree.getRoutingTable();
+
+        if (ReadWrite.isJsonReport()) {
+            ReadWrite.printRecord(formatRoutingTableJson(table));
+            return;
         }
 
-        StringBuilder routes = new StringBuilder("Router ").append(id);
+        String lineSeparator = System.lineSeparator();
+        StringBuilder routes = new StringBuilder(table.size() * 24).append("Router ").append(id);
 
         if (isActive()) {
-            routes.append(" routing table:").append("%1$s");
+            routes.append(" routing table:").append(lineSeparator);
         } else {
-            routes.append(" is currently inactive.%1$s").append("Last available routing table:").append("%1$s");
+            routes.append(" is currently inactive.").append(lineSeparator).append("Last available routing table:")
+                    .append(lineSeparator);
         }
 
-        for (RoutingInformation info : routingTable.values()) {
-            if (!info.isDeadConnection()) {
-                routes.append(info.getNetworkName()).append(ReadWrite.SEPARATOR).append(info.getRouteTo())
-                        .append(System.lineSeparator());
+        for (int node = 0; node < table.size(); node++) {
+            if (table.isReachable(node)) {
+                routes.append(table.getRouter(node).getNetworkName());
+                for (int path = 0; path < table.getRouteCount(node); path++) {
+                    routes.append(ReadWrite.SEPARATOR).append(table.getRouteTo(node, path));
+                }
+                routes.append(lineSeparator);
             }
         }
 
-        ReadWrite.println(String.format(routes.toString(), System.lineSeparator()));
+        for (int summary = 0; summary < table.getSummaryCount(); summary++) {
+            routes.append(ForwardingTable.formatPrefix(table.getSummaryPrefix(summary)));
+            for (int path = 0; path < table.getSummaryRouteCount(summary); path++) {
+                routes.append(ReadWrite.SEPARATOR).append(table.getSummaryRouteTo(summary, path));
+            }
+            routes.append(lineSeparator);
+        }
+
+        ReadWrite.println(routes.toString());
+    }
+
+    private String formatRoutingTableJson(RoutingTable table) {
+        StringBuilder json = new StringBuilder(table.size() * 48).append("{\"router\":").append(id)
+                .append(",\"active\":").append(isActive()).append(",\"routes\":[");
+
+        boolean first = true;
+        for (int node = 0; node < table.size(); node++) {
+            if (table.isReachable(node)) {
+                json.append(first ? "" : ",").append("{\"destination\":");
+                ReadWrite.appendJsonString(json, table.getRouter(node).getNetworkName());
+                json.append(",\"cost\":").append(table.getRouteCost(node)).append(",\"next_hops\":[");
+                for (int path = 0; path < table.getRouteCount(node); path++) {
+                    json.append(path == 0 ? "" : ",").append(table.getRouteTo(node, path));
+                }
+                json.append("]}");
+                first = false;
+            }
+        }
+
+        json.append("],\"summaries\":[");
+        for (int summary = 0; summary < table.getSummaryCount(); summary++) {
+            json.append(summary == 0 ? "" : ",").append("{\"prefix\":\"")
+                    .append(ForwardingTable.formatPrefix(table.getSummaryPrefix(summary))).append("\",\"cost\":")
+                    .append(table.getSummaryCost(summary)).append(",\"next_hops\":[");
+            for (int path = 0; path < table.getSummaryRouteCount(summary); path++) {
+                json.append(path == 0 ? "" : ",").append(table.getSummaryRouteTo(summary, path));
+            }
+            json.append("]}");
+        }
+
+        return json.append("]}").toString();
     }
 
     public LinkStatePacket originatePacket() {
-        LinkStatePacket lsp = new LinkStatePacket(this, 10);
-        routingTable = new ConcurrentHashMap<>();
-        routePacket(-1L, lsp, true);
+        ageLinks();
+        refreshSummaries();
+
+        List<LinkChange> changes = updateLinkState(null);
+        if (!changes.isEmpty()) {
+            spfScheduler.schedule(changes, clock.getAsLong());
+        }
 
-        return lsp;
+        return new LinkStatePacket(this);
     }
 
-    public void receivePacket(Long senderId, LinkStatePacket lsp) {
-        if (!isActive() || !isValidSequence(lsp)) {
-            return;
+    public LinkStatePacket originateUpdate() {
+        ageLinks();
+
+        Map<Long, Long> changes = new HashMap<>();
+        for (ConnectionInformation info : connectivityGraph.values()) {
+            Long cost = advertised.get(info.getRouter().getId());
+            if (cost == null || cost != info.getCost()) {
+                changes.put(info.getRouter().getId(), info.getCost());
+            }
+        }
+        for (Long neighbor : advertised.keySet()) {
+            if (!connectivityGraph.containsKey(neighbor)) {
+                changes.put(neighbor, LinkChange.NO_LINK);
+            }
+        }
+
+        if (originDamping.isSuppressed()) {
+            if (!changes.isEmpty() && !changes.equals(heldChanges)) {
+                withheldPackets++;
+            }
+            heldChanges = changes;
+            changes = Collections.emptyMap();
+        } else {
+            heldChanges = Collections.emptyMap();
         }
 
-        updateNetwork(senderId, lsp);
-        routePacket(senderId, lsp, false);
+        boolean summarized = refreshSummaries();
+        boolean requested = fullRequested.getAndSet(false) || summarized;
+        boolean refresh = ++quietRounds >= lspRefreshRounds || requested;
+        if (changes.isEmpty() && !refresh) {
+            return null;
+        }
+
+        if (!changes.isEmpty()) {
+            spfScheduler.schedule(updateLinkState(null), clock.getAsLong());
+        }
+        for (Entry<Long, Long> change : changes.entrySet()) {
+            if (change.getValue() == LinkChange.NO_LINK) {
+                advertised.remove(change.getKey());
+            } else {
+                advertised.put(change.getKey(), change.getValue());
+            }
+        }
+        quietRounds = 0;
+
+        if (originationMode == OriginationMode.DELTA && !refresh && sequence.get() > 0) {
+            deltaPackets++;
+            return new LinkStatePacket(id, area, getNextSequence(), changes, Collections.emptyMap(), true);
+        }
+
+        fullPackets++;
+        return originDamping.isSuppressed()
+                ? new LinkStatePacket(id, area, getNextSequence(), advertised, advertisedPrefixes, false)
+                : new LinkStatePacket(this);
     }
 
-    private boolean isValidSequence(LinkStatePacket lsp) {
-        Long currentSequence = sequences.getOrDefault(lsp.getOriginationRouter(), -1L);
+    private void ageLinks() {
+        boolean flapped = false;
 
-        if (currentSequence >= lsp.getSequence()) {
+        round++;
+        for (ConnectionInformation info : connectivityGraph.values()) {
+            info.dampen(round);
+            if (info.incrementTick(tickAging)) {
+                flapped = true;
+                linkFailed(info.getRouter().getId());
+            }
+        }
+
+        originDamping.advance(round);
+        if (flapped) {
+            originDamping.flap();
+        }
+    }
+
+    private boolean refreshSummaries() {
+        Map<Long, Long> summaries = new HashMap<>();
+        boolean border = false;
+        boolean imported = false;
+
+        for (ConnectionInformation info : connectivityGraph.values()) {
+            Router neighbor = info.getRouter();
+            if (neighbor.getArea() == area) {
+                continue;
+            }
+
+            border = true;
+            if (info.getCost() >= ShortestPathTree.UNREACHABLE) {
+                imported |= linkStateDatabase.setPrefixes(neighbor.getId(), Collections.emptyMap());
+                continue;
+            }
+
+            if (neighbor.isActive()) {
+                imported |= linkStateDatabase.setPrefixes(neighbor.getId(), importable(neighbor.exportSummaries()));
+            }
+            for (Entry<Long, Long> prefix : linkStateDatabase.getPrefixes(neighbor.getId()).entrySet()) {
+                summaries.merge(prefix.getKey(), info.getCost() + prefix.getValue(), Math::min);
+            }
+        }
+
+        if (!border) {
             return false;
         }
 
-        sequences.put(lsp.getOriginationRouter(), lsp.getSequence());
+        if (imported) {
+            spfScheduler.schedule(Collections.emptyList(), clock.getAsLong());
+        }
 
+        if (summaries.equals(advertisedPrefixes)) {
+            return false;
+        }
+
+        advertisedPrefixes = summaries;
         return true;
     }
 
-    private void updateNetwork(Long senderId, LinkStatePacket lsp) {
-        if (connectivityGraph.containsKey(senderId)) {
-            connectivityGraph.get(senderId).resetTick();
+    private Map<Long, Long> importable(Map<Long, Long> summaries) {
+        long[] addresses = getAreaAddresses();
+        Map<Long, Long> imported = new HashMap<>();
+
+        for (Entry<Long, Long> summary : summaries.entrySet()) {
+            long first = summary.getKey() >>> Byte.SIZE;
+            long last = first + (1L << Integer.SIZE - (summary.getKey() & 0xFF)) - 1;
+            int position = Arrays.binarySearch(addresses, first);
+            position = position < 0 ? -position - 1 : position;
+
+            if (position == addresses.length || addresses[position] > last) {
+                imported.put(summary.getKey(), summary.getValue());
+            }
         }
 
-        computeRoutingTable(lsp);
+        return imported;
     }
 
-    private void computeRoutingTable(LinkStatePacket lsp) {
-        initRoutingTable(lsp);
+    private long[] getAreaAddresses() {
+        RoutingTable table = getRoutingTable();
+
+        if (table.size() != areaAddressesTableSize) {
+            long[] addresses = new long[table.size()];
+            int count = 0;
+            for (int node = 0; node < table.size(); node++) {
+                long prefix = ForwardingTable.parsePrefix(table.getRouter(node).getNetworkName());
+                if (table.getRouter(node).getArea() == area && prefix != ForwardingTable.INVALID_PREFIX) {
+                    addresses[count++] = prefix >>> Byte.SIZE;
+                }
+            }
+            areaAddresses = Arrays.copyOf(addresses, count);
+            Arrays.sort(areaAddresses);
+            areaAddressesTableSize = table.size();
+        }
 
-        Queue<RoutingInformation> nodes = new PriorityBlockingQueue<>(routingTable.values());
-        Set<Long> visitedNodes = new HashSet<>();
+        return areaAddresses;
+    }
 
-        visitedNodes.add(getId());
+    public synchronized Map<Long, Long> exportSummaries() {
+        RoutingTable table = getRoutingTable();
 
-        while (!nodes.isEmpty()) {
-            RoutingInformation closestRout = nodes.poll();
-            if (!visitedNodes.add(closestRout.getRouter().getId())) {
-                continue;
+        if (table == exportedTable) {
+            return exportedSummaries;
+        }
+
+        Map<Long, Long> routes = new HashMap<>();
+        for (int node = 0; node < table.size(); node++) {
+            long prefix = ForwardingTable.parsePrefix(table.getRouter(node).getNetworkName());
+            if (table.getRouter(node).getArea() == area && prefix != ForwardingTable.INVALID_PREFIX) {
+                routes.merge(prefix, table.isReachable(node) ? table.getRouteCost(node) : NO_COMPONENT, Math::max);
             }
+        }
 
-            computeCost(closestRout, visitedNodes);
+        Map<Long, Long> summaries = ForwardingTable.summarize(routes);
+        summaries.values().removeIf(cost -> cost == NO_COMPONENT);
+        if (area == BACKBONE) {
+            for (int summary = 0; summary < table.getSummaryCount(); summary++) {
+                summaries.putIfAbsent(table.getSummaryPrefix(summary), table.getSummaryCost(summary));
+            }
         }
+
+        exportedTable = table;
+        exportedSummaries = summaries;
+        return summaries;
     }
 
-    private void initRoutingTable(LinkStatePacket lsp) {
-        if (lsp != null) {
-            initRouterConnetivity(lsp.getOriginConnectivity(), false);
-        }
-        initRouterConnetivity(connectivityGraph.values(), true);
-        routingTable.put(getId(), new RoutingInformation(this, 0));
+    public void requestFullPacket() {
+        fullRequested.set(true);
     }
 
-    private void initRouterConnetivity(Collection<ConnectionInformation> routerConnetivity, boolean reuseCost) {
-        for (ConnectionInformation info : routerConnetivity) {
-            Long cost = reuseCost ? info.getCost() : Integer.MAX_VALUE;
-            routingTable.put(info.getRouter().getId(), new RoutingInformation(info.getRouter(), cost));
+    public boolean receiveHello(long senderId) {
+        ConnectionInformation info = connectivityGraph.get(senderId);
+
+        if (!isActive() || info == null || !info.heard(clock.getAsLong())) {
+            return false;
         }
+
+        List<LinkChange> changes = updateLinkState(null);
+        if (!changes.isEmpty()) {
+            spfScheduler.schedule(changes, clock.getAsLong());
+        }
+        return true;
     }
 
-    private void computeCost(RoutingInformation routingInformation, Set<Long> visitedNodes) {
-        Long costToCurrentRouter = routingInformation.getRouteCost();
+    public void synchronize(Router peer) {
+        if (!isActive() || !peer.isActive() || peer.getArea() != area) {
+            return;
+        }
 
-        for (ConnectionInformation value : routingInformation.getRouter().getConnectivityGraph().values()) {
-            Router node = value.getRouter();
-            RoutingInformation route = routingTable.get(node.getId());
+        if (!advertised.isEmpty() && peer.getKnownSequence(id) < sequence.get()) {
+            peer.acceptPacket(id,
+                    new LinkStatePacket(id, area, sequence.get(), advertised, advertisedPrefixes, false));
+        }
 
-            if (visitedNodes.contains(node.getId()) || route == null) {
-                continue;
+        for (Entry<Long, Long> known : sequences.entrySet()) {
+            long origin = known.getKey();
+            if (origin != id && origin != peer.getId() && !unsynchronized.contains(origin)
+                    && peer.getKnownSequence(origin) < known.getValue()) {
+                peer.acceptPacket(id, new LinkStatePacket(origin, area, known.getValue(),
+                        linkStateDatabase.getAge(origin, clock.getAsLong()), linkStateDatabase.getLinks(origin),
+                        linkStateDatabase.getPrefixes(origin), false));
             }
+        }
+    }
 
-            Long combinedCost = costToCurrentRouter + value.getCost();
+    public boolean acceptPacket(long senderId, LinkStatePacket lsp) {
+        if (!isActive()) {
+            return false;
+        }
 
-            if (route.getRouteCost() > combinedCost) {
-                route.setRouteCost(combinedCost);
-                route.setRouteTo(routingInformation.getRouteTo());
-            }
+        deliveredPackets++;
+        ConnectionInformation sender = connectivityGraph.get(senderId);
+        if (tickAging && sender != null) {
+            sender.resetTick();
+        }
+
+        if (!lsp.isValid()) {
+            metrics.recordLspInvalid();
+            return false;
+        }
+
+        if (lsp.getArea() != area) {
+            return false;
+        }
+
+        long origin = lsp.getOriginationRouter();
+        long currentSequence = sequences.getOrDefault(origin, -1L);
+        if (currentSequence >= lsp.getSequence()) {
+            metrics.recordLspStale();
+            return false;
         }
+
+        sequences.put(origin, lsp.getSequence());
+
+        if (!lsp.isDelta()) {
+            unsynchronized.remove(origin);
+        } else if (currentSequence != lsp.getSequence() - 1 || unsynchronized.contains(origin)) {
+            reportGap(origin);
+            return true;
+        }
+
+        metrics.recordLspAccepted();
+        updateNetwork(lsp);
+        return true;
     }
 
-    private void routePacket(Long senderId, LinkStatePacket lsp, boolean incrementTick) {
-        lsp.decreaseTimeToLive();
+    private void reportGap(long origin) {
+        sequenceGaps++;
+        metrics.recordLspGap();
 
-        for (ConnectionInformation info : connectivityGraph.values()) {
-            if (info.getRouter().getId() != senderId) {
-                info.incrementTick(incrementTick);
-                lsp.addReceiver(info.getRouter());
-                lsp.addSender(id);
+        if (unsynchronized.add(origin) && origin != id) {
+            Router originRouter = directory.apply(origin);
+            if (originRouter != null) {
+                originRouter.requestFullPacket();
             }
         }
     }
 
+    private void updateNetwork(LinkStatePacket lsp) {
+        spfScheduler.schedule(updateLinkState(lsp), clock.getAsLong());
+        runScheduledSpf(clock.getAsLong());
+    }
+
+    public void refreshLocalLinks() {
+        spfScheduler.schedule(updateLinkState(null), clock.getAsLong());
+        runScheduledSpf(clock.getAsLong());
+    }
+
+    public long expireLinkState(long maxAge) {
+        long now = clock.getAsLong();
+        List<LinkChange> changes = linkStateDatabase.expire(getId(), now - maxAge);
+
+        if (!changes.isEmpty()) {
+            spfScheduler.schedule(changes, now);
+            runScheduledSpf(now);
+        }
+
+        return linkStateDatabase.getOldestInstall(getId());
+    }
+
+    public void runScheduledSpf(long now) {
+        List<LinkChange> changes = spfScheduler.poll(now);
+
+        if (changes != null) {
+            runSpf(changes);
+        }
+    }
+
+    public void flushScheduledSpf() {
+        List<LinkChange> changes = spfScheduler.drain(clock.getAsLong());
+
+        if (changes != null) {
+            runSpf(changes);
+        }
+    }
+
+    private void refreshRoutingTable() {
+        if (shortestPathTree.getRoutingTable().getVersion() == 0) {
+            computeRoutingTable(null);
+        }
+        flushScheduledSpf();
+    }
+
+    private void computeRoutingTable(LinkStatePacket lsp) {
+        runSpf(updateLinkState(lsp));
+    }
+
+    private void runSpf(List<LinkChange> changes) {
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+
+        shortestPathTree.compute(spfMode, changes);
+        installedRoutes = null;
+
+        if (metrics.isEnabled()) {
+            metrics.recordSpf(System.nanoTime() - start);
+        }
+        if (failureDetected >= 0) {
+            metrics.recordSpfRepair(System.nanoTime() - failureDetected);
+            failureDetected = -1;
+        }
+        if (!routePublishers.isEmpty()) {
+            publishRouteEvents();
+        }
+    }
+
+    private void publishRouteEvents() {
+        List<RouteEvent> events = shortestPathTree.drainRouteEvents();
+
+        if (events.isEmpty()) {
+            return;
+        }
+
+        routeEventCount += events.size();
+        RouteUpdate update = new RouteUpdate(id, getRoutingTable().getVersion(), ++routeBatches, events);
+        for (RouteEventPublisher publisher : routePublishers) {
+            publisher.publish(update);
+        }
+    }
+
+    private List<LinkChange> updateLinkState(LinkStatePacket lsp) {
+        long now = clock.getAsLong();
+        List<LinkChange> changes = new ArrayList<>(
+                linkStateDatabase.update(getId(), connectivityGraph.values(), now));
+
+        if (lsp != null) {
+            changes.addAll(linkStateDatabase.update(lsp, directory, now));
+        }
+
+        return changes;
+    }
+
     @Override
     public int hashCode() {
         return Long.hashCode(id);
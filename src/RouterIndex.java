@@ -0,0 +1,102 @@
+import java.util.Arrays;
+
+public class RouterIndex {
+
+    private static final int EMPTY = -1;
+
+    private static final int INITIAL_CAPACITY = 2;
+
+    private long[] keys;
+
+    private int[] slots;
+
+    private int mask;
+
+    private long[] ids;
+
+    private Router[] routers;
+
+    private int size;
+
+    public RouterIndex() {
+        keys = new long[INITIAL_CAPACITY * 2];
+        slots = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(slots, EMPTY);
+        mask = slots.length - 1;
+        ids = new long[INITIAL_CAPACITY];
+        routers = new Router[INITIAL_CAPACITY];
+    }
+
+    public synchronized int intern(Router router) {
+        int index = indexOf(router.getId());
+
+        if (index != EMPTY) {
+            return index;
+        }
+
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            routers = Arrays.copyOf(routers, size * 2);
+            rehash(slots.length * 2);
+        }
+
+        index = size++;
+        ids[index] = router.getId();
+        routers[index] = router;
+        insert(router.getId(), index);
+
+        return index;
+    }
+
+    public int indexOf(long id) {
+        int slot = hash(id) & mask;
+
+        while (slots[slot] != EMPTY) {
+            if (keys[slot] == id) {
+                return slots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return EMPTY;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public Router getRouter(int index) {
+        return routers[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void insert(long id, int index) {
+        int slot = hash(id) & mask;
+
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = id;
+        slots[slot] = index;
+    }
+
+    private void rehash(int capacity) {
+        keys = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        mask = capacity - 1;
+
+        for (int index = 0; index < size; index++) {
+            insert(ids[index], index);
+        }
+    }
+
+    private static int hash(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
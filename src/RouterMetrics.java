@@ -0,0 +1,163 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RouterMetrics {
+
+    public static final RouterMetrics DISABLED = new RouterMetrics(false);
+
+    private final boolean enabled;
+
+    private final LongAdder lspReceived;
+
+    private final LongAdder lspAccepted;
+
+    private final LongAdder lspStale;
+
+    private final LongAdder lspInvalid;
+
+    private final LatencyHistogram spfLatency;
+
+    private final LatencyHistogram failoverLatency;
+
+    private final LatencyHistogram spfRepairLatency;
+
+    private final LongAdder packetsForwarded;
+
+    private final LongAdder packetsDropped;
+
+    private final AtomicInteger mailboxDepth;
+
+    private final AtomicLong mailboxPeak;
+
+    public RouterMetrics() {
+        this(true);
+    }
+
+    private RouterMetrics(boolean enable) {
+        enabled = enable;
+        lspReceived = enable ? new LongAdder() : null;
+        lspAccepted = enable ? new LongAdder() : null;
+        lspStale = enable ? new LongAdder() : null;
+        lspInvalid = enable ? new LongAdder() : null;
+        spfLatency = enable ? new LatencyHistogram() : null;
+        failoverLatency = enable ? new LatencyHistogram() : null;
+        spfRepairLatency = enable ? new LatencyHistogram() : null;
+        packetsForwarded = enable ? new LongAdder() : null;
+        packetsDropped = enable ? new LongAdder() : null;
+        mailboxDepth = enable ? new AtomicInteger() : null;
+        mailboxPeak = enable ? new AtomicLong() : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordLspAccepted() {
+        if (enabled) {
+            lspReceived.increment();
+            lspAccepted.increment();
+        }
+    }
+
+    public void recordLspStale() {
+        if (enabled) {
+            lspReceived.increment();
+            lspStale.increment();
+        }
+    }
+
+    public void recordLspInvalid() {
+        if (enabled) {
+            lspReceived.increment();
+            lspInvalid.increment();
+        }
+    }
+
+    public void recordLspGap() {
+        if (enabled) {
+            lspReceived.increment();
+        }
+    }
+
+    public void recordSpf(long nanos) {
+        if (enabled) {
+            spfLatency.record(nanos);
+        }
+    }
+
+    public void recordFailover(long nanos) {
+        if (enabled) {
+            failoverLatency.record(nanos);
+        }
+    }
+
+    public void recordSpfRepair(long nanos) {
+        if (enabled) {
+            spfRepairLatency.record(nanos);
+        }
+    }
+
+    public void recordPackets(long forwarded, long dropped) {
+        if (enabled) {
+            packetsForwarded.add(forwarded);
+            packetsDropped.add(dropped);
+        }
+    }
+
+    public void recordMailboxOffer() {
+        if (enabled) {
+            mailboxPeak.accumulateAndGet(mailboxDepth.incrementAndGet(), Math::max);
+        }
+    }
+
+    public void recordMailboxPoll() {
+        if (enabled) {
+            mailboxDepth.decrementAndGet();
+        }
+    }
+
+    public long getLspReceived() {
+        return enabled ? lspReceived.sum() : 0;
+    }
+
+    public long getLspAccepted() {
+        return enabled ? lspAccepted.sum() : 0;
+    }
+
+    public long getLspStale() {
+        return enabled ? lspStale.sum() : 0;
+    }
+
+    public long getLspInvalid() {
+        return enabled ? lspInvalid.sum() : 0;
+    }
+
+    public LatencyHistogram getSpfLatency() {
+        return enabled ? spfLatency : new LatencyHistogram();
+    }
+
+    public LatencyHistogram getFailoverLatency() {
+        return enabled ? failoverLatency : new LatencyHistogram();
+    }
+
+    public LatencyHistogram getSpfRepairLatency() {
+        return enabled ? spfRepairLatency : new LatencyHistogram();
+    }
+
+    public long getPacketsForwarded() {
+        return enabled ? packetsForwarded.sum() : 0;
+    }
+
+    public long getPacketsDropped() {
+        return enabled ? packetsDropped.sum() : 0;
+    }
+
+    public long getMailboxDepth() {
+        return enabled ? mailboxDepth.get() : 0;
+    }
+
+    public long getMailboxPeak() {
+        return enabled ? mailboxPeak.get() : 0;
+    }
+}
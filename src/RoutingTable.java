@@ -0,0 +1,205 @@
+import java.util.Arrays;
+
+public final class RoutingTable {
+
+    private static final int NO_ROUTE = -1;
+
+    private static final long[] NO_SUMMARIES = new long[0];
+
+    private static final int[] NO_SUMMARY_COSTS = new int[0];
+
+    private static final int[] NO_SUMMARY_OFFSETS = new int[] { 0 };
+
+    private final Router[] routers;
+
+    private final long[] ids;
+
+    private final int source;
+
+    private final long version;
+
+    private final int[] costs;
+
+    private final int[] nextHops;
+
+    private final int[] pathOffsets;
+
+    private final int[] paths;
+
+    private final long[] summaryPrefixes;
+
+    private final int[] summaryCosts;
+
+    private final int[] summaryOffsets;
+
+    private final long[] summaryHops;
+
+    public RoutingTable(TopologySnapshot snapshot, int sourceNode, long[] distances, long[] nextHopNodes) {
+        routers = snapshot.getRouters();
+        ids = snapshot.getIds();
+        source = sourceNode;
+        version = 0;
+        costs = new int[snapshot.size()];
+        nextHops = new int[snapshot.size()];
+        pathOffsets = null;
+        paths = null;
+        summaryPrefixes = NO_SUMMARIES;
+        summaryCosts = NO_SUMMARY_COSTS;
+        summaryOffsets = NO_SUMMARY_OFFSETS;
+        summaryHops = NO_SUMMARIES;
+
+        for (int node = 0; node < costs.length; node++) {
+            boolean reachable = distances[node] < ShortestPathTree.UNREACHABLE;
+            costs[node] = (int) (reachable ? distances[node] : ShortestPathTree.UNREACHABLE);
+            nextHops[node] = reachable ? (int) nextHopNodes[node] : NO_ROUTE;
+        }
+    }
+
+    RoutingTable(Router[] sortedRouters, long[] sortedIds, int sourceNode, long tableVersion, int[] routeCosts,
+            int[] routeNextHops, int[] equalCostOffsets, int[] equalCostPaths) {
+        routers = sortedRouters;
+        ids = sortedIds;
+        source = sourceNode;
+        version = tableVersion;
+        costs = routeCosts;
+        nextHops = routeNextHops;
+        pathOffsets = equalCostOffsets;
+        paths = equalCostPaths;
+        summaryPrefixes = NO_SUMMARIES;
+        summaryCosts = NO_SUMMARY_COSTS;
+        summaryOffsets = NO_SUMMARY_OFFSETS;
+        summaryHops = NO_SUMMARIES;
+    }
+
+    private RoutingTable(RoutingTable table, long[] prefixes, int[] prefixCosts, int[] prefixOffsets,
+            long[] prefixHops) {
+        routers = table.routers;
+        ids = table.ids;
+        source = table.source;
+        version = table.version;
+        costs = table.costs;
+        nextHops = table.nextHops;
+        pathOffsets = table.pathOffsets;
+        paths = table.paths;
+        summaryPrefixes = prefixes;
+        summaryCosts = prefixCosts;
+        summaryOffsets = prefixOffsets;
+        summaryHops = prefixHops;
+    }
+
+    RoutingTable withSummaries(long[] prefixes, int[] prefixCosts, int[] prefixOffsets, long[] prefixHops) {
+        return new RoutingTable(this, prefixes, prefixCosts, prefixOffsets, prefixHops);
+    }
+
+    public Router getSource() {
+        return routers[source];
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return costs.length;
+    }
+
+    public Router getRouter(int node) {
+        return routers[node];
+    }
+
+    public long getId(int node) {
+        return ids[node];
+    }
+
+    public int indexOf(long id) {
+        int node = Arrays.binarySearch(ids, id);
+        return node >= 0 ? node : -1;
+    }
+
+    public boolean isReachable(int node) {
+        return nextHops[node] != NO_ROUTE;
+    }
+
+    public long getRouteCost(int node) {
+        return costs[node];
+    }
+
+    public long getRouteTo(int node) {
+        return ids[isReachable(node) ? nextHops[node] : node];
+    }
+
+    public int getRouteCount(int node) {
+        return pathOffsets == null ? 1 : 1 + pathOffsets[node + 1] - pathOffsets[node];
+    }
+
+    public long getRouteTo(int node, int path) {
+        return path == 0 ? getRouteTo(node) : ids[paths[pathOffsets[node] + path - 1]];
+    }
+
+    public boolean hasSameRoute(int node, RoutingTable other, int otherNode) {
+        if (costs[node] != other.costs[otherNode] || getRouteCount(node) != other.getRouteCount(otherNode)) {
+            return false;
+        }
+
+        for (int path = 0; path < getRouteCount(node); path++) {
+            if (getRouteTo(node, path) != other.getRouteTo(otherNode, path)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getSummaryCount() {
+        return summaryPrefixes.length;
+    }
+
+    public long getSummaryPrefix(int summary) {
+        return summaryPrefixes[summary];
+    }
+
+    public long getSummaryCost(int summary) {
+        return summaryCosts[summary];
+    }
+
+    public int getSummaryRouteCount(int summary) {
+        return summaryOffsets[summary + 1] - summaryOffsets[summary];
+    }
+
+    public long getSummaryRouteTo(int summary, int path) {
+        return summaryHops[summaryOffsets[summary] + path];
+    }
+
+    public int indexOfSummary(long prefix) {
+        int summary = Arrays.binarySearch(summaryPrefixes, prefix);
+        return summary >= 0 ? summary : -1;
+    }
+
+    public int findSummary(int address) {
+        int match = -1;
+
+        for (int summary = 0; summary < summaryPrefixes.length; summary++) {
+            if (ForwardingTable.covers(summaryPrefixes[summary], address)
+                    && (match < 0 || (summaryPrefixes[summary] & 0xFF) > (summaryPrefixes[match] & 0xFF))) {
+                match = summary;
+            }
+        }
+
+        return match;
+    }
+
+    public boolean hasSameSummary(int summary, RoutingTable other, int otherSummary) {
+        if (summaryCosts[summary] != other.summaryCosts[otherSummary]
+                || getSummaryRouteCount(summary) != other.getSummaryRouteCount(otherSummary)) {
+            return false;
+        }
+
+        for (int path = 0; path < getSummaryRouteCount(summary); path++) {
+            if (getSummaryRouteTo(summary, path) != other.getSummaryRouteTo(otherSummary, path)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,31 @@
+public class ScheduledEvent {
+
+    private final long deadline;
+
+    private final Runnable action;
+
+    private boolean cancelled;
+
+    public ScheduledEvent(long deadlineTime, Runnable eventAction) {
+        deadline = deadlineTime;
+        action = eventAction;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void fire() {
+        if (!cancelled) {
+            action.run();
+        }
+    }
+}
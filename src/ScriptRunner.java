@@ -0,0 +1,111 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+public class ScriptRunner {
+
+    private static final String EVENT = "@";
+
+    private static final String COMMENT = "#";
+
+    private static final Pattern ROUND = Pattern.compile("\\d{1,18}");
+
+    private static final Pattern ROUND_COMMAND = Pattern.compile("(?i)[cq]\\b.*");
+
+    private final VirtualNetwork network;
+
+    private final TreeMap<Long, List<String[]>> events;
+
+    private long rounds;
+
+    private long pendingEvents;
+
+    public ScriptRunner(VirtualNetwork virtualNetwork) {
+        network = virtualNetwork;
+        events = new TreeMap<>();
+    }
+
+    public void run(BufferedReader script) throws IOException {
+        long start = System.nanoTime();
+        long lineNumber = 0;
+        long commands = 0;
+        String line;
+
+        while ((line = script.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(COMMENT)) {
+                continue;
+            }
+
+            if (line.startsWith(EVENT)) {
+                commands += schedule(line, lineNumber) ? 1 : 0;
+                continue;
+            }
+
+            if (!ReadWrite.isCommand(line)) {
+                ReadWrite.printError(String.format("Invalid input at line %s : %s", lineNumber, line));
+                continue;
+            }
+
+            String[] command = line.split("\\s+");
+            if ("Q".equalsIgnoreCase(command[0])) {
+                break;
+            }
+
+            if ("C".equalsIgnoreCase(command[0])) {
+                runRounds(command.length > 1 ? Long.parseLong(command[1]) : 1);
+            } else {
+                Application.execute(network, command);
+            }
+            commands++;
+        }
+
+        if (pendingEvents > 0) {
+            ReadWrite.print(String.format("%s scheduled events after round %s were not run.", pendingEvents, rounds));
+        }
+        ReadWrite.print(String.format("Script completed : %s commands over %s rounds in %s ms.", commands, rounds,
+                (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private boolean schedule(String line, long lineNumber) {
+        String[] event = line.substring(EVENT.length()).trim().split("\\s+", 2);
+
+        if (event.length < 2 || !ROUND.matcher(event[0]).matches() || !ReadWrite.isCommand(event[1])
+                || ROUND_COMMAND.matcher(event[1]).matches()) {
+            ReadWrite.printError(String.format("Invalid event at line %s : %s", lineNumber, line));
+            return false;
+        }
+
+        long round = Long.parseLong(event[0]);
+        String[] command = event[1].split("\\s+");
+        if (round <= rounds) {
+            Application.execute(network, command);
+        } else {
+            events.computeIfAbsent(round, k -> new ArrayList<>()).add(command);
+            pendingEvents++;
+        }
+
+        return true;
+    }
+
+    private void runRounds(long count) {
+        for (long round = 0; round < count; round++) {
+            network.sendPacket();
+            rounds++;
+            runEvents();
+        }
+    }
+
+    private void runEvents() {
+        while (!events.isEmpty() && events.firstKey() <= rounds) {
+            for (String[] command : events.pollFirstEntry().getValue()) {
+                Application.execute(network, command);
+                pendingEvents--;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+public final class ShardProtocol {
+
+    public static final byte REGISTER = 1;
+
+    public static final byte TOPOLOGY = 2;
+
+    public static final byte READY = 3;
+
+    public static final byte ROUND = 4;
+
+    public static final byte HELLO = 5;
+
+    public static final byte STEP = 6;
+
+    public static final byte STEP_DONE = 7;
+
+    public static final byte END_ROUND = 8;
+
+    public static final byte ROUND_DONE = 9;
+
+    public static final byte SWITCH = 10;
+
+    public static final byte PRINT = 11;
+
+    public static final byte OUTPUT = 12;
+
+    public static final byte SHUTDOWN = 13;
+
+    public static final int FRAME_HEADER = Integer.BYTES;
+
+    private static final int MAX_FRAME = Integer.MAX_VALUE - FRAME_HEADER;
+
+    private ShardProtocol() {
+
+    }
+
+    public static InetSocketAddress loopback(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    public static ByteBuffer message(byte type, int payload) {
+        return ByteBuffer.allocate(1 + payload).put(type);
+    }
+
+    public static void write(SocketChannel channel, ByteBuffer frame) throws IOException {
+        frame.flip();
+        ByteBuffer[] buffers = { ByteBuffer.allocate(FRAME_HEADER).putInt(0, frame.remaining()), frame };
+
+        while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    public static ByteBuffer read(SocketChannel channel) throws IOException {
+        ByteBuffer header = readFully(channel, ByteBuffer.allocate(FRAME_HEADER));
+        int length = header.getInt(0);
+
+        if (length < 0 || length > MAX_FRAME) {
+            throw new IOException(String.format("Invalid frame length : %s", length));
+        }
+
+        ByteBuffer frame = readFully(channel, ByteBuffer.allocate(length));
+        frame.flip();
+        return frame;
+    }
+
+    public static ByteBuffer expect(SocketChannel channel, byte type) throws IOException {
+        ByteBuffer frame = read(channel);
+        byte received = frame.get();
+
+        if (received != type) {
+            throw new IOException(String.format("Unexpected message %s, expected %s", received, type));
+        }
+
+        return frame;
+    }
+
+    private static ByteBuffer readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed");
+            }
+        }
+        return buffer;
+    }
+}
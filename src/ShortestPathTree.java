@@ -0,0 +1,721 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class ShortestPathTree {
+
+    public static final long UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final double FULL_RUN_THRESHOLD = 0.25;
+
+    private static final int NONE = -1;
+
+    private static final int ROOT = 0;
+
+    private final LinkStateDatabase database;
+
+    private final TopologyGraph graph;
+
+    private final IndexedHeap heap;
+
+    private final ForwardingTable forwardingTable;
+
+    private final Map<Long, Integer> summarySlots;
+
+    private volatile RoutingTable routingTable;
+
+    private Router[] destinations;
+
+    private long[] destinationIds;
+
+    private int[] positions;
+
+    private int[] nodesAt;
+
+    private long[] distances;
+
+    private long[] nextHops;
+
+    private int[] forwardingSlots;
+
+    private long[] pathHops;
+
+    private int[] pathCounts;
+
+    private long[] order;
+
+    private int maxPaths;
+
+    private int[] parents;
+
+    private int[] marks;
+
+    private int[] firstChild;
+
+    private int[] nextSibling;
+
+    private int[] stack;
+
+    private int[] decreases;
+
+    private int mark;
+
+    private int nodeCount;
+
+    private long fullRuns;
+
+    private long incrementalRuns;
+
+    private long routeChanges;
+
+    private boolean alternates;
+
+    private long[] alternateDistances;
+
+    private long[] rootLinkCosts;
+
+    private long[] backupHops;
+
+    private long[] backupCosts;
+
+    private boolean[] nodeProtecting;
+
+    private int protectedRoutes;
+
+    private int nodeProtectedRoutes;
+
+    private boolean recordingEvents;
+
+    private List<RouteEvent> routeEvents;
+
+    public ShortestPathTree(LinkStateDatabase linkStateDatabase) {
+        database = linkStateDatabase;
+        graph = new TopologyGraph();
+        heap = new IndexedHeap();
+        forwardingTable = new ForwardingTable(Long.hashCode(database.getIndex().getId(ROOT)));
+        summarySlots = new HashMap<>();
+        destinations = new Router[] { database.getIndex().getRouter(ROOT) };
+        destinationIds = new long[] { database.getIndex().getId(ROOT) };
+        positions = new int[] { ROOT };
+        nodesAt = new int[] { ROOT };
+        routingTable = new RoutingTable(destinations, destinationIds, ROOT, 0, new int[] { (int) UNREACHABLE },
+                new int[] { NONE }, null, null);
+        distances = new long[0];
+        nextHops = new long[0];
+        forwardingSlots = new int[0];
+        pathHops = new long[0];
+        pathCounts = new int[0];
+        order = new long[0];
+        maxPaths = 1;
+        parents = new int[0];
+        marks = new int[0];
+        firstChild = new int[0];
+        nextSibling = new int[0];
+        stack = new int[0];
+        decreases = new int[0];
+        alternateDistances = new long[0];
+        rootLinkCosts = new long[0];
+        backupHops = new long[0];
+        backupCosts = new long[0];
+        nodeProtecting = new boolean[0];
+        routeEvents = new ArrayList<>();
+    }
+
+    public RoutingTable getRoutingTable() {
+        return routingTable;
+    }
+
+    public ForwardingTable getForwardingTable() {
+        return forwardingTable;
+    }
+
+    public TopologyGraph getTopologyGraph() {
+        return graph;
+    }
+
+    public synchronized int getMaxPaths() {
+        return maxPaths;
+    }
+
+    public synchronized void setMaxPaths(int paths) {
+        maxPaths = Math.max(1, paths);
+    }
+
+    public synchronized boolean hasAlternates() {
+        return alternates;
+    }
+
+    public synchronized void setAlternates(boolean enable) {
+        alternates = enable;
+    }
+
+    public synchronized int getProtectedRoutes() {
+        return protectedRoutes;
+    }
+
+    public synchronized int getNodeProtectedRoutes() {
+        return nodeProtectedRoutes;
+    }
+
+    public synchronized void setRouteEvents(boolean record) {
+        recordingEvents = record;
+        routeEvents = new ArrayList<>();
+    }
+
+    public synchronized List<RouteEvent> drainRouteEvents() {
+        List<RouteEvent> events = routeEvents;
+        routeEvents = new ArrayList<>();
+        return events;
+    }
+
+    public long getFullRuns() {
+        return fullRuns;
+    }
+
+    public long getIncrementalRuns() {
+        return incrementalRuns;
+    }
+
+    public long getRouteChanges() {
+        return routeChanges;
+    }
+
+    public synchronized void compute(SpfMode mode, List<LinkChange> changes) {
+        boolean initialized = nodeCount > 0;
+        int previousCount = nodeCount;
+
+        if (!graph.isCurrent(database.getStructureVersion())) {
+            graph.rebuild(database);
+        } else {
+            patchCosts(changes);
+        }
+        grow(graph.getNodeCount(), previousCount);
+
+        if (mode == SpfMode.INCREMENTAL && initialized) {
+            computeIncremental(changes);
+        } else {
+            computeFull();
+        }
+
+        if (maxPaths > 1) {
+            computeEqualCostPaths();
+        }
+        if (alternates) {
+            computeAlternates();
+        }
+
+        publish(previousCount);
+    }
+
+    private void patchCosts(List<LinkChange> changes) {
+        RouterIndex index = database.getIndex();
+
+        for (LinkChange change : changes) {
+            graph.updateCost(index.indexOf(change.getOrigin()), index.indexOf(change.getNeighbor()),
+                    change.getNewCost());
+        }
+    }
+
+    private void computeFull() {
+        fullRuns++;
+
+        for (int node = 0; node < nodeCount; node++) {
+            reset(node);
+        }
+
+        distances[ROOT] = 0;
+        heap.reset(distances, nextHops, nodeCount);
+        heap.insertOrDecrease(ROOT);
+
+        settle();
+    }
+
+    private void computeIncremental(List<LinkChange> changes) {
+        RouterIndex index = database.getIndex();
+        int rootCount = 0;
+        int decreaseCount = 0;
+
+        mark++;
+        for (LinkChange change : changes) {
+            int origin = index.indexOf(change.getOrigin());
+            int neighbor = index.indexOf(change.getNeighbor());
+
+            if (origin < 0 || neighbor < 0) {
+                continue;
+            }
+
+            if (change.isIncrease() && parents[neighbor] == origin && marks[neighbor] != mark) {
+                marks[neighbor] = mark;
+                stack[rootCount++] = neighbor;
+            } else if (change.isDecrease()) {
+                decreases = ensureCapacity(decreases, (decreaseCount + 1) * 2);
+                decreases[decreaseCount++] = origin;
+                decreases[decreaseCount++] = neighbor;
+            }
+        }
+
+        if (rootCount == 0 && decreaseCount == 0) {
+            return;
+        }
+
+        int affectedCount = markSubtrees(rootCount);
+
+        if (affectedCount + decreaseCount / 2 > nodeCount * FULL_RUN_THRESHOLD) {
+            computeFull();
+            return;
+        }
+
+        incrementalRuns++;
+        heap.reset(distances, nextHops, nodeCount);
+
+        for (int i = 0; i < affectedCount; i++) {
+            reset(stack[i]);
+        }
+
+        for (int i = 0; i < affectedCount; i++) {
+            int node = stack[i];
+            for (int edge = graph.getReverseStart(node); edge < graph.getReverseEnd(node); edge++) {
+                int source = graph.getReverseSource(edge);
+                if (marks[source] != mark) {
+                    relax(source, node, graph.getCost(graph.getReverseEdge(edge)));
+                }
+            }
+        }
+
+        for (int i = 0; i < decreaseCount; i += 2) {
+            int origin = decreases[i];
+            int edge = graph.findEdge(origin, decreases[i + 1]);
+            if (marks[origin] != mark && edge >= 0) {
+                relax(origin, decreases[i + 1], graph.getCost(edge));
+            }
+        }
+
+        settle();
+    }
+
+    private int markSubtrees(int rootCount) {
+        if (rootCount == 0) {
+            return 0;
+        }
+
+        Arrays.fill(firstChild, 0, nodeCount, NONE);
+        for (int node = 0; node < nodeCount; node++) {
+            if (parents[node] != NONE) {
+                nextSibling[node] = firstChild[parents[node]];
+                firstChild[parents[node]] = node;
+            }
+        }
+
+        int count = rootCount;
+        for (int i = 0; i < count; i++) {
+            for (int child = firstChild[stack[i]]; child != NONE; child = nextSibling[child]) {
+                if (marks[child] != mark) {
+                    marks[child] = mark;
+                    stack[count++] = child;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private void settle() {
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+
+            if (distances[node] >= UNREACHABLE) {
+                continue;
+            }
+
+            for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++) {
+                relax(node, graph.getTarget(edge), graph.getCost(edge));
+            }
+        }
+    }
+
+    private void relax(int from, int to, long linkCost) {
+        if (distances[from] >= UNREACHABLE) {
+            return;
+        }
+
+        long combinedCost = distances[from] + linkCost;
+        long routeTo = from == ROOT ? database.getIndex().getId(to) : nextHops[from];
+
+        if (combinedCost < distances[to]
+                || (combinedCost == distances[to] && combinedCost < UNREACHABLE && routeTo < nextHops[to])) {
+            distances[to] = combinedCost;
+            nextHops[to] = routeTo;
+            parents[to] = from;
+            heap.insertOrDecrease(to);
+        }
+    }
+
+    private void computeAlternates() {
+        RouterIndex index = database.getIndex();
+        alternateDistances = ensureCapacity(alternateDistances, nodeCount);
+        rootLinkCosts = ensureCapacity(rootLinkCosts, nodeCount);
+        backupHops = ensureCapacity(backupHops, nodeCount);
+        backupCosts = ensureCapacity(backupCosts, nodeCount);
+        if (nodeProtecting.length < nodeCount) {
+            nodeProtecting = new boolean[alternateDistances.length];
+        }
+
+        Arrays.fill(rootLinkCosts, 0, nodeCount, UNREACHABLE);
+        Arrays.fill(backupHops, 0, nodeCount, ForwardingTable.NO_ROUTE);
+        Arrays.fill(backupCosts, 0, nodeCount, UNREACHABLE);
+        Arrays.fill(nodeProtecting, 0, nodeCount, false);
+        for (int edge = graph.getEdgeStart(ROOT); edge < graph.getEdgeEnd(ROOT); edge++) {
+            rootLinkCosts[graph.getTarget(edge)] = Math.min(rootLinkCosts[graph.getTarget(edge)], graph.getCost(edge));
+        }
+
+        for (int edge = graph.getEdgeStart(ROOT); edge < graph.getEdgeEnd(ROOT); edge++) {
+            int neighbor = graph.getTarget(edge);
+            if (neighbor == ROOT || graph.getCost(edge) >= UNREACHABLE) {
+                continue;
+            }
+
+            settleFrom(neighbor);
+            long neighborId = index.getId(neighbor);
+            long toRoot = alternateDistances[ROOT];
+            for (int node = 0; node < nodeCount; node++) {
+                long viaNeighbor = alternateDistances[node];
+                if (node == ROOT || distances[node] >= UNREACHABLE || nextHops[node] == neighborId
+                        || viaNeighbor >= UNREACHABLE || viaNeighbor >= toRoot + distances[node]) {
+                    continue;
+                }
+
+                int primary = index.indexOf(nextHops[node]);
+                boolean protecting = primary != node && alternateDistances[primary] < UNREACHABLE
+                        && viaNeighbor < alternateDistances[primary] + distances[node] - rootLinkCosts[primary];
+                long cost = graph.getCost(edge) + viaNeighbor;
+                if (protecting != nodeProtecting[node] ? protecting
+                        : cost < backupCosts[node] || (cost == backupCosts[node] && neighborId < backupHops[node])) {
+                    backupHops[node] = neighborId;
+                    backupCosts[node] = cost;
+                    nodeProtecting[node] = protecting;
+                }
+            }
+        }
+
+        protectedRoutes = 0;
+        nodeProtectedRoutes = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            protectedRoutes += backupHops[node] != ForwardingTable.NO_ROUTE ? 1 : 0;
+            nodeProtectedRoutes += nodeProtecting[node] ? 1 : 0;
+        }
+    }
+
+    private void settleFrom(int source) {
+        Arrays.fill(alternateDistances, 0, nodeCount, UNREACHABLE);
+        alternateDistances[source] = 0;
+        heap.reset(alternateDistances, alternateDistances, nodeCount);
+        heap.insertOrDecrease(source);
+
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+
+            for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++) {
+                int target = graph.getTarget(edge);
+                long cost = alternateDistances[node] + graph.getCost(edge);
+                if (cost < UNREACHABLE && cost < alternateDistances[target]) {
+                    alternateDistances[target] = cost;
+                    heap.insertOrDecrease(target);
+                }
+            }
+        }
+    }
+
+    private void computeEqualCostPaths() {
+        if (pathHops.length < nodeCount * maxPaths) {
+            pathHops = new long[Math.max(nodeCount * maxPaths, pathHops.length * 2)];
+        }
+        pathCounts = ensureCapacity(pathCounts, nodeCount);
+        if (order.length < nodeCount) {
+            order = new long[distances.length];
+        }
+
+        int reachable = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            pathCounts[node] = 0;
+            if (distances[node] < UNREACHABLE) {
+                order[reachable++] = distances[node] << Integer.SIZE | node;
+            } else {
+                addPath(node, nextHops[node]);
+            }
+        }
+        Arrays.sort(order, 0, reachable);
+
+        RouterIndex index = database.getIndex();
+        for (int i = 0; i < reachable; i++) {
+            int node = (int) order[i];
+
+            if (node == ROOT) {
+                addPath(node, nextHops[node]);
+                continue;
+            }
+
+            for (int edge = graph.getReverseStart(node); edge < graph.getReverseEnd(node); edge++) {
+                int source = graph.getReverseSource(edge);
+                if (distances[source] >= UNREACHABLE
+                        || distances[source] + graph.getCost(graph.getReverseEdge(edge)) != distances[node]) {
+                    continue;
+                }
+
+                if (source == ROOT) {
+                    addPath(node, index.getId(node));
+                } else {
+                    for (int path = 0; path < pathCounts[source]; path++) {
+                        addPath(node, pathHops[source * maxPaths + path]);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addPath(int node, long hop) {
+        int offset = node * maxPaths;
+        int count = pathCounts[node];
+        int position = count;
+
+        while (position > 0 && pathHops[offset + position - 1] > hop) {
+            position--;
+        }
+
+        if ((position > 0 && pathHops[offset + position - 1] == hop) || position == maxPaths) {
+            return;
+        }
+
+        int last = Math.min(count, maxPaths - 1);
+        System.arraycopy(pathHops, offset + position, pathHops, offset + position + 1, last - position);
+        pathHops[offset + position] = hop;
+        pathCounts[node] = last + 1;
+    }
+
+    private void reset(int node) {
+        distances[node] = UNREACHABLE;
+        nextHops[node] = database.getIndex().getId(node);
+        parents[node] = NONE;
+    }
+
+    private void grow(int count, int previousCount) {
+        if (distances.length < count) {
+            int capacity = Math.max(count, distances.length * 2);
+            distances = Arrays.copyOf(distances, capacity);
+            nextHops = Arrays.copyOf(nextHops, capacity);
+            forwardingSlots = Arrays.copyOf(forwardingSlots, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            marks = Arrays.copyOf(marks, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            stack = Arrays.copyOf(stack, capacity);
+        }
+
+        nodeCount = count;
+        for (int node = previousCount; node < count; node++) {
+            reset(node);
+        }
+    }
+
+    private void publish(int previousCount) {
+        RouterIndex index = database.getIndex();
+        RoutingTable previous = routingTable;
+
+        for (int node = previousCount; node < nodeCount; node++) {
+            forwardingSlots[node] = forwardingTable.register(index.getRouter(node).getNetworkName());
+        }
+
+        if (destinations.length != nodeCount) {
+            sortDestinations(index);
+        }
+
+        boolean multipath = maxPaths > 1;
+        long[] hops = multipath ? pathHops : nextHops;
+        int extraPaths = 0;
+        for (int node = 0; multipath && node < nodeCount; node++) {
+            extraPaths += distances[node] < UNREACHABLE ? pathCounts[node] - 1 : 0;
+        }
+
+        int[] costs = new int[nodeCount];
+        int[] firstHops = new int[nodeCount];
+        int[] offsets = extraPaths == 0 ? null : new int[nodeCount + 1];
+        int[] paths = extraPaths == 0 ? null : new int[extraPaths];
+        int path = 0;
+        for (int position = 0; position < nodeCount; position++) {
+            int node = nodesAt[position];
+            int offset = multipath ? node * maxPaths : node;
+            int count = distances[node] >= UNREACHABLE ? 0 : multipath ? pathCounts[node] : 1;
+
+            costs[position] = (int) Math.min(distances[node], UNREACHABLE);
+            firstHops[position] = count == 0 ? NONE : positions[index.indexOf(hops[offset])];
+            for (int extra = 1; extra < count; extra++) {
+                paths[path++] = positions[index.indexOf(hops[offset + extra])];
+            }
+            if (offsets != null) {
+                offsets[position + 1] = path;
+            }
+        }
+
+        RoutingTable current = new RoutingTable(destinations, destinationIds, positions[ROOT],
+                previous.getVersion() + 1, costs, firstHops, offsets, paths);
+        boolean grown = previous.size() != nodeCount;
+        boolean changed = grown;
+
+        for (int position = 0; position < nodeCount; position++) {
+            int previousPosition = grown ? previous.indexOf(destinationIds[position]) : position;
+            int node = nodesAt[position];
+            boolean routeChanged = previousPosition < 0 ? current.isReachable(position)
+                    : !current.hasSameRoute(position, previous, previousPosition);
+
+            if (routeChanged) {
+                changed = true;
+                routeChanges++;
+                if (recordingEvents) {
+                    routeEvents.add(RouteEvent.between(previous, previousPosition, current, position));
+                }
+            }
+            if (routeChanged || forwardingTable.isFailedOver(forwardingSlots[node])) {
+                forwardingTable.update(forwardingSlots[node], hops, multipath ? node * maxPaths : node,
+                        current.isReachable(position) ? current.getRouteCount(position) : 0);
+            }
+        }
+
+        for (int node = 0; alternates && node < nodeCount; node++) {
+            forwardingTable.setBackup(forwardingSlots[node], backupHops[node]);
+        }
+
+        RoutingTable summarized = withSummaryRoutes(current, hops, multipath);
+        changed |= updateSummaryRoutes(summarized, previous);
+
+        if (changed) {
+            routingTable = summarized;
+        }
+    }
+
+    private RoutingTable withSummaryRoutes(RoutingTable current, long[] hops, boolean multipath) {
+        Map<Long, Map<Long, Long>> advertised = database.getPrefixes();
+
+        if (advertised.isEmpty()) {
+            return current;
+        }
+
+        RouterIndex index = database.getIndex();
+        TreeMap<Long, Long> costs = new TreeMap<>();
+        Map<Long, TreeSet<Long>> routes = new HashMap<>();
+
+        for (Entry<Long, Map<Long, Long>> origin : advertised.entrySet()) {
+            int node = index.indexOf(origin.getKey());
+            if (node < 0 || node == ROOT || node >= nodeCount || distances[node] >= UNREACHABLE) {
+                continue;
+            }
+
+            int offset = multipath ? node * maxPaths : node;
+            int count = multipath ? pathCounts[node] : 1;
+            for (Entry<Long, Long> prefix : origin.getValue().entrySet()) {
+                long cost = distances[node] + prefix.getValue();
+                Long best = costs.get(prefix.getKey());
+                if (cost >= UNREACHABLE || (best != null && cost > best)) {
+                    continue;
+                }
+
+                if (best == null || cost < best) {
+                    costs.put(prefix.getKey(), cost);
+                    routes.put(prefix.getKey(), new TreeSet<>());
+                }
+                for (int path = 0; path < count; path++) {
+                    routes.get(prefix.getKey()).add(hops[offset + path]);
+                }
+            }
+        }
+
+        int hopCount = 0;
+        for (TreeSet<Long> route : routes.values()) {
+            hopCount += Math.min(route.size(), maxPaths);
+        }
+
+        long[] prefixes = new long[costs.size()];
+        int[] prefixCosts = new int[costs.size()];
+        int[] offsets = new int[costs.size() + 1];
+        long[] prefixHops = new long[hopCount];
+        int summary = 0;
+        for (Entry<Long, Long> prefix : costs.entrySet()) {
+            prefixes[summary] = prefix.getKey();
+            prefixCosts[summary] = (int) (long) prefix.getValue();
+            int hop = offsets[summary];
+            for (long routeTo : routes.get(prefix.getKey())) {
+                if (hop - offsets[summary] == maxPaths) {
+                    break;
+                }
+                prefixHops[hop++] = routeTo;
+            }
+            offsets[++summary] = hop;
+        }
+
+        return current.withSummaries(prefixes, prefixCosts, offsets, prefixHops);
+    }
+
+    private boolean updateSummaryRoutes(RoutingTable current, RoutingTable previous) {
+        boolean changed = false;
+        long[] hops = new long[maxPaths];
+
+        for (int summary = 0; summary < current.getSummaryCount(); summary++) {
+            long prefix = current.getSummaryPrefix(summary);
+            int previousSummary = previous.indexOfSummary(prefix);
+            int slot = summarySlots.computeIfAbsent(prefix, forwardingTable::register);
+            boolean summaryChanged = previousSummary < 0 || !current.hasSameSummary(summary, previous, previousSummary);
+
+            if (summaryChanged) {
+                changed = true;
+                routeChanges++;
+            }
+            if (summaryChanged || forwardingTable.isFailedOver(slot)) {
+                int count = current.getSummaryRouteCount(summary);
+                for (int path = 0; path < count; path++) {
+                    hops[path] = current.getSummaryRouteTo(summary, path);
+                }
+                forwardingTable.update(slot, hops, 0, count);
+            }
+        }
+
+        for (int summary = 0; summary < previous.getSummaryCount(); summary++) {
+            long prefix = previous.getSummaryPrefix(summary);
+
+            if (current.indexOfSummary(prefix) < 0) {
+                changed = true;
+                routeChanges++;
+                forwardingTable.update(summarySlots.get(prefix), hops, 0, 0);
+            }
+        }
+
+        return changed;
+    }
+
+    private void sortDestinations(RouterIndex index) {
+        destinationIds = new long[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            destinationIds[node] = index.getId(node);
+        }
+        Arrays.sort(destinationIds);
+
+        destinations = new Router[nodeCount];
+        positions = new int[nodeCount];
+        nodesAt = new int[nodeCount];
+        for (int position = 0; position < nodeCount; position++) {
+            nodesAt[position] = index.indexOf(destinationIds[position]);
+            positions[nodesAt[position]] = position;
+            destinations[position] = index.getRouter(nodesAt[position]);
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private static long[] ensureCapacity(long[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
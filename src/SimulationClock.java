@@ -0,0 +1,38 @@
+public class SimulationClock {
+
+    private final TimingWheel wheel;
+
+    public SimulationClock() {
+        wheel = new TimingWheel();
+    }
+
+    public long now() {
+        return wheel.getCurrentTime();
+    }
+
+    public ScheduledEvent schedule(long delay, Runnable action) {
+        return scheduleAt(now() + Math.max(0, delay), action);
+    }
+
+    public ScheduledEvent scheduleAt(long time, Runnable action) {
+        ScheduledEvent event = new ScheduledEvent(Math.max(time, now()), action);
+        wheel.add(event);
+        return event;
+    }
+
+    public void runFor(long duration) {
+        wheel.advanceTo(now() + duration);
+    }
+
+    public void runUntil(long time) {
+        wheel.advanceTo(time);
+    }
+
+    public long getPendingEvents() {
+        return wheel.size();
+    }
+
+    public long getProcessedEvents() {
+        return wheel.getFiredEvents();
+    }
+}
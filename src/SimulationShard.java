@@ -0,0 +1,610 @@
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SimulationShard {
+
+    private static final Logger LOG = Logger.getLogger(SimulationShard.class.getCanonicalName());
+
+    private final int index;
+
+    private final SocketChannel coordinator;
+
+    private final Configuration configuration;
+
+    private final Map<Long, Router> networkMap;
+
+    private final List<Router> localRouters;
+
+    private final AtomicLong networkTime;
+
+    private final ArrayDeque<Router> receivers;
+
+    private final ArrayDeque<Delivery> deliveries;
+
+    private final List<long[]> hellos;
+
+    private final List<long[]> syncs;
+
+    private Peer[] peers;
+
+    private Selector selector;
+
+    private long receivedItems;
+
+    private long sentItems;
+
+    private long sentBytes;
+
+    private long fullPackets;
+
+    private long deltaPackets;
+
+    private long roundGaps;
+
+    public SimulationShard(int shardIndex, SocketChannel coordinatorChannel, Configuration shardConfiguration) {
+        index = shardIndex;
+        coordinator = coordinatorChannel;
+        configuration = shardConfiguration;
+        networkMap = new HashMap<>();
+        localRouters = new ArrayList<>();
+        networkTime = new AtomicLong();
+        receivers = new ArrayDeque<>();
+        deliveries = new ArrayDeque<>();
+        hellos = new ArrayList<>();
+        syncs = new ArrayList<>();
+    }
+
+    public static void main(String[] args) {
+        try {
+            Configuration configuration = Configuration.fromArguments(Arrays.copyOfRange(args, 2, args.length));
+            ReadWrite.setJsonReport(configuration.isJsonReport());
+            SocketChannel coordinator = SocketChannel.open(ShardProtocol.loopback(Integer.parseInt(args[0])));
+            new SimulationShard(Integer.parseInt(args[1]), coordinator, configuration).run();
+        } catch (EOFException e) {
+            LOG.log(Level.FINE, "Coordinator disconnected.", e);
+        } catch (IllegalArgumentException e) {
+            ReadWrite.printError(String.format("Invalid configuration : %s", e.getMessage()));
+            System.exit(1);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Error in simulation shard.", e);
+            ReadWrite.printError(String.format("Shard %s failed : %s", args[1], e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    public void run() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(ShardProtocol.loopback(0));
+            ShardProtocol.write(coordinator, ShardProtocol.message(ShardProtocol.REGISTER, 2 * Integer.BYTES)
+                    .putInt(index).putInt(((InetSocketAddress) server.getLocalAddress()).getPort()));
+            connectPeers(server, loadTopology(ShardProtocol.expect(coordinator, ShardProtocol.TOPOLOGY)));
+        }
+        ShardProtocol.write(coordinator, ShardProtocol.message(ShardProtocol.READY, 0));
+
+        while (true) {
+            ByteBuffer frame = ShardProtocol.read(coordinator);
+
+            switch (frame.get()) {
+                case ShardProtocol.ROUND:
+                    originate();
+                    completeStep();
+                    break;
+                case ShardProtocol.HELLO:
+                    exchangeHellos();
+                    completeStep();
+                    break;
+                case ShardProtocol.STEP:
+                    step();
+                    completeStep();
+                    break;
+                case ShardProtocol.END_ROUND:
+                    endRound();
+                    break;
+                case ShardProtocol.SWITCH:
+                    switchRouter(frame.getLong(), frame.get() != 0);
+                    break;
+                case ShardProtocol.PRINT:
+                    printRoutingTables(frame);
+                    break;
+                case ShardProtocol.SHUTDOWN:
+                    close();
+                    return;
+                default:
+                    throw new IOException(String.format("Unexpected message %s", frame.get(0)));
+            }
+        }
+    }
+
+    private int[] loadTopology(ByteBuffer frame) {
+        int[] ports = new int[frame.getInt()];
+        for (int shard = 0; shard < ports.length; shard++) {
+            ports[shard] = frame.getInt();
+        }
+
+        int routers = frame.getInt();
+        for (int router = 0; router < routers; router++) {
+            long id = frame.getLong();
+            int area = frame.getInt();
+            int shard = frame.getInt();
+            byte[] name = new byte[frame.getInt()];
+            frame.get(name);
+
+            String networkName = new String(name, StandardCharsets.UTF_8);
+            if (shard == index) {
+                Router local = new Router(id, networkName, area);
+                localRouters.add(local);
+                networkMap.put(id, local);
+            } else {
+                networkMap.put(id, new RemoteRouter(id, networkName, area, shard, this));
+            }
+        }
+
+        int links = frame.getInt();
+        for (int link = 0; link < links; link++) {
+            Router router = networkMap.get(frame.getLong());
+            router.addConnection(networkMap.get(frame.getLong()), frame.getLong(), frame.getLong());
+        }
+
+        for (Router router : localRouters) {
+            router.setSpfMode(configuration.getSpfMode());
+            router.setMaxPaths(configuration.getMaxPaths());
+            router.setOriginationMode(configuration.getOriginationMode(), configuration.getLspRefreshRounds());
+            router.setDirectory(networkMap::get);
+            router.setSpfScheduler(configuration.createSpfScheduler(), networkTime::get);
+            router.setFlapDamping(configuration::createFlapDamping);
+            router.setFastReroute(configuration.isFastReroute());
+        }
+
+        return ports;
+    }
+
+    private void connectPeers(ServerSocketChannel server, int[] ports) throws IOException {
+        peers = new Peer[ports.length];
+        selector = Selector.open();
+
+        for (int shard = 0; shard < index; shard++) {
+            SocketChannel channel = SocketChannel.open(ShardProtocol.loopback(ports[shard]));
+            ShardProtocol.write(channel, ShardProtocol.message(ShardProtocol.REGISTER, Integer.BYTES).putInt(index));
+            addPeer(shard, channel);
+        }
+
+        for (int shard = index + 1; shard < ports.length; shard++) {
+            SocketChannel channel = server.accept();
+            addPeer(ShardProtocol.expect(channel, ShardProtocol.REGISTER).getInt(), channel);
+        }
+    }
+
+    private void addPeer(int shard, SocketChannel channel) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+        peers[shard] = new Peer(channel);
+        peers[shard].key = channel.register(selector, 0, peers[shard]);
+    }
+
+    public void send(RemoteRouter receiver, long senderId, LinkStatePacket lsp, int timeToLive) {
+        peers[receiver.getShard()].batch.addDelivery(receiver.getId(), senderId, lsp, timeToLive);
+    }
+
+    public void sendHello(RemoteRouter receiver, long senderId) {
+        peers[receiver.getShard()].batch.addHello(receiver.getId(), senderId);
+    }
+
+    public void requestFullPacket(RemoteRouter origin) {
+        peers[origin.getShard()].batch.addRequest(origin.getId());
+    }
+
+    private void originate() {
+        roundGaps = getSequenceGaps();
+        List<LinkStatePacket> lsps = new ArrayList<>();
+
+        for (Router router : localRouters) {
+            if (!router.isActive()) {
+                continue;
+            }
+
+            if (configuration.getOriginationMode() == OriginationMode.PERIODIC) {
+                lsps.add(router.originatePacket());
+                continue;
+            }
+
+            LinkStatePacket lsp = router.originateUpdate();
+            if (lsp != null) {
+                lsps.add(lsp);
+                fullPackets += lsp.isDelta() ? 0 : 1;
+                deltaPackets += lsp.isDelta() ? 1 : 0;
+            }
+        }
+
+        for (LinkStatePacket lsp : lsps) {
+            forward(networkMap.get(lsp.getOriginationRouter()), -1, lsp, LinkStatePacket.TIME_TO_LIVE);
+            drain();
+        }
+    }
+
+    private void exchangeHellos() {
+        for (Router router : localRouters) {
+            if (!router.isActive()) {
+                continue;
+            }
+
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                Router neighbor = info.getRouter();
+                if (neighbor.receiveHello(router.getId())) {
+                    router.synchronize(neighbor);
+                    neighbor.synchronize(router);
+                }
+            }
+        }
+    }
+
+    private void step() {
+        for (long[] hello : hellos) {
+            Router router = networkMap.get(hello[0]);
+            Router sender = networkMap.get(hello[1]);
+
+            if (router.receiveHello(sender.getId())) {
+                router.synchronize(sender);
+                peers[((RemoteRouter) sender).getShard()].batch.addSync(sender.getId(), router.getId());
+            }
+        }
+        hellos.clear();
+
+        for (long[] sync : syncs) {
+            networkMap.get(sync[0]).synchronize(networkMap.get(sync[1]));
+        }
+        syncs.clear();
+
+        drain();
+    }
+
+    private void drain() {
+        while (!receivers.isEmpty()) {
+            Router receiver = receivers.poll();
+            Delivery delivery = deliveries.poll();
+            long now = networkTime.incrementAndGet();
+
+            if (receiver.acceptPacket(delivery.getSender(), delivery.getPacket())) {
+                forward(receiver, delivery.getSender(), delivery.getPacket(), delivery.getTimeToLive());
+            }
+            receiver.runScheduledSpf(now);
+        }
+    }
+
+    private void forward(Router from, long except, LinkStatePacket lsp, int timeToLive) {
+        if (timeToLive <= 1) {
+            return;
+        }
+
+        for (ConnectionInformation info : from.getConnectivityGraph().values()) {
+            Router neighbor = info.getRouter();
+            if (neighbor.getArea() != from.getArea() || neighbor.getId() == except) {
+                continue;
+            }
+
+            if (neighbor instanceof RemoteRouter) {
+                ((RemoteRouter) neighbor).deliver(from.getId(), lsp, timeToLive - 1);
+            } else {
+                receivers.add(neighbor);
+                deliveries.add(new Delivery(from.getId(), lsp, timeToLive - 1));
+            }
+        }
+    }
+
+    private void completeStep() throws IOException {
+        receivedItems = 0;
+        sentItems = 0;
+        sentBytes = 0;
+
+        exchange();
+        ShardProtocol.write(coordinator, ShardProtocol.message(ShardProtocol.STEP_DONE, 3 * Long.BYTES)
+                .putLong(receivedItems).putLong(sentItems).putLong(sentBytes));
+    }
+
+    private void exchange() throws IOException {
+        int pending = 0;
+
+        for (Peer peer : peers) {
+            if (peer != null) {
+                sentItems += peer.batch.size();
+                peer.outgoing = peer.batch.encode();
+                sentBytes += peer.outgoing.remaining();
+                peer.batch.clear();
+                peer.header.clear();
+                peer.incoming = null;
+                peer.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                pending += 2;
+            }
+        }
+
+        while (pending > 0) {
+            selector.select();
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                Peer peer = (Peer) key.attachment();
+                keys.remove();
+
+                if (key.isWritable()) {
+                    peer.channel.write(peer.outgoing);
+                    if (!peer.outgoing.hasRemaining()) {
+                        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                        pending--;
+                    }
+                }
+                if (key.isReadable() && peer.read()) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    receivedItems += decode(peer.incoming);
+                    pending--;
+                }
+            }
+        }
+    }
+
+    private int decode(ByteBuffer frame) {
+        LinkStatePacket[] packets = new LinkStatePacket[frame.getInt()];
+        for (int packet = 0; packet < packets.length; packet++) {
+            int size = frame.getInt();
+            ByteBuffer encoded = frame.slice();
+            encoded.limit(size);
+            packets[packet] = new LinkStatePacket(encoded);
+            frame.position(frame.position() + size);
+        }
+
+        int items = frame.getInt();
+        for (int delivery = 0; delivery < items; delivery++) {
+            receivers.add(networkMap.get(frame.getLong()));
+            long sender = frame.getLong();
+            int timeToLive = frame.get();
+            deliveries.add(new Delivery(sender, packets[frame.getInt()], timeToLive));
+        }
+
+        int count = frame.getInt();
+        for (int hello = 0; hello < count; hello++) {
+            hellos.add(new long[] { frame.getLong(), frame.getLong() });
+        }
+        items += count;
+
+        count = frame.getInt();
+        for (int sync = 0; sync < count; sync++) {
+            syncs.add(new long[] { frame.getLong(), frame.getLong() });
+        }
+        items += count;
+
+        count = frame.getInt();
+        for (int request = 0; request < count; request++) {
+            networkMap.get(frame.getLong()).requestFullPacket();
+        }
+
+        return items + count;
+    }
+
+    private void endRound() throws IOException {
+        long runs = 0;
+        long saved = 0;
+
+        for (Router router : localRouters) {
+            router.flushScheduledSpf();
+            runs += router.getSpfScheduler().getRuns();
+            saved += router.getSpfScheduler().getSavedRuns();
+        }
+
+        ShardProtocol.write(coordinator, ShardProtocol.message(ShardProtocol.ROUND_DONE, 5 * Long.BYTES)
+                .putLong(fullPackets).putLong(deltaPackets).putLong(getSequenceGaps() - roundGaps).putLong(runs)
+                .putLong(saved));
+        fullPackets = 0;
+        deltaPackets = 0;
+    }
+
+    private long getSequenceGaps() {
+        long gaps = 0;
+
+        for (Router router : localRouters) {
+            gaps += router.getSequenceGaps();
+        }
+
+        return gaps;
+    }
+
+    private void switchRouter(long routerId, boolean on) {
+        Router router = networkMap.get(routerId);
+
+        if (on) {
+            router.start();
+        } else {
+            router.shutdown();
+        }
+    }
+
+    private void printRoutingTables(ByteBuffer frame) throws IOException {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+
+        ReadWrite.setOutput(new PrintStream(text, false, StandardCharsets.UTF_8.name()));
+        try {
+            int routers = frame.getInt();
+            for (int router = 0; router < routers; router++) {
+                networkMap.get(frame.getLong()).displayRoutingTable();
+            }
+        } finally {
+            ReadWrite.flush();
+            ReadWrite.setOutput(console);
+        }
+
+        byte[] output = text.toByteArray();
+        ShardProtocol.write(coordinator, ShardProtocol.message(ShardProtocol.OUTPUT, output.length).put(output));
+    }
+
+    private void close() throws IOException {
+        for (Peer peer : peers) {
+            if (peer != null) {
+                peer.channel.close();
+            }
+        }
+        selector.close();
+        coordinator.close();
+    }
+
+    private static final class Peer {
+
+        private final SocketChannel channel;
+
+        private final Batch batch;
+
+        private final ByteBuffer header;
+
+        private SelectionKey key;
+
+        private ByteBuffer outgoing;
+
+        private ByteBuffer incoming;
+
+        private Peer(SocketChannel peerChannel) {
+            channel = peerChannel;
+            batch = new Batch();
+            header = ByteBuffer.allocate(ShardProtocol.FRAME_HEADER);
+        }
+
+        private boolean read() throws IOException {
+            if (incoming == null) {
+                if (channel.read(header) < 0) {
+                    throw new EOFException("Peer shard disconnected");
+                }
+                if (header.hasRemaining()) {
+                    return false;
+                }
+                incoming = ByteBuffer.allocate(header.getInt(0));
+            }
+
+            if (channel.read(incoming) < 0) {
+                throw new EOFException("Peer shard disconnected");
+            }
+            if (incoming.hasRemaining()) {
+                return false;
+            }
+
+            incoming.flip();
+            return true;
+        }
+    }
+
+    private static final class Batch {
+
+        private static final int DELIVERY = 2 * Long.BYTES + 1 + Integer.BYTES;
+
+        private static final int PAIR = 2 * Long.BYTES;
+
+        private final List<LinkStatePacket> packets;
+
+        private final Map<LinkStatePacket, Integer> packetIndexes;
+
+        private int packetBytes;
+
+        private ByteBuffer deliveries;
+
+        private ByteBuffer hellos;
+
+        private ByteBuffer syncs;
+
+        private ByteBuffer requests;
+
+        private Batch() {
+            packets = new ArrayList<>();
+            packetIndexes = new IdentityHashMap<>();
+            deliveries = ByteBuffer.allocate(64 * DELIVERY);
+            hellos = ByteBuffer.allocate(16 * PAIR);
+            syncs = ByteBuffer.allocate(16 * PAIR);
+            requests = ByteBuffer.allocate(16 * Long.BYTES);
+        }
+
+        private void addDelivery(long receiver, long sender, LinkStatePacket lsp, int timeToLive) {
+            Integer packet = packetIndexes.get(lsp);
+            if (packet == null) {
+                packet = packets.size();
+                packets.add(lsp);
+                packetIndexes.put(lsp, packet);
+                packetBytes += Integer.BYTES + lsp.size();
+            }
+
+            deliveries = ensure(deliveries, DELIVERY);
+            deliveries.putLong(receiver).putLong(sender).put((byte) timeToLive).putInt(packet);
+        }
+
+        private void addHello(long receiver, long sender) {
+            hellos = ensure(hellos, PAIR);
+            hellos.putLong(receiver).putLong(sender);
+        }
+
+        private void addSync(long receiver, long sender) {
+            syncs = ensure(syncs, PAIR);
+            syncs.putLong(receiver).putLong(sender);
+        }
+
+        private void addRequest(long origin) {
+            requests = ensure(requests, Long.BYTES);
+            requests.putLong(origin);
+        }
+
+        private int size() {
+            return deliveries.position() / DELIVERY + hellos.position() / PAIR + syncs.position() / PAIR
+                    + requests.position() / Long.BYTES;
+        }
+
+        private ByteBuffer encode() {
+            int length = 5 * Integer.BYTES + packetBytes + deliveries.position() + hellos.position() + syncs.position()
+                    + requests.position();
+            ByteBuffer frame = ByteBuffer.allocate(ShardProtocol.FRAME_HEADER + length).putInt(length);
+
+            frame.putInt(packets.size());
+            for (LinkStatePacket lsp : packets) {
+                frame.putInt(lsp.size()).put(lsp.toByteBuffer());
+            }
+            frame.putInt(deliveries.position() / DELIVERY).put(deliveries.duplicate().flip());
+            frame.putInt(hellos.position() / PAIR).put(hellos.duplicate().flip());
+            frame.putInt(syncs.position() / PAIR).put(syncs.duplicate().flip());
+            frame.putInt(requests.position() / Long.BYTES).put(requests.duplicate().flip());
+
+            return frame.flip();
+        }
+
+        private void clear() {
+            packets.clear();
+            packetIndexes.clear();
+            packetBytes = 0;
+            deliveries.clear();
+            hellos.clear();
+            syncs.clear();
+            requests.clear();
+        }
+
+        private static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+            if (buffer.remaining() >= bytes) {
+                return buffer;
+            }
+
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            return grown.put(buffer.flip());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+public enum SpfMode {
+
+    FULL,
+
+    INCREMENTAL;
+
+    public static SpfMode fromString(String mode) {
+        for (SpfMode value : values()) {
+            if (value.name().equalsIgnoreCase(mode)) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid SPF mode : %s", mode));
+    }
+}
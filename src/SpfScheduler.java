@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class SpfScheduler {
+
+    private static final long IDLE = -1;
+
+    private final long initialDelay;
+
+    private final long holdInterval;
+
+    private final long maxWait;
+
+    private final List<LinkChange> pendingChanges;
+
+    private long currentHold;
+
+    private long scheduledAt;
+
+    private long lastRun;
+
+    private long triggers;
+
+    private long runs;
+
+    public SpfScheduler(long initialDelayTime, long holdTime, long maxWaitTime) {
+        initialDelay = initialDelayTime;
+        holdInterval = holdTime;
+        maxWait = Math.max(maxWaitTime, holdTime);
+        pendingChanges = new ArrayList<>();
+        currentHold = holdTime;
+        scheduledAt = IDLE;
+        lastRun = IDLE;
+    }
+
+    public synchronized void schedule(List<LinkChange> changes, long now) {
+        triggers++;
+        pendingChanges.addAll(changes);
+
+        if (scheduledAt != IDLE) {
+            return;
+        }
+
+        if (lastRun == IDLE || now - lastRun >= maxWait) {
+            currentHold = holdInterval;
+        }
+
+        scheduledAt = now + initialDelay;
+
+        if (lastRun != IDLE) {
+            scheduledAt = Math.max(scheduledAt, lastRun + currentHold);
+        }
+    }
+
+    public synchronized List<LinkChange> poll(long now) {
+        if (scheduledAt == IDLE || now < scheduledAt) {
+            return null;
+        }
+
+        return run(now);
+    }
+
+    public synchronized List<LinkChange> drain(long now) {
+        if (scheduledAt == IDLE) {
+            return null;
+        }
+
+        return run(Math.max(now, scheduledAt));
+    }
+
+    private List<LinkChange> run(long now) {
+        List<LinkChange> batch = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        runs++;
+        lastRun = now;
+        scheduledAt = IDLE;
+        currentHold = Math.min(Math.max(currentHold * 2, holdInterval), maxWait);
+
+        return batch;
+    }
+
+    public synchronized boolean hasPending() {
+        return scheduledAt != IDLE;
+    }
+
+    public synchronized long getScheduledAt() {
+        return scheduledAt;
+    }
+
+    public synchronized long getTriggers() {
+        return triggers;
+    }
+
+    public synchronized long getRuns() {
+        return runs;
+    }
+
+    public synchronized long getSavedRuns() {
+        return triggers - runs - (scheduledAt == IDLE ? 0 : 1);
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.ArrayDeque;
+
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final int LEVELS = 7;
+
+    private final ArrayDeque<ScheduledEvent>[][] wheels;
+
+    private final long[] occupied;
+
+    private final ArrayDeque<ScheduledEvent> overflow;
+
+    private long currentTime;
+
+    private long size;
+
+    private long firedEvents;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public TimingWheel() {
+        wheels = new ArrayDeque[LEVELS][SLOTS];
+        occupied = new long[LEVELS];
+        overflow = new ArrayDeque<>();
+
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long getFiredEvents() {
+        return firedEvents;
+    }
+
+    public void add(ScheduledEvent event) {
+        size++;
+        insert(event);
+    }
+
+    private void insert(ScheduledEvent event) {
+        long deadline = Math.max(event.getDeadline(), currentTime);
+
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+            if ((deadline >>> (shift + SLOT_BITS)) == (currentTime >>> (shift + SLOT_BITS))) {
+                int slot = (int) (deadline >>> shift) & SLOT_MASK;
+                wheels[level][slot].add(event);
+                occupied[level] |= 1L << slot;
+                return;
+            }
+        }
+
+        overflow.add(event);
+    }
+
+    public void advanceTo(long targetTime) {
+        while (currentTime <= targetTime) {
+            int slot = (int) currentTime & SLOT_MASK;
+            ArrayDeque<ScheduledEvent> events = wheels[0][slot];
+
+            while (!events.isEmpty()) {
+                ScheduledEvent event = events.poll();
+                size--;
+                if (!event.isCancelled()) {
+                    firedEvents++;
+                    event.fire();
+                }
+            }
+            occupied[0] &= ~(1L << slot);
+
+            if (currentTime == targetTime) {
+                return;
+            }
+
+            long remaining = occupied[0] & (-2L << slot);
+            long next = remaining != 0 ? (currentTime & ~SLOT_MASK) + Long.numberOfTrailingZeros(remaining)
+                    : (currentTime | SLOT_MASK) + 1;
+            currentTime = Math.min(next, targetTime);
+
+            if ((currentTime & SLOT_MASK) == 0) {
+                cascade();
+            }
+        }
+    }
+
+    private void cascade() {
+        int top = 1;
+        while (top < LEVELS && (currentTime & ((1L << (top * SLOT_BITS)) - 1)) == 0) {
+            top++;
+        }
+
+        if (top == LEVELS) {
+            int pending = overflow.size();
+            for (int i = 0; i < pending; i++) {
+                insert(overflow.poll());
+            }
+        }
+
+        for (int level = top - 1; level >= 1; level--) {
+            int slot = (int) (currentTime >>> (level * SLOT_BITS)) & SLOT_MASK;
+            ArrayDeque<ScheduledEvent> events = wheels[level][slot];
+            occupied[level] &= ~(1L << slot);
+
+            int pending = events.size();
+            for (int i = 0; i < pending; i++) {
+                insert(events.poll());
+            }
+        }
+    }
+}
@@ -0,0 +1,501 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class TopologyGenerator {
+
+    private static final Logger LOG = Logger.getLogger(TopologyGenerator.class.getCanonicalName());
+
+    private static final String TYPE = "--type=";
+
+    private static final String SIZE = "--size=";
+
+    private static final String SEED = "--seed=";
+
+    private static final String COSTS = "--costs=";
+
+    private static final String MIN_COST = "--min-cost=";
+
+    private static final String MAX_COST = "--max-cost=";
+
+    private static final String DEGREE = "--degree=";
+
+    private static final String OUTPUT = "--output=";
+
+    private static final String AREAS = "--areas=";
+
+    private static final double WAXMAN_ALPHA = 0.15;
+
+    private static final int WAXMAN_SAMPLES = 10_000;
+
+    private static final int INTER_AREA_LINKS = 2;
+
+    private TopologyType type;
+
+    private int size;
+
+    private long seed;
+
+    private CostDistribution costs;
+
+    private long minCost;
+
+    private long maxCost;
+
+    private int degree;
+
+    private String output;
+
+    private int areas;
+
+    private Random random;
+
+    private List<long[]> links;
+
+    private Set<Long> pairs;
+
+    private int routerCount;
+
+    private int areaSize;
+
+    private int areaOffset;
+
+    private int[] areaStarts;
+
+    public TopologyGenerator() {
+        type = TopologyType.WAXMAN;
+        size = 100;
+        seed = 1;
+        costs = CostDistribution.UNIFORM;
+        minCost = 1;
+        maxCost = 10;
+        degree = 4;
+        output = TopologyLoader.STDIN;
+        areas = 1;
+    }
+
+    public static void main(String[] args) {
+        TopologyGenerator generator = fromArguments(args);
+        List<long[]> topology = generator.generate();
+
+        try {
+            generator.write(topology);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Error while writing topology file.", e);
+            ReadWrite.printError(String.format("Error while writing topology file : %s", e.getMessage()));
+            System.exit(1);
+        }
+
+        if (!TopologyLoader.STDIN.equals(generator.output)) {
+            ReadWrite.print(String.format("Generated %s topology with %s routers and %s links in %s.",
+                    generator.type.name().toLowerCase().replace('_', '-'), generator.routerCount, topology.size(),
+                    generator.output));
+        }
+    }
+
+    public static TopologyGenerator fromArguments(String[] args) {
+        TopologyGenerator generator = new TopologyGenerator();
+
+        for (String arg : args) {
+            if (arg.startsWith(TYPE)) {
+                generator.setType(TopologyType.fromString(arg.substring(TYPE.length())));
+            } else if (arg.startsWith(SIZE)) {
+                generator.setSize((int) parseNumber(arg, SIZE));
+            } else if (arg.startsWith(SEED)) {
+                generator.setSeed(parseNumber(arg, SEED));
+            } else if (arg.startsWith(COSTS)) {
+                generator.setCosts(CostDistribution.fromString(arg.substring(COSTS.length())));
+            } else if (arg.startsWith(MIN_COST)) {
+                generator.setMinCost(parseNumber(arg, MIN_COST));
+            } else if (arg.startsWith(MAX_COST)) {
+                generator.setMaxCost(parseNumber(arg, MAX_COST));
+            } else if (arg.startsWith(DEGREE)) {
+                generator.setDegree((int) parseNumber(arg, DEGREE));
+            } else if (arg.startsWith(AREAS)) {
+                generator.setAreas((int) parseNumber(arg, AREAS));
+            } else if (arg.startsWith(OUTPUT) && arg.length() > OUTPUT.length()) {
+                generator.setOutput(arg.substring(OUTPUT.length()));
+            } else {
+                throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+            }
+        }
+
+        if (generator.minCost < 1 || generator.maxCost < generator.minCost || generator.maxCost >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid cost range : %s-%s", generator.minCost, generator.maxCost));
+        }
+
+        if (generator.areas < 1) {
+            throw new IllegalArgumentException(String.format("Invalid argument : %s%s", AREAS, generator.areas));
+        }
+
+        return generator;
+    }
+
+    private static long parseNumber(String arg, String option) {
+        long number = Long.parseLong(arg.substring(option.length()));
+
+        if (number < 0) {
+            throw new IllegalArgumentException(String.format("Invalid argument : %s", arg));
+        }
+
+        return number;
+    }
+
+    public List<long[]> generate() {
+        random = new Random(seed);
+        links = new ArrayList<>();
+        pairs = new HashSet<>();
+        areaStarts = new int[areas + 1];
+        routerCount = 0;
+
+        for (int area = 0; area < areas; area++) {
+            areaStarts[area] = routerCount;
+            areaOffset = routerCount;
+            areaSize = Math.max(1, size / areas);
+            routerCount += generateArea();
+        }
+        areaStarts[areas] = routerCount;
+        areaOffset = 0;
+
+        for (int area = 1; area < areas; area++) {
+            int areaRouters = areaStarts[area + 1] - areaStarts[area];
+            for (int link = 0; link < INTER_AREA_LINKS; link++) {
+                link(areaStarts[area] + random.nextInt(areaRouters), random.nextInt(areaStarts[1]));
+            }
+        }
+
+        return links;
+    }
+
+    private int generateArea() {
+        switch (type) {
+            case GRID:
+                grid();
+                break;
+            case RING:
+                ring();
+                break;
+            case WAXMAN:
+                waxman();
+                break;
+            case BARABASI_ALBERT:
+                barabasiAlbert();
+                break;
+            case FAT_TREE:
+                return fatTree();
+            default:
+                break;
+        }
+
+        return areaSize;
+    }
+
+    public int getRouterCount() {
+        return routerCount;
+    }
+
+    public void write(List<long[]> topology) throws IOException {
+        int[] offsets = new int[routerCount + 1];
+        for (long[] link : topology) {
+            offsets[(int) link[0] + 1]++;
+        }
+        for (int router = 0; router < routerCount; router++) {
+            offsets[router + 1] += offsets[router];
+        }
+
+        long[][] ordered = new long[topology.size()][];
+        int[] next = offsets.clone();
+        for (long[] link : topology) {
+            ordered[next[(int) link[0]]++] = link;
+        }
+
+        try (BufferedWriter writer = new BufferedWriter(open())) {
+            int area = 0;
+            for (int router = 0; router < routerCount; router++) {
+                writer.write(Long.toString(router));
+                writer.write(' ');
+                writer.write(name(router));
+                if (areas > 1) {
+                    while (router >= areaStarts[area + 1]) {
+                        area++;
+                    }
+                    writer.write(' ');
+                    writer.write(Integer.toString(area));
+                }
+                writer.newLine();
+
+                for (int link = offsets[router]; link < offsets[router + 1]; link++) {
+                    writer.write("  ");
+                    writer.write(Long.toString(ordered[link][1]));
+                    writer.write(' ');
+                    writer.write(Long.toString(ordered[link][2]));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    private Writer open() throws IOException {
+        if (TopologyLoader.STDIN.equals(output)) {
+            return new OutputStreamWriter(System.out, StandardCharsets.US_ASCII);
+        }
+
+        return Files.newBufferedWriter(Paths.get(output), StandardCharsets.US_ASCII);
+    }
+
+    private static String name(long router) {
+        return String.format("%d.%d.%d", 10 + (router >>> 16), router >>> 8 & 0xFF, router & 0xFF);
+    }
+
+    private void ring() {
+        for (int router = 0; router < areaSize; router++) {
+            link(router, (router + 1) % areaSize);
+        }
+    }
+
+    private void grid() {
+        int side = (int) Math.ceil(Math.sqrt(areaSize));
+
+        for (int router = 0; router < areaSize; router++) {
+            if ((router + 1) % side != 0 && router + 1 < areaSize) {
+                link(router, router + 1);
+            }
+            if (router + side < areaSize) {
+                link(router, router + side);
+            }
+        }
+    }
+
+    private void waxman() {
+        double[] x = new double[areaSize];
+        double[] y = new double[areaSize];
+        for (int router = 0; router < areaSize; router++) {
+            x[router] = random.nextDouble();
+            y[router] = random.nextDouble();
+        }
+
+        double scale = WAXMAN_ALPHA * Math.sqrt(2);
+        double expected = 0;
+        for (int sample = 0; sample < WAXMAN_SAMPLES; sample++) {
+            expected += Math.exp(-Math.hypot(random.nextDouble() - random.nextDouble(),
+                    random.nextDouble() - random.nextDouble()) / scale);
+        }
+        expected /= WAXMAN_SAMPLES;
+
+        double beta = Math.min(1, degree / (Math.max(1, areaSize - 1) * expected));
+        double skipScale = beta < 1 ? 1 / Math.log(1 - beta) : 0;
+
+        for (int from = 0; from < areaSize; from++) {
+            int to = from + 1 + skip(skipScale);
+
+            while (to < areaSize) {
+                double distance = Math.hypot(x[from] - x[to], y[from] - y[to]);
+                if (random.nextDouble() < Math.exp(-distance / scale)) {
+                    link(from, to);
+                }
+                to += 1 + skip(skipScale);
+            }
+        }
+
+        connectComponents(x, y);
+    }
+
+    private int skip(double skipScale) {
+        if (skipScale == 0) {
+            return 0;
+        }
+
+        double skip = Math.log(1 - random.nextDouble()) * skipScale;
+        return skip >= areaSize ? areaSize : (int) skip;
+    }
+
+    private void connectComponents(double[] x, double[] y) {
+        int[] parents = new int[areaSize];
+        for (int router = 0; router < areaSize; router++) {
+            parents[router] = router;
+        }
+        for (long[] link : links) {
+            if (link[0] >= areaOffset) {
+                parents[find(parents, (int) link[0] - areaOffset)] = find(parents, (int) link[1] - areaOffset);
+            }
+        }
+
+        Map<Integer, List<Integer>> components = new LinkedHashMap<>();
+        for (int router = 0; router < areaSize; router++) {
+            components.computeIfAbsent(find(parents, router), root -> new ArrayList<>()).add(router);
+        }
+
+        int cells = Math.max(1, (int) Math.sqrt(areaSize / 4.0));
+        List<List<Integer>> grid = new ArrayList<>();
+        for (int cell = 0; cell < cells * cells; cell++) {
+            grid.add(new ArrayList<>());
+        }
+
+        boolean first = true;
+        for (List<Integer> members : components.values()) {
+            if (!first) {
+                int router = members.get(0);
+                link(router, nearest(grid, cells, x, y, router));
+            }
+
+            for (int member : members) {
+                grid.get(cell(cells, y[member]) * cells + cell(cells, x[member])).add(member);
+            }
+            first = false;
+        }
+    }
+
+    private static int nearest(List<List<Integer>> grid, int cells, double[] x, double[] y, int router) {
+        int column = cell(cells, x[router]);
+        int row = cell(cells, y[router]);
+        int nearest = -1;
+        double best = Double.MAX_VALUE;
+
+        for (int ring = 0; ring < cells && (nearest < 0 || (ring - 1.0) / cells <= best); ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                for (int c = column - ring; c <= column + ring; c++) {
+                    boolean border = Math.abs(r - row) == ring || Math.abs(c - column) == ring;
+                    if (!border || r < 0 || c < 0 || r >= cells || c >= cells) {
+                        continue;
+                    }
+
+                    for (int candidate : grid.get(r * cells + c)) {
+                        double distance = Math.hypot(x[router] - x[candidate], y[router] - y[candidate]);
+                        if (distance < best) {
+                            best = distance;
+                            nearest = candidate;
+                        }
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    private static int cell(int cells, double coordinate) {
+        return Math.min(cells - 1, (int) (coordinate * cells));
+    }
+
+    private static int find(int[] parents, int router) {
+        while (parents[router] != router) {
+            parents[router] = parents[parents[router]];
+            router = parents[router];
+        }
+        return router;
+    }
+
+    private void barabasiAlbert() {
+        int attachments = Math.max(1, degree / 2);
+        int[] endpoints = new int[2 * attachments * Math.max(areaSize, attachments + 1) + attachments * attachments];
+        int count = 0;
+
+        for (int from = 0; from <= attachments && from < areaSize; from++) {
+            for (int to = from + 1; to <= attachments && to < areaSize; to++) {
+                link(from, to);
+                endpoints[count++] = from;
+                endpoints[count++] = to;
+            }
+        }
+
+        for (int router = attachments + 1; router < areaSize; router++) {
+            int linked = 0;
+            while (linked < attachments) {
+                int target = endpoints[random.nextInt(count)];
+                if (link(target, router)) {
+                    endpoints[count++] = target;
+                    endpoints[count++] = router;
+                    linked++;
+                }
+            }
+        }
+    }
+
+    private int fatTree() {
+        int ports = 2;
+        while (5 * ports * ports / 4 < areaSize) {
+            ports += 2;
+        }
+
+        int half = ports / 2;
+        int cores = half * half;
+
+        for (int pod = 0; pod < ports; pod++) {
+            int aggregation = cores + pod * ports;
+            int edge = aggregation + half;
+
+            for (int a = 0; a < half; a++) {
+                for (int e = 0; e < half; e++) {
+                    link(aggregation + a, edge + e);
+                }
+                for (int c = 0; c < half; c++) {
+                    link(a * half + c, aggregation + a);
+                }
+            }
+        }
+
+        return cores + ports * ports;
+    }
+
+    private boolean link(int from, int to) {
+        int low = areaOffset + Math.min(from, to);
+        int high = areaOffset + Math.max(from, to);
+
+        if (low == high || !pairs.add((long) low << 32 | high)) {
+            return false;
+        }
+
+        links.add(new long[] { low, high, costs.sample(random, minCost, maxCost) });
+        return true;
+    }
+
+    public void setType(TopologyType topologyType) {
+        type = topologyType;
+    }
+
+    public void setSize(int routers) {
+        size = routers;
+    }
+
+    public void setSeed(long randomSeed) {
+        seed = randomSeed;
+    }
+
+    public void setCosts(CostDistribution distribution) {
+        costs = distribution;
+    }
+
+    public void setMinCost(long cost) {
+        minCost = cost;
+    }
+
+    public void setMaxCost(long cost) {
+        maxCost = cost;
+    }
+
+    public void setDegree(int averageDegree) {
+        degree = averageDegree;
+    }
+
+    public void setAreas(int areaCount) {
+        areas = areaCount;
+    }
+
+    public void setOutput(String path) {
+        output = path;
+    }
+}
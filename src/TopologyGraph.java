@@ -0,0 +1,151 @@
+import java.util.Arrays;
+import java.util.Map.Entry;
+
+public class TopologyGraph {
+
+    private int nodeCount;
+
+    private int[] offsets;
+
+    private int[] targets;
+
+    private long[] costs;
+
+    private int[] reverseOffsets;
+
+    private int[] reverseSources;
+
+    private int[] reverseEdges;
+
+    private long version;
+
+    public TopologyGraph() {
+        offsets = new int[1];
+        targets = new int[0];
+        costs = new long[0];
+        reverseOffsets = new int[1];
+        reverseSources = new int[0];
+        reverseEdges = new int[0];
+        version = -1;
+    }
+
+    public boolean isCurrent(long structureVersion) {
+        return version == structureVersion;
+    }
+
+    public void rebuild(LinkStateDatabase database) {
+        RouterIndex index = database.getIndex();
+        nodeCount = index.size();
+        offsets = ensureCapacity(offsets, nodeCount + 1);
+        reverseOffsets = ensureCapacity(reverseOffsets, nodeCount + 1);
+        Arrays.fill(offsets, 0, nodeCount + 1, 0);
+        Arrays.fill(reverseOffsets, 0, nodeCount + 1, 0);
+
+        for (int node = 0; node < nodeCount; node++) {
+            for (Long neighbor : database.getLinks(index.getId(node)).keySet()) {
+                int target = index.indexOf(neighbor);
+                if (target >= 0) {
+                    offsets[node + 1]++;
+                    reverseOffsets[target + 1]++;
+                }
+            }
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] += offsets[node];
+            reverseOffsets[node + 1] += reverseOffsets[node];
+        }
+
+        int edgeCount = offsets[nodeCount];
+        targets = ensureCapacity(targets, edgeCount);
+        costs = ensureCapacity(costs, edgeCount);
+        reverseSources = ensureCapacity(reverseSources, edgeCount);
+        reverseEdges = ensureCapacity(reverseEdges, edgeCount);
+        int[] reverseFill = Arrays.copyOf(reverseOffsets, nodeCount);
+
+        for (int node = 0; node < nodeCount; node++) {
+            int edge = offsets[node];
+            for (Entry<Long, Long> link : database.getLinks(index.getId(node)).entrySet()) {
+                int target = index.indexOf(link.getKey());
+                if (target < 0) {
+                    continue;
+                }
+                targets[edge] = target;
+                costs[edge] = link.getValue();
+                reverseSources[reverseFill[target]] = node;
+                reverseEdges[reverseFill[target]++] = edge;
+                edge++;
+            }
+        }
+
+        version = database.getStructureVersion();
+    }
+
+    public boolean updateCost(int from, int to, long cost) {
+        if (from < 0 || from >= nodeCount) {
+            return false;
+        }
+
+        int edge = findEdge(from, to);
+        if (edge < 0) {
+            return false;
+        }
+
+        costs[edge] = cost;
+        return true;
+    }
+
+    public int findEdge(int from, int to) {
+        for (int edge = offsets[from]; edge < offsets[from + 1]; edge++) {
+            if (targets[edge] == to) {
+                return edge;
+            }
+        }
+
+        return -1;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeStart(int node) {
+        return offsets[node];
+    }
+
+    public int getEdgeEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public long getCost(int edge) {
+        return costs[edge];
+    }
+
+    public int getReverseStart(int node) {
+        return reverseOffsets[node];
+    }
+
+    public int getReverseEnd(int node) {
+        return reverseOffsets[node + 1];
+    }
+
+    public int getReverseSource(int reverseEdge) {
+        return reverseSources[reverseEdge];
+    }
+
+    public int getReverseEdge(int reverseEdge) {
+        return reverseEdges[reverseEdge];
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return array.length >= capacity ? array : new int[Math.max(capacity, array.length * 2)];
+    }
+
+    private static long[] ensureCapacity(long[] array, int capacity) {
+        return array.length >= capacity ? array : new long[Math.max(capacity, array.length * 2)];
+    }
+}
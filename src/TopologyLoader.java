@@ -0,0 +1,380 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+public class TopologyLoader {
+
+    public static final String STDIN = "-";
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+
+    private static final long MAX_CHUNK_SIZE = 1L << 28;
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private static final int NO_ROUTER = -1;
+
+    private final String source;
+
+    private long routerCount;
+
+    private long linkCount;
+
+    private long loadTime;
+
+    private long peakHeap;
+
+    public TopologyLoader(String path) {
+        source = path;
+    }
+
+    public Map<Long, Router> load() throws IOException {
+        long start = System.nanoTime();
+        List<Chunk> chunks = STDIN.equals(source) ? parseStream(System.in) : parseFile(Paths.get(source));
+        Map<Long, Router> network = new HashMap<>();
+
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.routerCount; i++) {
+                if (network.put(chunk.routers[i].getId(), chunk.routers[i]) != null) {
+                    throw new IOException(String.format("Duplicate router : %s", chunk.routers[i].getId()));
+                }
+            }
+        }
+
+        try {
+            chunks.parallelStream().forEach(chunk -> connect(chunk, network));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        routerCount = network.size();
+        linkCount = chunks.stream().mapToLong(chunk -> chunk.edgeCount).sum();
+        loadTime = (System.nanoTime() - start) / 1_000_000;
+        peakHeap = measurePeakHeap();
+
+        return network;
+    }
+
+    public long getRouterCount() {
+        return routerCount;
+    }
+
+    public long getLinkCount() {
+        return linkCount;
+    }
+
+    public long getLoadTime() {
+        return loadTime;
+    }
+
+    public long getPeakHeap() {
+        return peakHeap;
+    }
+
+    private List<Chunk> parseFile(Path path) throws IOException {
+        try (FileChannel channel = open(path)) {
+            long size = channel.size();
+            int parallelism = Runtime.getRuntime().availableProcessors();
+            long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4L)));
+            List<long[]> ranges = new ArrayList<>();
+
+            long chunkStart = 0;
+            while (chunkStart < size) {
+                long chunkEnd = chunkStart + chunkSize >= size ? size
+                        : findRecordStart(channel, chunkStart + chunkSize, size);
+                ranges.add(new long[] { chunkStart, chunkEnd });
+                chunkStart = chunkEnd;
+            }
+
+            List<Chunk> chunks = new ArrayList<>();
+            for (int i = 0; i < ranges.size(); i++) {
+                chunks.add(new Chunk());
+            }
+
+            try {
+                IntStream.range(0, ranges.size()).parallel().forEach(i -> {
+                    try {
+                        long[] range = ranges.get(i);
+                        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+                        chunks.get(i).parse(buffer, buffer.limit());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            return chunks;
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new IOException(String.format("File not found : %s", path), e);
+        }
+    }
+
+    private List<Chunk> parseStream(InputStream input) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(input);
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        Chunk chunk = new Chunk();
+        boolean endOfInput = false;
+
+        while (!endOfInput) {
+            endOfInput = channel.read(buffer) == -1;
+            buffer.flip();
+            int parsed = endOfInput ? buffer.limit() : lastLineEnd(buffer) + 1;
+
+            if (parsed == 0 && !endOfInput) {
+                if (buffer.limit() == buffer.capacity()) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+                } else {
+                    buffer.position(buffer.limit()).limit(buffer.capacity());
+                }
+                continue;
+            }
+
+            chunk.parse(buffer, parsed);
+            buffer.position(parsed);
+            buffer.compact();
+        }
+
+        return Arrays.asList(chunk);
+    }
+
+    private static int lastLineEnd(ByteBuffer buffer) {
+        for (int i = buffer.limit() - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long findRecordStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long position = from - 1;
+        boolean lineStart = false;
+        boolean header = false;
+        long lineBegin = -1;
+
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < read; i++, position++) {
+                byte value = window.get(i);
+                if (lineStart) {
+                    lineBegin = position;
+                    header = false;
+                    lineStart = false;
+                }
+                if (value == '.' && lineBegin >= 0) {
+                    header = true;
+                } else if (value == '\n') {
+                    if (header) {
+                        return lineBegin;
+                    }
+                    lineStart = true;
+                }
+            }
+        }
+
+        return header ? lineBegin : size;
+    }
+
+    private static void connect(Chunk chunk, Map<Long, Router> network) {
+        for (int i = 0; i < chunk.edgeCount; i++) {
+            int edge = i * 4;
+            Router node = network.get(chunk.edges[edge]);
+            Router connectedNode = network.get(chunk.edges[edge + 1]);
+
+            if (connectedNode == null) {
+                throw new UncheckedIOException(new IOException(String.format(
+                        "Router %s references undefined router %s", chunk.edges[edge], chunk.edges[edge + 1])));
+            }
+
+            connectedNode.addConnection(node, chunk.edges[edge + 2], chunk.edges[edge + 3]);
+            node.addConnection(connectedNode, chunk.edges[edge + 2], chunk.edges[edge + 3]);
+        }
+    }
+
+    private static long measurePeakHeap() {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return peak;
+    }
+
+    private static final class Chunk {
+
+        private Router[] routers;
+
+        private int routerCount;
+
+        private long[] edges;
+
+        private int edgeCount;
+
+        private long currentRouter;
+
+        private final long[] fields;
+
+        private Chunk() {
+            routers = new Router[16];
+            edges = new long[64];
+            currentRouter = NO_ROUTER;
+            fields = new long[3];
+        }
+
+        private void parse(ByteBuffer buffer, int limit) throws IOException {
+            int position = buffer.position();
+
+            while (position < limit) {
+                int lineEnd = position;
+                boolean header = false;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    header |= buffer.get(lineEnd) == '.';
+                    lineEnd++;
+                }
+
+                if (header) {
+                    parseRouter(buffer, position, lineEnd);
+                } else {
+                    parseConnection(buffer, position, lineEnd);
+                }
+
+                position = lineEnd + 1;
+            }
+        }
+
+        private void parseRouter(ByteBuffer buffer, int start, int end) throws IOException {
+            int idEnd = skipToken(buffer, skipBlanks(buffer, start, end), end);
+            int nameStart = skipBlanks(buffer, idEnd, end);
+            int nameEnd = skipToken(buffer, nameStart, end);
+            int areaStart = skipBlanks(buffer, nameEnd, end);
+            int area = Router.BACKBONE;
+
+            if (areaStart != end) {
+                if (parseNumbers(buffer, areaStart, end, 1) != 1 || fields[0] > Integer.MAX_VALUE) {
+                    throw new IOException(String.format("Invalid router information : %s", text(buffer, start, end)));
+                }
+                area = (int) fields[0];
+            }
+
+            if (nameStart == nameEnd || parseNumbers(buffer, start, idEnd, 1) != 1) {
+                throw new IOException(String.format("Invalid router information : %s", text(buffer, start, end)));
+            }
+
+            if (routerCount == routers.length) {
+                routers = Arrays.copyOf(routers, routerCount * 2);
+            }
+
+            currentRouter = fields[0];
+            routers[routerCount++] = new Router(currentRouter, text(buffer, nameStart, nameEnd), area);
+        }
+
+        private void parseConnection(ByteBuffer buffer, int start, int end) throws IOException {
+            int count = parseNumbers(buffer, start, end, 3);
+
+            if (count == 0) {
+                return;
+            }
+
+            if (count < 0 || currentRouter == NO_ROUTER) {
+                throw new IOException(String.format("Invalid connection information : %s", text(buffer, start, end)));
+            }
+
+            if (edgeCount * 4 == edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+
+            int edge = edgeCount++ * 4;
+            edges[edge] = currentRouter;
+            edges[edge + 1] = fields[0];
+            edges[edge + 2] = count >= 2 ? fields[1] : 1;
+            edges[edge + 3] = count == 3 ? fields[2] : ConnectionInformation.DEFAULT_DELAY;
+        }
+
+        private int parseNumbers(ByteBuffer buffer, int start, int end, int max) {
+            int count = 0;
+            int position = skipBlanks(buffer, start, end);
+
+            while (position < end) {
+                if (count == max) {
+                    return -1;
+                }
+
+                long value = 0;
+                int digits = 0;
+                while (position < end && !isBlank(buffer.get(position))) {
+                    int digit = buffer.get(position++) - '0';
+                    if (digit < 0 || digit > 9 || digits++ == 18) {
+                        return -1;
+                    }
+                    value = value * 10 + digit;
+                }
+
+                fields[count++] = value;
+                position = skipBlanks(buffer, position, end);
+            }
+
+            return count;
+        }
+
+        private static int skipBlanks(ByteBuffer buffer, int position, int end) {
+            while (position < end && isBlank(buffer.get(position))) {
+                position++;
+            }
+            return position;
+        }
+
+        private static int skipToken(ByteBuffer buffer, int position, int end) {
+            while (position < end && !isBlank(buffer.get(position))) {
+                position++;
+            }
+            return position;
+        }
+
+        private static boolean isBlank(byte value) {
+            return value == ' ' || value == '\t' || value == '\r';
+        }
+
+        private static String text(ByteBuffer buffer, int start, int end) {
+            byte[] bytes = new byte[end - start];
+            for (int i = start; i < end; i++) {
+                bytes[i - start] = buffer.get(i);
+            }
+            return new String(bytes, StandardCharsets.US_ASCII).trim();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+public final class TopologySnapshot {
+
+    private final long[] ids;
+
+    private final Router[] routers;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private final long[] costs;
+
+    private TopologySnapshot(Router[] sortedRouters, int[] edgeOffsets, int[] edgeTargets, long[] edgeCosts) {
+        routers = sortedRouters;
+        ids = new long[sortedRouters.length];
+        for (int node = 0; node < sortedRouters.length; node++) {
+            ids[node] = sortedRouters[node].getId();
+        }
+        offsets = edgeOffsets;
+        targets = edgeTargets;
+        costs = edgeCosts;
+    }
+
+    public static TopologySnapshot capture(Collection<Router> network) {
+        Router[] routers = network.toArray(new Router[0]);
+        Arrays.sort(routers, Comparator.comparingLong(Router::getId));
+        long[] ids = new long[routers.length];
+        for (int node = 0; node < routers.length; node++) {
+            ids[node] = routers[node].getId();
+        }
+
+        int[] offsets = new int[routers.length + 1];
+        for (int node = 0; node < routers.length; node++) {
+            offsets[node + 1] = offsets[node];
+            for (ConnectionInformation info : routers[node].getConnectivityGraph().values()) {
+                if (isUp(routers[node], info)) {
+                    offsets[node + 1]++;
+                }
+            }
+        }
+
+        int[] targets = new int[offsets[routers.length]];
+        long[] costs = new long[targets.length];
+        for (int node = 0; node < routers.length; node++) {
+            int edge = offsets[node];
+            for (ConnectionInformation info : routers[node].getConnectivityGraph().values()) {
+                if (edge < offsets[node + 1] && isUp(routers[node], info)) {
+                    targets[edge] = Arrays.binarySearch(ids, info.getRouter().getId());
+                    costs[edge++] = info.getCost();
+                }
+            }
+            offsets[node + 1] = edge;
+        }
+
+        return new TopologySnapshot(routers, offsets, targets, costs);
+    }
+
+    private static boolean isUp(Router router, ConnectionInformation info) {
+        return router.isActive() && info.getRouter().isActive() && info.getCost() < ShortestPathTree.UNREACHABLE;
+    }
+
+    Router[] getRouters() {
+        return routers;
+    }
+
+    long[] getIds() {
+        return ids;
+    }
+
+    public int size() {
+        return routers.length;
+    }
+
+    public long getId(int node) {
+        return ids[node];
+    }
+
+    public Router getRouter(int node) {
+        return routers[node];
+    }
+
+    public int indexOf(long id) {
+        int node = Arrays.binarySearch(ids, id);
+        return node >= 0 ? node : -1;
+    }
+
+    public int getEdgeStart(int node) {
+        return offsets[node];
+    }
+
+    public int getEdgeEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public long getCost(int edge) {
+        return costs[edge];
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+}
@@ -0,0 +1,22 @@
+public enum TopologyType {
+
+    GRID,
+
+    RING,
+
+    WAXMAN,
+
+    BARABASI_ALBERT,
+
+    FAT_TREE;
+
+    public static TopologyType fromString(String type) {
+        for (TopologyType value : values()) {
+            if (value.name().replace('_', '-').equalsIgnoreCase(type)) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid topology type : %s", type));
+    }
+}
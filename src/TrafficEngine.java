@@ -0,0 +1,220 @@
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class TrafficEngine {
+
+    private static final int TASKS_PER_WORKER = 8;
+
+    private static final int MAX_TTL = 255;
+
+    private final ForkJoinPool pool;
+
+    private final TrafficMatrix matrix;
+
+    private final long meanFlowSize;
+
+    private final Random random;
+
+    public TrafficEngine(int workers, TrafficMatrix trafficMatrix, long flowSize, long seed) {
+        pool = new ForkJoinPool(Math.max(1, workers));
+        matrix = trafficMatrix;
+        meanFlowSize = Math.max(1, flowSize);
+        random = new Random(seed);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public synchronized TrafficReport run(Collection<Router> network, int flowCount) {
+        TopologySnapshot snapshot = TopologySnapshot.capture(network);
+        TrafficReport report = new TrafficReport(snapshot);
+
+        if (snapshot.size() < 2 || flowCount <= 0) {
+            return report;
+        }
+
+        Flows flows = new Flows(snapshot, flowCount);
+        int threshold = Math.max(1, flowCount / (pool.getParallelism() * TASKS_PER_WORKER));
+        long start = System.nanoTime();
+
+        pool.invoke(new FlowRange(flows, report, 0, flowCount, threshold));
+
+        report.setElapsedNanos(System.nanoTime() - start);
+
+        return report;
+    }
+
+    private static void forward(Flows flows, int flow, TrafficReport tally) {
+        TopologySnapshot snapshot = flows.snapshot;
+        int source = flows.sources[flow];
+        int destination = flows.destinations[flow];
+        tally.recordFlow(flows.sizes[flow]);
+
+        if (!flows.routable[destination]) {
+            tally.recordDrop(source, TrafficReport.Drop.NO_ROUTE, flows.sizes[flow]);
+            return;
+        }
+
+        RoutingTable routes = snapshot.getRouter(source).getRoutingTable();
+        int route = routes.indexOf(snapshot.getId(destination));
+        long routeCost = route < 0 ? ShortestPathTree.UNREACHABLE : routes.getRouteCost(route);
+        int address = flows.addresses[destination];
+        int flowHash = ForwardingTable.flowHash(flows.addresses[source], address, flow);
+        int ttl = Math.max(MAX_TTL, snapshot.size());
+
+        for (int packet = 0; packet < flows.sizes[flow]; packet++) {
+            int node = source;
+            int hops = 0;
+            long pathCost = 0;
+            boolean rerouted = false;
+
+            while (true) {
+                Router router = snapshot.getRouter(node);
+                if (!router.isActive()) {
+                    tally.recordDrop(node, TrafficReport.Drop.ROUTER_DOWN, 1);
+                    break;
+                }
+
+                long nextHop = router.getForwardingTable().lookup(address, flowHash);
+                if (nextHop == ForwardingTable.NO_ROUTE) {
+                    tally.recordDrop(node, TrafficReport.Drop.NO_ROUTE, 1);
+                    break;
+                }
+                if (nextHop == router.getId()) {
+                    tally.recordDelivery(hops, pathCost, routeCost);
+                    if (rerouted) {
+                        tally.recordRecovery();
+                    }
+                    break;
+                }
+                if (++hops > ttl) {
+                    tally.recordDrop(node, TrafficReport.Drop.TTL_EXPIRED, 1);
+                    break;
+                }
+
+                int next = snapshot.indexOf(nextHop);
+                int edge = findEdge(snapshot, node, next);
+                if (edge < 0) {
+                    int alternate = snapshot.indexOf(router.getForwardingTable().lookupBackup(address));
+                    int backupEdge = findEdge(snapshot, node, alternate);
+                    if (backupEdge >= 0) {
+                        if (!rerouted) {
+                            tally.recordReroute();
+                        }
+                        rerouted = true;
+                        next = alternate;
+                        edge = backupEdge;
+                    }
+                }
+                if (edge < 0) {
+                    tally.recordDrop(node, next >= 0 && !snapshot.getRouter(next).isActive()
+                            ? TrafficReport.Drop.ROUTER_DOWN : TrafficReport.Drop.NO_ROUTE, 1);
+                    break;
+                }
+
+                tally.recordLink(edge);
+                pathCost += snapshot.getCost(edge);
+                node = next;
+            }
+        }
+    }
+
+    private static int findEdge(TopologySnapshot snapshot, int node, int target) {
+        if (target < 0) {
+            return -1;
+        }
+
+        for (int edge = snapshot.getEdgeStart(node); edge < snapshot.getEdgeEnd(node); edge++) {
+            if (snapshot.getTarget(edge) == target) {
+                return edge;
+            }
+        }
+
+        return -1;
+    }
+
+    private final class Flows {
+
+        private final TopologySnapshot snapshot;
+
+        private final int[] sources;
+
+        private final int[] destinations;
+
+        private final int[] sizes;
+
+        private final int[] addresses;
+
+        private final boolean[] routable;
+
+        private Flows(TopologySnapshot topology, int flowCount) {
+            snapshot = topology;
+            sources = new int[flowCount];
+            destinations = new int[flowCount];
+            sizes = new int[flowCount];
+            matrix.generate(random, snapshot, sources, destinations);
+
+            for (int flow = 0; flow < flowCount; flow++) {
+                double size = 1 - (meanFlowSize - 1) * Math.log(1 - random.nextDouble());
+                sizes[flow] = (int) Math.min(size, MAX_TTL * meanFlowSize);
+            }
+
+            addresses = new int[snapshot.size()];
+            routable = new boolean[snapshot.size()];
+            for (int node = 0; node < snapshot.size(); node++) {
+                try {
+                    addresses[node] = ForwardingTable.addressOf(snapshot.getRouter(node).getNetworkName());
+                    routable[node] = true;
+                } catch (IllegalArgumentException e) {
+                    routable[node] = false;
+                }
+            }
+        }
+    }
+
+    private static final class FlowRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Flows flows;
+
+        private final transient TrafficReport report;
+
+        private final int from;
+
+        private final int to;
+
+        private final int threshold;
+
+        private FlowRange(Flows traffic, TrafficReport results, int start, int end, int limit) {
+            flows = traffic;
+            report = results;
+            from = start;
+            to = end;
+            threshold = limit;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                TrafficReport tally = new TrafficReport(flows.snapshot);
+                for (int flow = from; flow < to; flow++) {
+                    forward(flows, flow, tally);
+                }
+                report.merge(tally);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new FlowRange(flows, report, from, middle, threshold),
+                    new FlowRange(flows, report, middle, to, threshold));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.Arrays;
+import java.util.Random;
+
+public enum TrafficMatrix {
+
+    UNIFORM {
+        @Override
+        public void generate(Random random, TopologySnapshot snapshot, int[] sources, int[] destinations) {
+            for (int flow = 0; flow < sources.length; flow++) {
+                sources[flow] = random.nextInt(snapshot.size());
+                destinations[flow] = other(random, snapshot.size(), sources[flow]);
+            }
+        }
+    },
+
+    GRAVITY {
+        @Override
+        public void generate(Random random, TopologySnapshot snapshot, int[] sources, int[] destinations) {
+            long[] mass = new long[snapshot.size()];
+            long total = 0;
+            for (int node = 0; node < mass.length; node++) {
+                total += 1 + snapshot.getEdgeEnd(node) - snapshot.getEdgeStart(node);
+                mass[node] = total;
+            }
+
+            for (int flow = 0; flow < sources.length; flow++) {
+                sources[flow] = pick(random, mass, total);
+                do {
+                    destinations[flow] = pick(random, mass, total);
+                } while (destinations[flow] == sources[flow] && mass.length > 1);
+            }
+        }
+
+        private int pick(Random random, long[] mass, long total) {
+            int node = Arrays.binarySearch(mass, (long) (random.nextDouble() * total) + 1);
+            return node < 0 ? -node - 1 : node;
+        }
+    },
+
+    HOTSPOT {
+        @Override
+        public void generate(Random random, TopologySnapshot snapshot, int[] sources, int[] destinations) {
+            int[] hotspots = new int[Math.max(1, (int) Math.ceil(snapshot.size() * HOTSPOT_SHARE))];
+            for (int hotspot = 0; hotspot < hotspots.length; hotspot++) {
+                hotspots[hotspot] = random.nextInt(snapshot.size());
+            }
+
+            for (int flow = 0; flow < sources.length; flow++) {
+                destinations[flow] = random.nextDouble() < HOTSPOT_TRAFFIC
+                        ? hotspots[random.nextInt(hotspots.length)] : random.nextInt(snapshot.size());
+                sources[flow] = other(random, snapshot.size(), destinations[flow]);
+            }
+        }
+    };
+
+    private static final double HOTSPOT_SHARE = 0.05;
+
+    private static final double HOTSPOT_TRAFFIC = 0.8;
+
+    public abstract void generate(Random random, TopologySnapshot snapshot, int[] sources, int[] destinations);
+
+    private static int other(Random random, int size, int node) {
+        if (size < 2) {
+            return node;
+        }
+        int other = random.nextInt(size - 1);
+        return other < node ? other : other + 1;
+    }
+
+    public static TrafficMatrix fromString(String matrix) {
+        for (TrafficMatrix value : values()) {
+            if (value.name().equalsIgnoreCase(matrix)) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid traffic matrix : %s", matrix));
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+public class TrafficReport {
+
+    public enum Drop {
+        NO_ROUTE, ROUTER_DOWN, TTL_EXPIRED
+    }
+
+    private final TopologySnapshot snapshot;
+
+    private final long[] linkLoads;
+
+    private final long[] drops;
+
+    private final long[] nodeDrops;
+
+    private long flows;
+
+    private long packets;
+
+    private long delivered;
+
+    private long rerouted;
+
+    private long recovered;
+
+    private long hops;
+
+    private double stretch;
+
+    private long stretchSamples;
+
+    private long elapsedNanos;
+
+    public TrafficReport(TopologySnapshot topology) {
+        snapshot = topology;
+        linkLoads = new long[topology.getEdgeCount()];
+        drops = new long[Drop.values().length];
+        nodeDrops = new long[topology.size()];
+    }
+
+    public TopologySnapshot getTopology() {
+        return snapshot;
+    }
+
+    public long getFlows() {
+        return flows;
+    }
+
+    public long getPackets() {
+        return packets;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public long getRerouted() {
+        return rerouted;
+    }
+
+    public long getRecovered() {
+        return recovered;
+    }
+
+    public long getDropped() {
+        return Arrays.stream(drops).sum();
+    }
+
+    public long getDropped(Drop reason) {
+        return drops[reason.ordinal()];
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getPacketsPerSecond() {
+        return elapsedNanos == 0 ? 0 : packets * 1_000_000_000L / elapsedNanos;
+    }
+
+    public double getMeanHops() {
+        return delivered == 0 ? 0 : (double) hops / delivered;
+    }
+
+    public double getMeanStretch() {
+        return stretchSamples == 0 ? 0 : stretch / stretchSamples;
+    }
+
+    public long getForwarded(int node) {
+        long forwarded = 0;
+        for (int edge = snapshot.getEdgeStart(node); edge < snapshot.getEdgeEnd(node); edge++) {
+            forwarded += linkLoads[edge];
+        }
+        return forwarded;
+    }
+
+    public long getDropped(int node) {
+        return nodeDrops[node];
+    }
+
+    public long getLinkLoad(int edge) {
+        return linkLoads[edge];
+    }
+
+    public int[] getBusiestLinks(int count) {
+        return IntStream.range(0, linkLoads.length).filter(edge -> linkLoads[edge] > 0).boxed()
+                .sorted(Comparator.comparingLong((Integer edge) -> linkLoads[edge]).reversed()).limit(count)
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    void recordFlow(long flowPackets) {
+        flows++;
+        packets += flowPackets;
+    }
+
+    void recordLink(int edge) {
+        linkLoads[edge]++;
+    }
+
+    void recordDelivery(int pathHops, long pathCost, long routeCost) {
+        delivered++;
+        hops += pathHops;
+        if (routeCost > 0 && routeCost < ShortestPathTree.UNREACHABLE) {
+            stretch += (double) pathCost / routeCost;
+            stretchSamples++;
+        }
+    }
+
+    void recordReroute() {
+        rerouted++;
+    }
+
+    void recordRecovery() {
+        recovered++;
+    }
+
+    void recordDrop(int node, Drop reason, long count) {
+        drops[reason.ordinal()] += count;
+        nodeDrops[node] += count;
+    }
+
+    void setElapsedNanos(long elapsed) {
+        elapsedNanos = elapsed;
+    }
+
+    synchronized void merge(TrafficReport other) {
+        for (int edge = 0; edge < linkLoads.length; edge++) {
+            linkLoads[edge] += other.linkLoads[edge];
+        }
+        for (int reason = 0; reason < drops.length; reason++) {
+            drops[reason] += other.drops[reason];
+        }
+        for (int node = 0; node < nodeDrops.length; node++) {
+            nodeDrops[node] += other.nodeDrops[node];
+        }
+        flows += other.flows;
+        packets += other.packets;
+        delivered += other.delivered;
+        rerouted += other.rerouted;
+        recovered += other.recovered;
+        hops += other.hops;
+        stretch += other.stretch;
+        stretchSamples += other.stretchSamples;
+    }
+}
@@ -1,21 +1,214 @@
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 public class VirtualNetwork {
 
     private Map<Long, Router> networkMap;
 
+    private final AtomicLong networkTime;
+
+    private final boolean spfThrottling;
+
+    private final ConcurrentFlooding concurrentFlooding;
+
+    private final ProtocolSimulation simulation;
+
+    private final RouterIndex networkIndex;
+
+    private final int[][] adjacency;
+
+    private final FloodQueue floodQueue;
+
+    private final FloodingTopology floodingTopology;
+
+    private final long simulationStep;
+
+    private final OriginationMode originationMode;
+
+    private final AllPairsRouting allPairsRouting;
+
+    private final TrafficEngine trafficEngine;
+
+    private final MetricsRegistry metrics;
+
+    private MetricsServer metricsServer;
+
+    private final boolean flapDamping;
+
+    private final boolean fastReroute;
+
+    private final PathQuery pathQuery;
+
+    private final int routeEventBuffer;
+
+    private RouteEventPublisher routeEvents;
+
+    private RouteEventWriter routeEventWriter;
+
+    private long topologyVersion;
+
+    private long linkStateVersion;
+
+    private final Checkpoint checkpoint;
+
+    private final String topologyPath;
+
+    private long topologyChecksum;
+
+    private static final int BUSIEST_LINKS = 5;
+
     private static final String SWITCH = "Router %s switched %s.";
 
     private static final String INVALID_SWITCH = "Router %s already %s.";
 
     private static final String INVALID_ID = "Invalid Router ID : %s.";
 
-    public VirtualNetwork() {
-        networkMap = ReadWrite.readNetworkInitFile();
-        ReadWrite.print(String.format("Network created with %s routers.", networkMap.size()));
-        sendPacket();
+    public VirtualNetwork(Configuration configuration) {
+        long start = System.nanoTime();
+        topologyPath = configuration.getTopologyPath();
+        checkpoint = configuration.getCheckpointPath() != null ? new Checkpoint(configuration.getCheckpointPath())
+                : null;
+        Set<Long> changed = loadNetwork();
+        networkTime = new AtomicLong();
+        networkIndex = new RouterIndex();
+        adjacency = new int[networkMap.size()][];
+        floodQueue = new FloodQueue();
+        initAdjacency();
+        floodingTopology = configuration.isFloodingReduction() ? new FloodingTopology(networkIndex, adjacency) : null;
+        simulation = configuration.isEventSimulation() ? new ProtocolSimulation(networkMap, configuration) : null;
+        simulationStep = configuration.getLspRefreshInterval();
+        flapDamping = configuration.isFlapDamping();
+        originationMode = configuration.getOriginationMode();
+        fastReroute = configuration.isFastReroute();
+        for (Router router : networkMap.values()) {
+            router.setSpfMode(configuration.getSpfMode());
+            router.setMaxPaths(configuration.getMaxPaths());
+            router.setFastReroute(configuration.isFastReroute());
+            router.setOriginationMode(originationMode, configuration.getLspRefreshRounds());
+            if (configuration.isMetricsEnabled()) {
+                router.setMetrics(new RouterMetrics());
+            }
+            router.setDirectory(networkMap::get);
+            router.setSpfScheduler(configuration.createSpfScheduler(),
+                    simulation != null ? simulation.getClock()::now : networkTime::get);
+            if (flapDamping) {
+                router.setFlapDamping(configuration::createFlapDamping);
+            }
+        }
+        if (changed != null) {
+            restoreRoutingState(changed, start);
+        }
+        spfThrottling = configuration.isSpfThrottling();
+        allPairsRouting = new AllPairsRouting(configuration.getWorkers());
+        pathQuery = new PathQuery(configuration.getPathCacheSize());
+        routeEventBuffer = configuration.getRouteEventBuffer();
+        if (configuration.getRouteEventsPath() != null) {
+            startRouteEventWriter(configuration.getRouteEventsPath());
+        }
+        linkStateVersion = -1;
+        metrics = new MetricsRegistry(networkMap.values(), configuration.isMetricsEnabled());
+        if (configuration.getMetricsPort() > 0) {
+            startMetricsServer(configuration.getMetricsPort());
+        }
+        trafficEngine = new TrafficEngine(configuration.getWorkers(), configuration.getTrafficMatrix(),
+                configuration.getFlowSize(), configuration.getTrafficSeed());
+        concurrentFlooding = configuration.isConcurrentFlooding()
+                ? new ConcurrentFlooding(networkMap.values(), configuration.getWorkers(), networkTime)
+                : null;
+        if (concurrentFlooding != null && floodingTopology != null) {
+            concurrentFlooding.setFloodingTopology(floodingTopology, networkIndex);
+        }
+        long areas = networkMap.values().stream().mapToInt(Router::getArea).distinct().count();
+        ReadWrite.print(areas > 1
+                ? String.format("Network created with %s routers in %s areas.", networkMap.size(), areas)
+                : String.format("Network created with %s routers.", networkMap.size()));
+        if (simulation != null) {
+            simulation.start();
+        }
+        if (changed == null) {
+            sendPacket();
+        } else if (!changed.isEmpty()) {
+            resynchronize(changed);
+            sendPacket();
+        }
+    }
+
+    private Set<Long> loadNetwork() {
+        if (checkpoint != null) {
+            try {
+                topologyChecksum = Checkpoint.checksum(topologyPath);
+                if (checkpoint.exists()) {
+                    networkMap = checkpoint.load();
+                    if (!TopologyLoader.STDIN.equals(topologyPath)
+                            && checkpoint.getTopologyChecksum() == topologyChecksum) {
+                        return Collections.emptySet();
+                    }
+
+                    Set<Long> changed = checkpoint.reconcile(networkMap, ReadWrite.readNetworkInitFile(topologyPath));
+                    ReadWrite.print(String.format("Topology changed since the checkpoint : %s routers to reconverge.",
+                            changed.size()));
+                    return changed;
+                }
+            } catch (IOException e) {
+                ReadWrite.printError(String.format("Checkpoint not restored : %s", e.getMessage()));
+            }
+        }
+
+        networkMap = ReadWrite.readNetworkInitFile(topologyPath);
+        return null;
+    }
+
+    private void restoreRoutingState(Set<Long> changed, long start) {
+        checkpoint.restoreState(networkMap, changed);
+        networkMap.values().parallelStream().forEach(Router::rebuildRoutingTable);
+        long differing = networkMap.values().stream().filter(router -> !checkpoint.verify(router)).count();
+
+        ReadWrite.print(String.format("Checkpoint restored from %s : %s routers, %s link state entries in %s ms, "
+                + "%s routing tables differ from the checkpoint.", checkpoint.getPath(), networkMap.size(),
+                checkpoint.getRestoredEntries(), (System.nanoTime() - start) / 1_000_000, differing));
+    }
+
+    private void resynchronize(Set<Long> changed) {
+        for (Long id : changed) {
+            Router router = networkMap.get(id);
+            router.requestFullPacket();
+
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                info.getRouter().synchronize(router);
+                router.synchronize(info.getRouter());
+            }
+        }
+    }
+
+    public void writeCheckpoint() {
+        if (checkpoint == null) {
+            ReadWrite.printError("No checkpoint file configured. Start the simulator with --checkpoint=FILE.");
+            return;
+        }
+
+        for (Router router : networkMap.values()) {
+            router.flushScheduledSpf();
+        }
+
+        long start = System.nanoTime();
+        try {
+            checkpoint.save(networkMap.values(), topologyChecksum);
+        } catch (IOException e) {
+            ReadWrite.printError(String.format("Checkpoint not written : %s", e.getMessage()));
+            return;
+        }
+
+        ReadWrite.print(String.format("Checkpoint written to %s : %s routers, %s bytes in %s ms.", checkpoint.getPath(),
+                networkMap.size(), checkpoint.getSize(), (System.nanoTime() - start) / 1_000_000));
     }
 
     public void shutdownRouter(long routerId) {
@@ -29,6 +222,10 @@ public class VirtualNetwork {
             return;
         }
         router.shutdown();
+        if (simulation != null) {
+            simulation.routerShutdown(router);
+        }
+        topologyVersion++;
         ReadWrite.print(String.format(SWITCH, routerId, "off"));
     }
 
@@ -43,10 +240,52 @@ public class VirtualNetwork {
             return;
         }
         router.start();
+        if (simulation != null) {
+            simulation.routerStarted(router);
+        }
+        topologyVersion++;
         ReadWrite.print(String.format(SWITCH, routerId, "on"));
     }
 
     public void sendPacket() {
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+
+        if (simulation != null) {
+            runSimulation(simulationStep);
+            refreshTopologyVersion();
+            recordRound(start);
+            return;
+        }
+
+        if (originationMode == OriginationMode.PERIODIC) {
+            floodAll();
+            exchangeHellos();
+        } else {
+            floodUpdates();
+        }
+
+        for (Router router : networkMap.values()) {
+            router.flushScheduledSpf();
+        }
+        refreshTopologyVersion();
+        recordRound(start);
+        ReadWrite.print("Link State Packets sent over the network.");
+
+        if (spfThrottling) {
+            printSpfStatistics();
+        }
+        if (flapDamping) {
+            printDampingStatistics();
+        }
+        if (fastReroute) {
+            printFastRerouteStatistics();
+        }
+        if (floodingTopology != null) {
+            printFloodingStatistics();
+        }
+    }
+
+    private void floodAll() {
         List<LinkStatePacket> lsps = new ArrayList<>();
         for (Router router : networkMap.values()) {
             if (router.isActive()) {
@@ -54,21 +293,454 @@ public class VirtualNetwork {
             }
         }
 
-        for (LinkStatePacket lsp : lsps) {
-            while (lsp.isAlive()) {
-                Router nextReceiver = lsp.getNextReceiver();
-                Long sender = lsp.getSender();
-                nextReceiver.receivePacket(sender, lsp);
+        flood(lsps);
+    }
+
+    private void floodUpdates() {
+        long gaps = getSequenceGaps();
+        int deltas = 0;
+
+        List<LinkStatePacket> lsps = new ArrayList<>();
+        for (Router router : networkMap.values()) {
+            if (router.isActive()) {
+                LinkStatePacket lsp = router.originateUpdate();
+                if (lsp != null) {
+                    lsps.add(lsp);
+                    deltas += lsp.isDelta() ? 1 : 0;
+                }
             }
         }
-        ReadWrite.print("Link State Packets sent over the network.");
 
+        flood(lsps);
+        exchangeHellos();
+
+        ReadWrite.print(String.format("LSPs originated : %s full, %s delta, sequence gaps detected : %s.",
+                lsps.size() - deltas, deltas, getSequenceGaps() - gaps));
+    }
+
+    private void flood(List<LinkStatePacket> lsps) {
+        if (floodingTopology != null && !lsps.isEmpty() && !floodingTopology.isCurrent(topologyVersion)) {
+            floodingTopology.rebuild(topologyVersion);
+        }
+
+        if (concurrentFlooding != null) {
+            concurrentFlooding.flood(lsps);
+        } else {
+            floodSequentially(lsps);
+        }
+    }
+
+    private void exchangeHellos() {
+        for (Router router : networkMap.values()) {
+            if (!router.isActive()) {
+                continue;
+            }
+
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                Router neighbor = info.getRouter();
+                if (neighbor.receiveHello(router.getId())) {
+                    router.synchronize(neighbor);
+                    neighbor.synchronize(router);
+                }
+            }
+        }
+    }
+
+    private void refreshTopologyVersion() {
+        long version = 0;
+
+        for (Router router : networkMap.values()) {
+            version += router.getLinkStateDatabase().getLinkVersion();
+        }
+
+        if (version != linkStateVersion) {
+            linkStateVersion = version;
+            topologyVersion++;
+        }
+    }
+
+    public long getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    private long getSequenceGaps() {
+        long gaps = 0;
+
+        for (Router router : networkMap.values()) {
+            gaps += router.getSequenceGaps();
+        }
+
+        return gaps;
+    }
+
+    private void recordRound(long start) {
+        if (metrics.isEnabled()) {
+            metrics.recordRound(System.nanoTime() - start);
+        }
+    }
+
+    public RoutingTable[] computeAllRoutingTables() {
+        long start = System.nanoTime();
+        TopologySnapshot snapshot = TopologySnapshot.capture(networkMap.values());
+        RoutingTable[] tables = allPairsRouting.compute(snapshot);
+
+        ReadWrite.print(String.format("Routing tables computed for %s routers over %s links in %s ms on %s workers.",
+                snapshot.size(), snapshot.getEdgeCount(), (System.nanoTime() - start) / 1_000_000,
+                allPairsRouting.getParallelism()));
+
+        return tables;
+    }
+
+    public TrafficReport sendTraffic(int flows) {
+        TrafficReport report = trafficEngine.run(networkMap.values(), flows);
+        TopologySnapshot snapshot = report.getTopology();
+
+        if (metrics.isEnabled()) {
+            for (int node = 0; node < snapshot.size(); node++) {
+                snapshot.getRouter(node).getMetrics().recordPackets(report.getForwarded(node), report.getDropped(node));
+            }
+        }
+
+        ReadWrite.print(String.format("Traffic forwarded : %s flows, %s packets in %s ms on %s workers (%s packets/s).",
+                report.getFlows(), report.getPackets(), report.getElapsedNanos() / 1_000_000,
+                trafficEngine.getParallelism(), report.getPacketsPerSecond()));
+        ReadWrite.print(String.format("Delivered %s packets over %.2f hops with stretch %.3f, dropped %s "
+                + "(%s no route, %s router down, %s TTL expired).", report.getDelivered(), report.getMeanHops(),
+                report.getMeanStretch(), report.getDropped(), report.getDropped(TrafficReport.Drop.NO_ROUTE),
+                report.getDropped(TrafficReport.Drop.ROUTER_DOWN), report.getDropped(TrafficReport.Drop.TTL_EXPIRED)));
+
+        if (fastReroute) {
+            ReadWrite.print(String.format("Fast reroute : %s packets took an alternate around a failed link, "
+                    + "%s of them were delivered instead of dropped.", report.getRerouted(), report.getRecovered()));
+        }
+
+        StringBuilder links = new StringBuilder("Busiest links : ");
+        int[] busiest = report.getBusiestLinks(BUSIEST_LINKS);
+        for (int rank = 0; rank < busiest.length; rank++) {
+            int edge = busiest[rank];
+            int from = 0;
+            while (snapshot.getEdgeEnd(from) <= edge) {
+                from++;
+            }
+            links.append(rank == 0 ? "" : ReadWrite.SEPARATOR).append(snapshot.getId(from)).append(" -> ")
+                    .append(snapshot.getId(snapshot.getTarget(edge))).append(" (").append(report.getLinkLoad(edge))
+                    .append(')');
+        }
+        if (busiest.length > 0) {
+            ReadWrite.print(links.toString());
+        }
+
+        return report;
+    }
+
+    public void runSimulation(long duration) {
+        simulation.runFor(duration);
+        SimulationClock clock = simulation.getClock();
+
+        ReadWrite.print(String.format("Simulated time : %s ms, events processed : %s, LSP copies delivered : %s.",
+                clock.now(), clock.getProcessedEvents(), simulation.getLspCopies()));
+        if (simulation.getDetections() > 0) {
+            ReadWrite.print(String.format("Failures detected : %s, mean detection latency : %s ms, max : %s ms.",
+                    simulation.getDetections(), simulation.getMeanDetectionLatency(),
+                    simulation.getMaxDetectionLatency()));
+        }
+        if (spfThrottling) {
+            printSpfStatistics();
+        }
+    }
+
+    private void initAdjacency() {
+        for (Router router : networkMap.values()) {
+            networkIndex.intern(router);
+        }
+
+        for (int i = 0; i < networkIndex.size(); i++) {
+            Router router = networkIndex.getRouter(i);
+            adjacency[i] = new int[router.getConnectivityGraph().size()];
+            int link = 0;
+            for (ConnectionInformation info : router.getConnectivityGraph().values()) {
+                if (info.getRouter().getArea() == router.getArea()) {
+                    adjacency[i][link++] = networkIndex.indexOf(info.getRouter().getId());
+                }
+            }
+            adjacency[i] = Arrays.copyOf(adjacency[i], link);
+        }
+    }
+
+    private void floodSequentially(List<LinkStatePacket> lsps) {
+        for (int packet = 0; packet < lsps.size(); packet++) {
+            LinkStatePacket lsp = lsps.get(packet);
+            forward(packet, networkIndex.indexOf(lsp.getOriginationRouter()), -1, LinkStatePacket.TIME_TO_LIVE);
+
+            while (!floodQueue.isEmpty()) {
+                floodQueue.poll();
+                Router receiver = networkIndex.getRouter(floodQueue.getReceiver());
+                long now = networkTime.incrementAndGet();
+
+                if (receiver.acceptPacket(networkIndex.getId(floodQueue.getSender()), lsp)) {
+                    forward(packet, floodQueue.getReceiver(), floodQueue.getSender(), floodQueue.getTimeToLive());
+                    metrics.recordFloodQueueDepth(floodQueue.size());
+                }
+                receiver.runScheduledSpf(now);
+            }
+        }
+    }
+
+    private void forward(int packet, int from, int except, int timeToLive) {
+        if (timeToLive <= 1) {
+            return;
+        }
+
+        int[] neighbors = floodingTopology != null ? floodingTopology.getLinks(from) : adjacency[from];
+        int sent = 0;
+        for (int neighbor : neighbors) {
+            if (neighbor != except) {
+                floodQueue.add(packet, from, neighbor, timeToLive - 1);
+                sent++;
+            }
+        }
+
+        if (floodingTopology != null) {
+            floodingTopology.recordForward(from, except, sent);
+        }
+    }
+
+    private void printSpfStatistics() {
+        long runs = 0;
+        long saved = 0;
+
+        for (Router router : networkMap.values()) {
+            runs += router.getSpfScheduler().getRuns();
+            saved += router.getSpfScheduler().getSavedRuns();
+        }
+
+        ReadWrite.print(String.format("SPF runs : %s, runs saved by scheduling : %s.", runs, saved));
+    }
+
+    private void printDampingStatistics() {
+        Map<Integer, Long> areaSizes = networkMap.values().stream()
+                .collect(Collectors.groupingBy(Router::getArea, Collectors.counting()));
+        long links = 0;
+        long routers = 0;
+        long absorbed = 0;
+        long withheld = 0;
+        long avoided = 0;
+
+        for (Router router : networkMap.values()) {
+            links += router.getSuppressedLinks();
+            routers += router.isOriginSuppressed() ? 1 : 0;
+            absorbed += router.getAbsorbedFlaps();
+            withheld += router.getWithheldPackets();
+            avoided += (router.getAbsorbedFlaps() + router.getWithheldPackets())
+                    * (areaSizes.get(router.getArea()) - 1);
+        }
+
+        ReadWrite.print(String.format("Flap damping : %s links and %s routers suppressed, %s link flaps absorbed, "
+                + "%s LSPs withheld, about %s SPF runs avoided.", links, routers, absorbed, withheld, avoided));
+    }
+
+    private void printFastRerouteStatistics() {
+        long routes = 0;
+        long protectedRoutes = 0;
+        long nodeProtected = 0;
+        long failovers = 0;
+
+        for (Router router : networkMap.values()) {
+            if (router.isActive()) {
+                routes += router.getRoutingTable().size() - 1;
+                protectedRoutes += router.getShortestPathTree().getProtectedRoutes();
+                nodeProtected += router.getShortestPathTree().getNodeProtectedRoutes();
+            }
+            failovers += router.getFailovers();
+        }
+
+        ReadWrite.print(String.format("Fast reroute : %s of %s routes protected, %s against node failure, "
+                + "%s forwarding entries switched to alternates.", protectedRoutes, routes, nodeProtected, failovers));
+    }
+
+    private void printFloodingStatistics() {
+        long copies = floodingTopology.drainCopies();
+        long fullCopies = floodingTopology.drainFullCopies();
+
+        ReadWrite.print(String.format("Flooding reduction : %s LSP copies sent, %s with full flooding (%.1f%% fewer), "
+                + "flooding topology uses %s of %s links, rebuilds : %s.", copies, fullCopies,
+                fullCopies > 0 ? 100.0 * (fullCopies - copies) / fullCopies : 0.0, floodingTopology.getTreeLinks(),
+                floodingTopology.getTotalLinks(), floodingTopology.getRebuilds()));
+        if (floodingTopology.getFullComponents() > 0) {
+            ReadWrite.print(String.format("Flooding reduction : %s partitions flooded in full, their spanning tree is "
+                    + "deeper than the LSP time to live.", floodingTopology.getFullComponents()));
+        }
+    }
+
+    public List<Long> getRouterIds() {
+        return new ArrayList<>(new TreeSet<>(networkMap.keySet()));
+    }
+
+    public Router getRouter(long routerId) {
+        return networkMap.get(routerId);
+    }
+
+    public long getDeliveredPackets() {
+        long delivered = 0;
+
+        for (Router router : networkMap.values()) {
+            delivered += router.getDeliveredPackets();
+        }
+
+        return delivered;
+    }
+
+    public long getSpfRuns() {
+        long runs = 0;
+
+        for (Router router : networkMap.values()) {
+            runs += router.getShortestPathTree().getFullRuns() + router.getShortestPathTree().getIncrementalRuns();
+        }
+
+        return runs;
+    }
+
+    public long getRouteChanges() {
+        long changes = 0;
+
+        for (Router router : networkMap.values()) {
+            changes += router.getShortestPathTree().getRouteChanges();
+        }
+
+        return changes;
     }
 
     private boolean isValidRouterId(long id) {
         return networkMap.containsKey(id);
     }
 
+    public void printForwarding(long routerId, String address) {
+        if (!isValidRouterId(routerId)) {
+            ReadWrite.printError(String.format(INVALID_ID, routerId));
+            return;
+        }
+
+        long[] nextHops;
+        try {
+            nextHops = networkMap.get(routerId).getForwardingTable().lookupAll(ForwardingTable.parseAddress(address));
+        } catch (IllegalArgumentException e) {
+            ReadWrite.printError(e.getMessage());
+            return;
+        }
+
+        if (nextHops.length == 0) {
+            ReadWrite.print(String.format("Router %s has no route to %s.", routerId, address));
+        } else if (nextHops[0] == routerId) {
+            ReadWrite.print(String.format("Router %s delivers %s locally.", routerId, address));
+        } else if (nextHops.length == 1) {
+            ReadWrite.print(String.format("Router %s forwards %s to router %s.", routerId, address, nextHops[0]));
+        } else {
+            String routers = Arrays.stream(nextHops).mapToObj(String::valueOf)
+                    .collect(Collectors.joining(ReadWrite.SEPARATOR));
+            ReadWrite.print(String.format("Router %s forwards %s to routers %s.", routerId, address, routers));
+        }
+    }
+
+    public RoutePath findPath(long sourceId, long destinationId) {
+        return pathQuery.find(networkMap.get(sourceId), destinationId);
+    }
+
+    public void printPath(long sourceId, long destinationId) {
+        if (!isValidRouterId(sourceId) || !isValidRouterId(destinationId)) {
+            ReadWrite.printError(String.format(INVALID_ID, isValidRouterId(sourceId) ? destinationId : sourceId));
+            return;
+        }
+
+        RoutePath path = findPath(sourceId, destinationId);
+        if (!path.isReachable()) {
+            ReadWrite.print(String.format("Router %s has no path to %s.", sourceId, destinationId));
+            return;
+        }
+
+        String hops = Arrays.stream(path.getHops()).mapToObj(String::valueOf).collect(Collectors.joining(" -> "));
+        ReadWrite.print(String.format("Path from %s to %s with cost %s over %s hops : %s.", sourceId, destinationId,
+                path.getCost(), path.getHopCount(), hops));
+    }
+
+    public PathQuery getPathQuery() {
+        return pathQuery;
+    }
+
+    public void printMetrics() {
+        if (!metrics.isEnabled()) {
+            ReadWrite.printError("Metrics are disabled. Start the simulator with --metrics=on.");
+            return;
+        }
+
+        ReadWrite.println(metrics.toPrometheus());
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public void close() {
+        if (metricsServer != null) {
+            metricsServer.stop();
+            metricsServer = null;
+        }
+        for (Router router : networkMap.values()) {
+            router.closeRouteEvents();
+        }
+        if (routeEvents != null) {
+            routeEvents.close();
+            ReadWrite.print(String.format("Route events : %s batches published, %s dropped by slow subscribers.",
+                    routeEvents.getPublished(), routeEvents.getDropped()));
+            routeEvents = null;
+        }
+        if (routeEventWriter != null) {
+            routeEventWriter.awaitCompletion();
+            routeEventWriter = null;
+        }
+        if (concurrentFlooding != null) {
+            concurrentFlooding.shutdown();
+        }
+        allPairsRouting.shutdown();
+        trafficEngine.shutdown();
+    }
+
+    public synchronized void subscribe(Flow.Subscriber<? super RouteUpdate> subscriber) {
+        if (routeEvents == null) {
+            routeEvents = new RouteEventPublisher(routeEventBuffer);
+            for (Router router : networkMap.values()) {
+                router.addRoutePublisher(routeEvents);
+            }
+        }
+
+        routeEvents.subscribe(subscriber);
+    }
+
+    private void startRouteEventWriter(String path) {
+        try {
+            routeEventWriter = new RouteEventWriter(path, routeEventBuffer);
+            subscribe(routeEventWriter);
+            ReadWrite.print(String.format("Route events written to %s.", path));
+        } catch (IOException e) {
+            ReadWrite.printError(String.format("Route events not written : %s", e.getMessage()));
+        }
+    }
+
+    private void startMetricsServer(int port) {
+        try {
+            metricsServer = new MetricsServer(metrics, port);
+            ReadWrite.print(String.format("Metrics served on http://localhost:%s/metrics and /metrics.json.",
+                    metricsServer.getPort()));
+        } catch (IOException e) {
+            ReadWrite.printError(String.format("Metrics endpoint unavailable : %s", e.getMessage()));
+        }
+    }
+
+    public void printRoutingTables() {
+        for (Long routerId : getRouterIds()) {
+            networkMap.get(routerId).displayRoutingTable();
+        }
+    }
+
     public void printRoutingTable(Long routerId) {
         if (isValidRouterId(routerId)) {
             networkMap.get(routerId).displayRoutingTable();
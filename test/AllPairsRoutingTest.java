@@ -0,0 +1,33 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class AllPairsRoutingTest {
+
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void allPairsTablesKeepEqualCostNextHops() throws IOException {
+        String topology = TestNetworks.generate("--type=grid", "--size=25", "--costs=constant");
+        VirtualNetwork network = TestNetworks.create(topology, "--ecmp=4");
+        for (int round = 0; round < ROUNDS; round++) {
+            network.sendPacket();
+        }
+
+        RoutingTable[] tables = network.computeAllRoutingTables();
+        List<Long> ids = network.getRouterIds();
+        for (int source = 0; source < tables.length; source++) {
+            RoutingTable spf = network.getRouter(ids.get(source)).getRoutingTable();
+
+            for (int node = 0; node < tables[source].size(); node++) {
+                int spfNode = spf.indexOf(tables[source].getId(node));
+                assertTrue(tables[source].hasSameRoute(node, spf, spfNode),
+                        String.format("route from %s to %s", ids.get(source), tables[source].getId(node)));
+            }
+        }
+        network.close();
+    }
+}
@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentFloodingTest {
+
+    private static final int ROUNDS = 3;
+
+    private static final int SEEDS = 12;
+
+    @Test
+    public void concurrentFloodingMatchesSequentialOnSparseTopology() throws IOException {
+        for (int seed = 1; seed <= SEEDS; seed++) {
+            assertSameRoutes(TestNetworks.generate("--type=waxman", "--size=60", "--degree=4", "--seed=" + seed));
+        }
+    }
+
+    @Test
+    public void concurrentTreeFloodingMatchesSequentialOnSparseTopology() throws IOException {
+        for (int seed = 1; seed <= SEEDS; seed++) {
+            assertSameRoutes(TestNetworks.generate("--type=waxman", "--size=60", "--degree=4", "--seed=" + seed),
+                    "--flooding-reduction=on");
+        }
+    }
+
+    @Test
+    public void closeStopsFloodingWorkers() throws IOException {
+        String topology = TestNetworks.generate("--type=waxman", "--size=20", "--degree=4", "--seed=1");
+        for (int network = 0; network < 3; network++) {
+            converge(topology, "--flooding=concurrent", new String[0], "--workers=4").close();
+        }
+
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.isAlive() && thread.getName().startsWith("flooding-worker-")),
+                "flooding workers left running");
+    }
+
+    private static void assertSameRoutes(String topology, String... options) {
+        VirtualNetwork sequential = converge(topology, "--flooding=sequential", options);
+
+        for (String workers : new String[] { "--workers=1", "--workers=4" }) {
+            VirtualNetwork concurrent = converge(topology, "--flooding=concurrent", options, workers);
+            List<Long> ids = sequential.getRouterIds();
+
+            for (long source : ids) {
+                for (long destination : ids) {
+                    assertEquals(TestNetworks.routeCost(sequential.getRouter(source), destination),
+                            TestNetworks.routeCost(concurrent.getRouter(source), destination),
+                            String.format("%s route from %s to %s", workers, source, destination));
+                }
+            }
+            concurrent.close();
+        }
+        sequential.close();
+    }
+
+    private static VirtualNetwork converge(String topology, String flooding, String[] options, String... extra) {
+        String[] args = new String[options.length + extra.length + 1];
+        args[0] = flooding;
+        System.arraycopy(options, 0, args, 1, options.length);
+        System.arraycopy(extra, 0, args, 1 + options.length, extra.length);
+
+        VirtualNetwork network = TestNetworks.create(topology, args);
+        for (int round = 0; round < ROUNDS; round++) {
+            network.sendPacket();
+        }
+        return network;
+    }
+}
@@ -0,0 +1,47 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PathQueryTest {
+
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void pathQueriesFollowTheSourceLinkStateView() throws IOException {
+        String topology = TestNetworks.generate("--type=waxman", "--size=40", "--degree=4", "--seed=7");
+        VirtualNetwork network = TestNetworks.create(topology);
+        for (int round = 0; round < ROUNDS; round++) {
+            network.sendPacket();
+        }
+        assertSamePaths(network, "converged");
+
+        List<Long> ids = network.getRouterIds();
+        network.shutdownRouter(ids.get(ids.size() / 2));
+        assertSamePaths(network, "before flooding");
+
+        for (int round = 0; round < ROUNDS; round++) {
+            network.sendPacket();
+        }
+        assertSamePaths(network, "after flooding");
+        network.close();
+    }
+
+    private static void assertSamePaths(VirtualNetwork network, String phase) {
+        List<Long> ids = network.getRouterIds();
+
+        for (long source : ids) {
+            Router router = network.getRouter(source);
+            if (!router.isActive()) {
+                continue;
+            }
+            for (long destination : ids) {
+                RoutePath path = network.findPath(source, destination);
+                assertEquals(TestNetworks.routeCost(router, destination), path.getCost(),
+                        String.format("%s path from %s to %s", phase, source, destination));
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class RouterTest {
+
+    private static final String STUB_TOPOLOGY = "0 10.0.0\n 1\n1 10.0.1\n 2\n 3\n2 10.0.2\n3 10.0.3\n";
+
+    private static final int ROUNDS = 4;
+
+    @Test
+    public void stubRouterWithdrawsRoutesThroughDeadNeighbour() throws IOException {
+        String topology = TestNetworks.write(STUB_TOPOLOGY);
+
+        for (String origination : new String[] { "periodic", "triggered", "delta" }) {
+            VirtualNetwork network = TestNetworks.create(topology, "--lsp-origination=" + origination);
+            network.shutdownRouter(1);
+            for (int round = 0; round < ROUNDS; round++) {
+                network.sendPacket();
+            }
+
+            Router stub = network.getRouter(3);
+            for (long destination = 0; destination < 3; destination++) {
+                assertEquals(ShortestPathTree.UNREACHABLE, TestNetworks.routeCost(stub, destination),
+                        origination + " route from 3 to " + destination);
+            }
+            assertEquals(0, TestNetworks.routeCost(stub, 3), origination + " route from 3 to itself");
+            network.close();
+        }
+    }
+
+    @Test
+    public void failedOverRoutesReturnToPrimaryAfterSpf() throws IOException {
+        String topology = TestNetworks.generate("--type=grid", "--size=16", "--costs=constant");
+        VirtualNetwork network = TestNetworks.create(topology, "--fast-reroute=on", "--ecmp=1");
+        for (int round = 0; round < ROUNDS; round++) {
+            network.sendPacket();
+        }
+
+        List<Long> ids = network.getRouterIds();
+        Router router = network.getRouter(ids.get(0));
+        ForwardingTable table = router.getForwardingTable();
+        int[] addresses = ids.stream().mapToInt(id -> ForwardingTable.addressOf(network.getRouter(id).getNetworkName()))
+                .toArray();
+        long[][] primaries = lookupAll(table, addresses);
+
+        for (long neighbor : router.getConnectivityGraph().keySet()) {
+            router.linkFailed(neighbor);
+            assertTrue(router.getFailovers() > 0, "failover to backups of " + neighbor);
+
+            router.rebuildRoutingTable();
+            long[][] routes = lookupAll(table, addresses);
+            for (int destination = 0; destination < addresses.length; destination++) {
+                assertArrayEquals(primaries[destination], routes[destination],
+                        String.format("route to %s after failover to backups of %s", ids.get(destination), neighbor));
+            }
+        }
+        network.close();
+    }
+
+    @Test
+    public void synchronizedLinkStateKeepsItsAge() {
+        AtomicLong clock = new AtomicLong();
+        Router origin = new Router(0, "10.0.0");
+        Router relay = new Router(1, "10.0.1");
+        Router peer = new Router(2, "10.0.2");
+        for (Router router : new Router[] { origin, relay, peer }) {
+            router.setSpfScheduler(new SpfScheduler(0, 0, 0), clock::get);
+            router.setDirectory(id -> id == 0 ? origin : id == 1 ? relay : peer);
+        }
+        origin.addConnection(relay, 1);
+        relay.addConnection(origin, 1);
+
+        clock.set(100);
+        relay.acceptPacket(origin.getId(), origin.originatePacket());
+        clock.set(250);
+        relay.synchronize(peer);
+
+        assertEquals(100, peer.getLinkStateDatabase().getOldestInstall(peer.getId()));
+        assertEquals(150, peer.getLinkStateDatabase().getAge(origin.getId(), clock.get()));
+    }
+
+    private static long[][] lookupAll(ForwardingTable table, int[] addresses) {
+        long[][] routes = new long[addresses.length][];
+        for (int destination = 0; destination < addresses.length; destination++) {
+            routes[destination] = table.lookupAll(addresses[destination]);
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,43 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class TestNetworks {
+
+    private TestNetworks() {
+    }
+
+    static String write(String topology) throws IOException {
+        Path file = Files.createTempFile("topology", ".dat");
+        file.toFile().deleteOnExit();
+        Files.write(file, topology.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    static String generate(String... options) throws IOException {
+        Path file = Files.createTempFile("topology", ".dat");
+        file.toFile().deleteOnExit();
+
+        List<String> args = new ArrayList<>(Arrays.asList(options));
+        args.add("--output=" + file);
+        TopologyGenerator generator = TopologyGenerator.fromArguments(args.toArray(new String[0]));
+        generator.write(generator.generate());
+        return file.toString();
+    }
+
+    static VirtualNetwork create(String topologyPath, String... options) {
+        List<String> args = new ArrayList<>(Arrays.asList(options));
+        args.add("--topology=" + topologyPath);
+        return new VirtualNetwork(Configuration.fromArguments(args.toArray(new String[0])));
+    }
+
+    static long routeCost(Router router, long destinationId) {
+        RoutingTable table = router.getRoutingTable();
+        int node = table.indexOf(destinationId);
+        return node >= 0 && table.isReachable(node) ? table.getRouteCost(node) : ShortestPathTree.UNREACHABLE;
+    }
+}